@@ -0,0 +1,117 @@
+package com.pb.benchmark;
+
+import com.pb.util.ColumnConverter;
+import com.pb.util.SqlType;
+import com.pb.util.ValueConverter;
+import com.pb.writer.ColumnBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts source values and binds them to an INSERT statement, per column type, the way batched inserts do it:
+ * a {@link ColumnConverter} from {@link ValueConverter#compile} followed by a {@link ColumnBinder}. Values come as
+ * text (CSV) or as the objects of the DBF and XLSX readers. The statement belongs to an in-memory H2 database and is
+ * never executed, so the driver's parameter handling is included but no I/O. {@link #dispatchPerValue} is the
+ * baseline: the conversion and binding that switched on the column type for every value ({@link PerValueDispatch}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+    private static final int VALUES = 1024;
+
+    @Param({"INTEGER", "NUMERIC(12,2)", "DATE", "BOOLEAN", "VARCHAR(64)"})
+    public String columnType;
+
+    @Param({"text", "object"})
+    public String source;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private SqlType type;
+    private boolean textValues;
+    private ColumnConverter converter;
+    private ColumnBinder binder;
+    private int sqlType;
+    private Object[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:binding");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS binding (v " + columnType + ")");
+        }
+        statement = connection.prepareStatement("INSERT INTO binding (v) VALUES (?)");
+        type = SqlType.parse(columnType);
+        textValues = "text".equals(source);
+        converter = ValueConverter.compile(type, textValues);
+        binder = ColumnBinder.of(type.base());
+        sqlType = switch (type.base()) {
+            case INTEGER -> java.sql.Types.INTEGER;
+            case NUMERIC -> java.sql.Types.NUMERIC;
+            case DATE -> java.sql.Types.DATE;
+            case BOOLEAN -> java.sql.Types.BOOLEAN;
+            default -> java.sql.Types.VARCHAR;
+        };
+
+        int column = Fixtures.columnOf(columnType);
+        Random random = new Random(VALUES + column);
+        values = new Object[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            String text = Fixtures.text(random, column);
+            values[i] = textValues ? text : Fixtures.value(text, column);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public PreparedStatement convertAndBind() throws Exception {
+        for (Object value : values) {
+            Object converted = converter.convert(value);
+            if (converted == null) {
+                statement.setNull(1, sqlType);
+            } else {
+                binder.bind(statement, 1, converted);
+            }
+        }
+        return statement;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public PreparedStatement dispatchPerValue() throws Exception {
+        for (Object value : values) {
+            Object converted = textValues ? PerValueDispatch.fromText((String) value, type) : PerValueDispatch.fromObject(value, type);
+            PerValueDispatch.bind(statement, 1, converted, type.base());
+        }
+        return statement;
+    }
+}
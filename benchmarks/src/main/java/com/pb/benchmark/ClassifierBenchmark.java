@@ -0,0 +1,120 @@
+package com.pb.benchmark;
+
+import com.pb.util.ColumnType;
+import com.pb.util.ValueClassifier;
+import org.apache.commons.lang3.BooleanUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies the values of a CSV column during type inference: with {@link ValueClassifier}, and with the checks it
+ * replaced, which parsed every value and caught the exception of each parser that rejected it. The text column holds
+ * values like {@code Employee<n>}, which fail every parser; the numeric column holds integers and decimals.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifierBenchmark {
+    private static final int VALUES = 1024;
+
+    @Param({"text", "numeric"})
+    public String column;
+
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(VALUES);
+        values = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = switch (column) {
+                case "text" -> "Employee" + random.nextInt(100_000);
+                case "numeric" -> i % 2 == 0 ? String.valueOf(random.nextInt(1_000_000))
+                        : random.nextInt(100_000) + "." + random.nextInt(100);
+                default -> throw new IllegalArgumentException("Unsupported column: " + column);
+            };
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void classifier(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(ValueClassifier.classify(value));
+        }
+    }
+
+    /**
+     * The checks used before {@link ValueClassifier}, kept here as the baseline.
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void exceptions(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(classifyWithExceptions(value));
+        }
+    }
+
+    private static ColumnType classifyWithExceptions(String text) {
+        if (text == null || text.isEmpty()) {
+            return ColumnType.TEXT;
+        }
+        if (isInteger(text)) {
+            return ColumnType.INTEGER;
+        }
+        if (isNumeric(text)) {
+            return ColumnType.NUMERIC;
+        }
+        if (isTimestamp(text)) {
+            return ColumnType.TIMESTAMP;
+        }
+        if (BooleanUtils.toBooleanObject(text) != null) {
+            return ColumnType.BOOLEAN;
+        }
+        return ColumnType.TEXT;
+    }
+
+    private static boolean isInteger(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isNumeric(String value) {
+        try {
+            Double.parseDouble(value);
+            return value.contains(".");
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isTimestamp(String value) {
+        try {
+            java.sql.Timestamp.valueOf(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
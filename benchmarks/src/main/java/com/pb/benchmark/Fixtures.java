@@ -0,0 +1,197 @@
+package com.pb.benchmark;
+
+import com.linuxense.javadbf.DBFDataType;
+import com.linuxense.javadbf.DBFField;
+import com.linuxense.javadbf.DBFWriter;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Generates the benchmark input files. The files are deterministic for a given format, row count and column count,
+ * so they are written once into {@code benchmark.fixtures} (default {@code target/fixtures}) and reused by later
+ * runs. The columns cycle through integer, text, decimal, date and boolean values; every tenth value is empty,
+ * except in the first column, so that no row is blank.
+ */
+public class Fixtures {
+    private static final Logger log = Logger.getLogger(Fixtures.class.getName());
+    private static final int KINDS = 5;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final String[] WORDS = {"alpha", "beta", "gamma, delta", "say \"hi\"", "Київ", "ünïcødé"};
+
+    /**
+     * Returns the fixture file, generating it first if it does not exist yet.
+     *
+     * @param format  {@code csv}, {@code dbf} or {@code xlsx}.
+     * @param rows    The number of data rows.
+     * @param columns The number of columns.
+     */
+    public static synchronized Path file(String format, int rows, int columns) throws IOException {
+        Path directory = Path.of(System.getProperty("benchmark.fixtures", "target/fixtures"));
+        Path file = directory.resolve("rows" + rows + "_cols" + columns + "." + format);
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(directory);
+        Path partial = directory.resolve(file.getFileName() + ".tmp");
+        long start = System.nanoTime();
+        switch (format) {
+            case "csv" -> writeCsv(partial, rows, columns);
+            case "dbf" -> writeDbf(partial, rows, columns);
+            case "xlsx" -> writeXlsx(partial, rows, columns);
+            default -> throw new IllegalArgumentException("Unsupported fixture format: " + format);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Generated " + file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return file;
+    }
+
+    /**
+     * Returns the header of a column; the CSV and XLSX headers contain a space, as spreadsheet headers often do.
+     */
+    public static String header(int column) {
+        return "Column " + (column + 1);
+    }
+
+    /**
+     * Returns the value of a cell as it is written to a CSV file, or an empty string for an empty cell.
+     */
+    public static String text(Random random, int column) {
+        if (column > 0 && random.nextInt(10) == 0) {
+            return "";
+        }
+        return switch (column % KINDS) {
+            case 0 -> String.valueOf(random.nextInt(1_000_000));
+            case 1 -> WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10_000);
+            case 2 -> random.nextInt(100_000) + "." + String.format("%02d", random.nextInt(100));
+            case 3 -> FIRST_DAY.plusDays(random.nextInt(2000)).toString();
+            default -> String.valueOf(random.nextBoolean());
+        };
+    }
+
+    /**
+     * Returns the column of the fixtures whose values have the given type: 0 integer, 1 text, 2 decimal, 3 date and
+     * 4 boolean.
+     */
+    public static int columnOf(String columnType) {
+        return switch (columnType.replaceAll("\\(.*", "")) {
+            case "SMALLINT", "INTEGER", "BIGINT" -> 0;
+            case "NUMERIC", "DOUBLE PRECISION" -> 2;
+            case "DATE", "TIMESTAMP" -> 3;
+            case "BOOLEAN" -> 4;
+            default -> 1;
+        };
+    }
+
+    private static Random random(int rows, int columns) {
+        return new Random(31L * rows + columns);
+    }
+
+    private static void writeCsv(Path file, int rows, int columns) throws IOException {
+        Random random = random(rows, columns);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int column = 0; column < columns; column++) {
+                writer.write((column > 0 ? "," : "") + header(column));
+            }
+            writer.newLine();
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    String value = text(random, column);
+                    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                        value = '"' + value.replace("\"", "\"\"") + '"';
+                    }
+                    writer.write((column > 0 ? "," : "") + value);
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void writeDbf(Path file, int rows, int columns) throws IOException {
+        DBFField[] fields = new DBFField[columns];
+        for (int column = 0; column < columns; column++) {
+            String name = "COL_" + (column + 1);
+            fields[column] = switch (column % KINDS) {
+                case 0 -> new DBFField(name, DBFDataType.NUMERIC, 10, 0);
+                case 1 -> new DBFField(name, DBFDataType.CHARACTER, 40);
+                case 2 -> new DBFField(name, DBFDataType.NUMERIC, 12, 2);
+                case 3 -> new DBFField(name, DBFDataType.DATE);
+                default -> new DBFField(name, DBFDataType.LOGICAL);
+            };
+        }
+        Random random = random(rows, columns);
+        try (OutputStream output = Files.newOutputStream(file);
+             DBFWriter writer = new DBFWriter(output, StandardCharsets.UTF_8)) {
+            writer.setFields(fields);
+            for (int row = 0; row < rows; row++) {
+                Object[] values = new Object[columns];
+                for (int column = 0; column < columns; column++) {
+                    values[column] = value(text(random, column), column);
+                }
+                writer.addRecord(values);
+            }
+        }
+    }
+
+    private static void writeXlsx(Path file, int rows, int columns) throws IOException {
+        Random random = random(rows, columns);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+             OutputStream output = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            Row headerRow = sheet.createRow(0);
+            for (int column = 0; column < columns; column++) {
+                headerRow.createCell(column).setCellValue(header(column));
+            }
+            for (int row = 0; row < rows; row++) {
+                Row sheetRow = sheet.createRow(row + 1);
+                for (int column = 0; column < columns; column++) {
+                    Object value = value(text(random, column), column);
+                    if (value instanceof Number number) {
+                        sheetRow.createCell(column).setCellValue(number.doubleValue());
+                    } else if (value instanceof Date date) {
+                        sheetRow.createCell(column).setCellValue(date);
+                        sheetRow.getCell(column).setCellStyle(dateStyle);
+                    } else if (value instanceof Boolean flag) {
+                        sheetRow.createCell(column).setCellValue(flag);
+                    } else if (value != null) {
+                        sheetRow.createCell(column).setCellValue(value.toString());
+                    }
+                }
+            }
+            workbook.write(output);
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Returns the typed value of a generated text value, as written to DBF and XLSX files.
+     */
+    public static Object value(String text, int column) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        return switch (column % KINDS) {
+            case 0 -> Integer.parseInt(text);
+            case 2 -> Double.parseDouble(text);
+            case 3 -> Date.from(LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant());
+            case 4 -> Boolean.parseBoolean(text);
+            default -> text;
+        };
+    }
+}
@@ -0,0 +1,294 @@
+package com.pb.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pb.Application;
+import com.pb.util.DatabaseConnectionManager;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Loads generated files end to end with {@link Application#processFile} and measures the throughput of every
+ * target, format and size: rows/s, MB/s, the peak heap and resident set size and the time spent in GC. The results
+ * are written to a JSON file and compared with a baseline; the run fails (exit status 1) when the rows/s of a case
+ * fall more than the threshold below its baseline, when a case has no baseline, or when the baseline was measured on
+ * another machine.
+ * <p>
+ * Options, all optional:
+ * <pre>
+ * --targets h2,postgres          PostgreSQL is skipped when ingest-postgres.yml cannot connect
+ * --formats csv,dbf,xlsx
+ * --rows 10000,1000000           XLSX files are limited to 1048575 rows, larger XLSX cases are skipped
+ * --columns 5
+ * --runs 3                       the fastest run of a case is reported
+ * --warmup true                  loads 10000 rows of every target and format untimed first
+ * --output target/ingest-results.json
+ * --baseline baseline.json
+ * --threshold 0.2                the allowed drop in rows/s
+ * --write-baseline               writes the results to the baseline instead of comparing
+ * --any-machine                  compares with a baseline of another machine, with a warning
+ * </pre>
+ */
+public class IngestHarness {
+    private static final Logger log = Logger.getLogger(IngestHarness.class.getName());
+    private static final int MAX_XLSX_ROWS = 1_048_575;
+    private static final int WARMUP_ROWS = 10_000;
+    private static final double MB = 1024 * 1024;
+
+    /**
+     * The measurements of one case.
+     */
+    public record Result(String target, String format, int rows, int columns, double fileMb, double seconds,
+                         double rowsPerSecond, double mbPerSecond, double peakHeapMb, double peakRssMb,
+                         long gcMillis, long gcCount) {
+
+        String key() {
+            return target + "/" + format + "/" + rows + "x" + columns;
+        }
+    }
+
+    /**
+     * The results of a run and the machine they were measured on.
+     */
+    public record Report(Map<String, Object> machine, List<Result> results) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> targets = list(options.getOrDefault("targets", "h2,postgres"));
+        List<String> formats = list(options.getOrDefault("formats", "csv,dbf,xlsx"));
+        List<Integer> sizes = list(options.getOrDefault("rows", "10000,1000000")).stream().map(Integer::parseInt).toList();
+        int columns = Integer.parseInt(options.getOrDefault("columns", "5"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        boolean warmup = Boolean.parseBoolean(options.getOrDefault("warmup", "true"));
+        Path output = Path.of(options.getOrDefault("output", "target/ingest-results.json"));
+        Path baseline = Path.of(options.getOrDefault("baseline", "baseline.json"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.2"));
+
+        List<Result> results = new ArrayList<>();
+        for (String target : targets) {
+            String properties = "ingest-" + target + ".yml";
+            if (!isAvailable(properties)) {
+                log.warning("Skipping " + target + ", the database of " + properties + " is not available.");
+                continue;
+            }
+            for (String format : formats) {
+                if (warmup) {
+                    load(target, properties, format, WARMUP_ROWS, columns);
+                }
+                for (int rows : sizes) {
+                    if (format.equals("xlsx") && rows > MAX_XLSX_ROWS) {
+                        log.warning("Skipping xlsx with " + rows + " rows, a sheet holds at most " + MAX_XLSX_ROWS + " rows.");
+                        continue;
+                    }
+                    Result best = null;
+                    for (int run = 0; run < runs; run++) {
+                        Result result = load(target, properties, format, rows, columns);
+                        log.info("Run " + (run + 1) + " of " + result.key() + ": " + String.format("%.0f rows/s", result.rowsPerSecond()));
+                        best = best == null || result.rowsPerSecond() > best.rowsPerSecond() ? result : best;
+                    }
+                    results.add(best);
+                }
+            }
+        }
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Report report = new Report(machine(), results);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        mapper.writeValue(output.toFile(), report);
+        log.info("Wrote " + results.size() + " results to " + output);
+        if (options.containsKey("write-baseline")) {
+            mapper.writeValue(baseline.toFile(), report);
+            log.info("Wrote the baseline " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            log.warning("No baseline " + baseline + ", nothing to compare with.");
+            return;
+        }
+        if (!compare(mapper.readValue(baseline.toFile(), Report.class), report, threshold, options.containsKey("any-machine"))) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads one generated file into the target and measures the load.
+     */
+    static Result load(String target, String properties, String format, int rows, int columns) throws Exception {
+        Path file = Fixtures.file(format, rows, columns);
+        String tableName = file.getFileName().toString().replaceFirst("\\.[^.]+$", "");
+        System.gc();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long gcMillis = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+        long gcCount = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        resetPeakRss();
+
+        long start = System.nanoTime();
+        new Application().processFile(file.toString(), properties);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double peakHeapMb = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / MB;
+        double peakRssMb = peakRss() / MB;
+        gcMillis = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum() - gcMillis;
+        gcCount = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum() - gcCount;
+
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                resultSet.next();
+                if (resultSet.getLong(1) != rows) {
+                    throw new IllegalStateException(tableName + " has " + resultSet.getLong(1) + " rows instead of " + rows);
+                }
+            }
+            statement.execute("DROP TABLE " + tableName);
+        }
+        double fileMb = Files.size(file) / MB;
+        return new Result(target, format, rows, columns, round(fileMb), round(seconds), round(rows / seconds),
+                round(fileMb / seconds), round(peakHeapMb), round(peakRssMb), gcMillis, gcCount);
+    }
+
+    /**
+     * Compares the results with the baseline and logs every case. Rows/s measured on different machines say nothing
+     * about a regression, so a baseline of another machine fails the comparison unless {@code anyMachine} is set.
+     *
+     * @return Whether the machines match and every case has a baseline it fell no more than the threshold below.
+     */
+    static boolean compare(Report baseline, Report report, double threshold, boolean anyMachine) {
+        boolean passed = true;
+        if (!sameMachine(baseline.machine(), report.machine())) {
+            String line = "Measured on " + report.machine() + " but the baseline on " + baseline.machine();
+            if (anyMachine) {
+                log.warning(line + ", comparing anyway.");
+            } else {
+                log.severe(line + ". Run on the baseline's machine, pass --any-machine, or record a baseline for this machine "
+                        + "with --write-baseline.");
+                passed = false;
+            }
+        }
+        Map<String, Result> expected = new HashMap<>();
+        baseline.results().forEach(result -> expected.put(result.key(), result));
+        for (Result result : report.results()) {
+            Result base = expected.get(result.key());
+            if (base == null) {
+                log.severe(result.key() + ": " + String.format("%.0f rows/s", result.rowsPerSecond())
+                        + ", no baseline. Record one with --write-baseline or leave the case out.");
+                passed = false;
+                continue;
+            }
+            double change = result.rowsPerSecond() / base.rowsPerSecond() - 1;
+            boolean regressed = change < -threshold;
+            passed &= !regressed;
+            String line = result.key() + ": " + String.format("%.0f rows/s, baseline %.0f rows/s (%+.1f%%)",
+                    result.rowsPerSecond(), base.rowsPerSecond(), change * 100);
+            if (regressed) {
+                log.severe(line + ", more than " + Math.round(threshold * 100) + "% slower.");
+            } else {
+                log.info(line);
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Compares the machine blocks by their values as text, since a number read back from JSON need not have the
+     * type it was written with.
+     */
+    private static boolean sameMachine(Map<String, Object> baseline, Map<String, Object> current) {
+        if (baseline == null || !baseline.keySet().equals(current.keySet())) {
+            return false;
+        }
+        return baseline.keySet().stream().allMatch(key -> String.valueOf(baseline.get(key)).equals(String.valueOf(current.get(key))));
+    }
+
+    private static boolean isAvailable(String properties) {
+        DatabaseConnectionManager.loadProperties(properties);
+        String url = DatabaseConnectionManager.getProperty("jdbc", "url", null);
+        if (url == null || url.startsWith("jdbc:h2:")) {
+            return url != null;
+        }
+        DriverManager.setLoginTimeout(2);
+        try (Connection connection = DriverManager.getConnection(url, DatabaseConnectionManager.getProperty("jdbc", "user", null),
+                DatabaseConnectionManager.getProperty("jdbc", "password", null))) {
+            return connection.isValid(2);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Resets the peak resident set size of the process, which Linux allows through {@code /proc/self/clear_refs}.
+     */
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(Path.of("/proc/self/clear_refs"), "5");
+        } catch (IOException | RuntimeException e) {
+            log.fine("Cannot reset the peak RSS: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the peak resident set size ({@code VmHWM}) in bytes, or -1 where {@code /proc} is not available.
+     */
+    private static long peakRss() {
+        try {
+            Optional<String> line = Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(status -> status.startsWith("VmHWM:")).findFirst();
+            return line.map(status -> Long.parseLong(status.replaceAll("\\D", "")) * 1024).orElse(-1L);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, Object> machine() {
+        Map<String, Object> machine = new LinkedHashMap<>();
+        machine.put("java", System.getProperty("java.version"));
+        machine.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        machine.put("cpus", Runtime.getRuntime().availableProcessors());
+        machine.put("maxHeapMb", Math.round(Runtime.getRuntime().maxMemory() / MB));
+        return machine;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            boolean flag = i + 1 == args.length || args[i + 1].startsWith("--");
+            options.put(name, flag ? "true" : args[++i]);
+        }
+        return options;
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.pb.benchmark;
+
+import com.pb.util.EscapeUtil;
+import com.pb.util.TableNameUtil;
+import org.apache.commons.math3.util.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives table names from file and sheet names and sanitizes column headers, for short and long names.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamingBenchmark {
+
+    @Param({"8", "64"})
+    public int length;
+
+    private String fileName;
+    private String sheetName;
+    private String header;
+
+    @Setup
+    public void setUp() {
+        String words = "monthly sales report ".repeat(length / 8 + 1).substring(0, length);
+        fileName = words + ".xlsx";
+        sheetName = "Sheet: " + words;
+        header = words.toUpperCase();
+    }
+
+    @Benchmark
+    public Pair<String, String> createTableNameAndExtension() {
+        return TableNameUtil.createTableNameAndExtension(fileName);
+    }
+
+    @Benchmark
+    public String createSheetTableName() {
+        return TableNameUtil.createSheetTableName(fileName, sheetName);
+    }
+
+    @Benchmark
+    public String sanitizeHeader() {
+        return EscapeUtil.sanitizeHeader(header);
+    }
+}
@@ -0,0 +1,177 @@
+package com.pb.benchmark;
+
+import com.pb.util.ColumnType;
+import com.pb.util.SqlType;
+import com.pb.util.ValueClassifier;
+import org.apache.commons.lang3.BooleanUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * The conversion and binding of values before they were compiled per column: {@code ValueConverter.fromText},
+ * {@code ValueConverter.fromObject} and {@code BatchInsertRowWriter.setPreparedStatementValue} as they were, which
+ * switch on the column type for every value. Kept as the baseline of {@link BindingBenchmark}.
+ */
+final class PerValueDispatch {
+
+    private PerValueDispatch() {
+    }
+
+    static Object fromText(String value, SqlType columnType) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return switch (columnType.base()) {
+            case SMALLINT -> Short.parseShort(value);
+            case INTEGER -> Integer.parseInt(value);
+            case BIGINT -> Long.parseLong(value);
+            case NUMERIC -> checkDecimal(parseDecimal(value), columnType, value);
+            case DOUBLE_PRECISION -> Double.parseDouble(value);
+            case DATE -> java.sql.Date.valueOf(value);
+            case TIMESTAMP -> Timestamp.valueOf(value);
+            case BOOLEAN -> parseBoolean(value);
+            case UUID -> UUID.fromString(value);
+            case VARCHAR -> checkLength(value, columnType);
+            default -> value;
+        };
+    }
+
+    static Object fromObject(Object value, SqlType columnType) {
+        if (value == null) {
+            return null;
+        }
+        return switch (columnType.base()) {
+            case SMALLINT -> exactLong(value) instanceof Long l && l == l.shortValue() ? l.shortValue() : null;
+            case INTEGER -> exactLong(value) instanceof Long l && l == l.intValue() ? l.intValue() : null;
+            case BIGINT -> exactLong(value);
+            case NUMERIC -> toDecimal(value) instanceof BigDecimal d && fits(d, columnType) ? d : null;
+            case DOUBLE_PRECISION -> value instanceof Number number ? number.doubleValue() : null;
+            case DATE -> value instanceof Date date && isMidnight(date) ? new java.sql.Date(date.getTime()) : null;
+            case TIMESTAMP -> value instanceof Date date ? new Timestamp(date.getTime()) : null;
+            case BOOLEAN -> value instanceof Boolean ? value : null;
+            case UUID -> value instanceof UUID ? value : null;
+            case VARCHAR -> value.toString().length() <= columnType.precision() ? value.toString() : null;
+            default -> value.toString();
+        };
+    }
+
+    static void bind(PreparedStatement preparedStatement, int parameterIndex, Object value, ColumnType columnType) throws SQLException {
+        if (value == null) {
+            preparedStatement.setNull(parameterIndex, sqlType(columnType));
+            return;
+        }
+        switch (columnType) {
+            case SMALLINT -> preparedStatement.setShort(parameterIndex, (Short) value);
+            case INTEGER -> preparedStatement.setInt(parameterIndex, (Integer) value);
+            case BIGINT -> preparedStatement.setLong(parameterIndex, (Long) value);
+            case NUMERIC -> preparedStatement.setBigDecimal(parameterIndex, (BigDecimal) value);
+            case DOUBLE_PRECISION -> preparedStatement.setDouble(parameterIndex, (Double) value);
+            case DATE -> preparedStatement.setDate(parameterIndex, (java.sql.Date) value);
+            case TIMESTAMP -> preparedStatement.setTimestamp(parameterIndex, (Timestamp) value);
+            case BOOLEAN -> preparedStatement.setBoolean(parameterIndex, (Boolean) value);
+            case UUID -> preparedStatement.setObject(parameterIndex, (UUID) value);
+            default -> preparedStatement.setString(parameterIndex, value.toString());
+        }
+    }
+
+    private static int sqlType(ColumnType columnType) {
+        return switch (columnType) {
+            case SMALLINT -> java.sql.Types.SMALLINT;
+            case INTEGER -> java.sql.Types.INTEGER;
+            case BIGINT -> java.sql.Types.BIGINT;
+            case NUMERIC -> java.sql.Types.NUMERIC;
+            case DOUBLE_PRECISION -> java.sql.Types.DOUBLE;
+            case DATE -> java.sql.Types.DATE;
+            case TIMESTAMP -> java.sql.Types.TIMESTAMP;
+            case BOOLEAN -> java.sql.Types.BOOLEAN;
+            case UUID -> java.sql.Types.OTHER;
+            default -> java.sql.Types.VARCHAR;
+        };
+    }
+
+    private static boolean isMidnight(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (ValueClassifier.isPlainDecimal(value)) {
+            return new BigDecimal(value);
+        }
+        return BigDecimal.valueOf(Double.parseDouble(value));
+    }
+
+    private static BigDecimal checkDecimal(BigDecimal value, SqlType columnType, String text) {
+        if (!fits(value, columnType)) {
+            throw new IllegalArgumentException("Value " + text + " does not fit " + columnType);
+        }
+        return value;
+    }
+
+    private static String checkLength(String value, SqlType columnType) {
+        if (value.length() > columnType.precision()) {
+            throw new IllegalArgumentException("Value " + value + " does not fit " + columnType);
+        }
+        return value;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        Boolean result = BooleanUtils.toBooleanObject(value);
+        if (result == null) {
+            throw new IllegalArgumentException("Not a boolean: " + value);
+        }
+        return result;
+    }
+
+    private static Long exactLong(Object value) {
+        return switch (value) {
+            case Byte b -> (long) b;
+            case Short s -> (long) s;
+            case Integer i -> (long) i;
+            case Long l -> l;
+            case BigInteger i -> i.bitLength() < 64 ? i.longValue() : null;
+            case BigDecimal d -> {
+                try {
+                    yield d.longValueExact();
+                } catch (ArithmeticException e) {
+                    yield null;
+                }
+            }
+            case Number number -> {
+                double d = number.doubleValue();
+                yield d == Math.rint(d) && Math.abs(d) < 0x1p63 ? (long) d : null;
+            }
+            default -> null;
+        };
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        return switch (value) {
+            case BigDecimal d -> d;
+            case BigInteger i -> new BigDecimal(i);
+            case Byte b -> BigDecimal.valueOf(b);
+            case Short s -> BigDecimal.valueOf(s);
+            case Integer i -> BigDecimal.valueOf(i);
+            case Long l -> BigDecimal.valueOf(l);
+            case Number number -> Double.isFinite(number.doubleValue()) ? BigDecimal.valueOf(number.doubleValue()) : null;
+            default -> null;
+        };
+    }
+
+    private static boolean fits(BigDecimal value, SqlType columnType) {
+        if (columnType.precision() == 0) {
+            return true;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        int integerDigits = Math.max(0, stripped.precision() - stripped.scale());
+        return stripped.scale() <= columnType.scale() && integerDigits <= columnType.precision() - columnType.scale();
+    }
+}
@@ -0,0 +1,87 @@
+package com.pb.benchmark;
+
+import com.pb.datasource.MappedFileHandle;
+import com.pb.filereader.FileReader;
+import com.pb.filereader.FileReaderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the fixture files with the readers of the loader: the headers alone, the headers followed by the type
+ * inference pass, and a full pass over all rows. The files are read from a memory-mapped handle like the loader
+ * reads them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"csv", "dbf", "xlsx"})
+    public String format;
+
+    @Param({"1000", "50000"})
+    public int rows;
+
+    @Param({"5", "50"})
+    public int columns;
+
+    private Path file;
+    private MappedFileHandle source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Fixtures.file(format, rows, columns);
+        source = new MappedFileHandle(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        source.close();
+    }
+
+    @Benchmark
+    public Map<Integer, String> readHeaders() throws Exception {
+        return reader().readHeaders(source);
+    }
+
+    /**
+     * Reads the headers and infers the column types, as a multi-pass load does before it creates the table.
+     */
+    @Benchmark
+    public Map<Integer, String> determineColumnTypes() throws Exception {
+        FileReader reader = reader();
+        reader.readHeaders(source);
+        return reader.determineColumnTypes(source);
+    }
+
+    @Benchmark
+    public void readRows(Blackhole blackhole) throws Exception {
+        reader().readRows(source, (rowNumber, values) -> blackhole.consume(values));
+    }
+
+    /**
+     * Returns a new reader, as every load creates one; some readers keep the headers of the file they read.
+     */
+    private FileReader reader() {
+        return FileReaderFactory.create(format);
+    }
+}
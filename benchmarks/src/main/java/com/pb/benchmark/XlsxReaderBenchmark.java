@@ -0,0 +1,110 @@
+package com.pb.benchmark;
+
+import com.pb.datasource.MappedFileHandle;
+import com.pb.filereader.ExcelFileReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads all rows of an XLSX fixture with the streaming {@link ExcelFileReader} and, as the baseline, through an
+ * {@link XSSFWorkbook} like the reader it replaced, which builds the whole sheet in memory first. Every benchmark
+ * runs in its own fork with the same maximum heap, and the peak heap use of the fork is printed when it ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class XlsxReaderBenchmark {
+
+    @Param({"1000", "50000"})
+    public int rows;
+
+    @Param({"5", "50"})
+    public int columns;
+
+    private Path file;
+    private MappedFileHandle source;
+    private List<MemoryPoolMXBean> heapPools;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Fixtures.file("xlsx", rows, columns);
+        source = new MappedFileHandle(file);
+        heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        source.close();
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%nPeak heap: %.0f MB%n", peak / (1024.0 * 1024.0));
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        new ExcelFileReader().readRows(source, (rowNumber, values) -> blackhole.consume(values));
+    }
+
+    /**
+     * Reads the rows the way the loader did before the streaming reader.
+     */
+    @Benchmark
+    public void workbook(Blackhole blackhole) throws Exception {
+        try (InputStream input = Files.newInputStream(file);
+             Workbook workbook = new XSSFWorkbook(input)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            int columnCount = sheet.getRow(0).getLastCellNum();
+            for (Row row : sheet) {
+                if (row.getRowNum() == 0) {
+                    continue;
+                }
+                Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = value(row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK));
+                }
+                blackhole.consume(values);
+            }
+        }
+    }
+
+    private static Object value(Cell cell) {
+        return switch (cell.getCellType()) {
+            case NUMERIC -> DateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue() : cell.getNumericCellValue();
+            case STRING -> cell.getStringCellValue();
+            case BOOLEAN -> cell.getBooleanCellValue();
+            default -> null;
+        };
+    }
+}
@@ -1,17 +1,19 @@
 package com.pb;
 
 import com.pb.datasource.FileSystemDataSource;
-import com.pb.filereader.CsvFileReader;
-import com.pb.filereader.DbfFileReader;
-import com.pb.filereader.ExcelFileReader;
 import com.pb.filereader.FileReader;
+import com.pb.filereader.FileReaderFactory;
+import com.pb.service.BatchProcessingService;
 import com.pb.service.FileProcessingService;
+import com.pb.service.WorkbookProcessingService;
 import com.pb.util.DatabaseConnectionManager;
 import com.pb.util.TableNameUtil;
 import com.pb.writer.PostgresDatabaseWriter;
 import org.apache.commons.math3.util.Pair;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class Application {
@@ -27,15 +29,20 @@ public class Application {
         File file = new File(source);
         Pair<String, String> tableNameAndExtension = TableNameUtil.createTableNameAndExtension(file.getName());
         DatabaseConnectionManager.loadProperties(properties);
-        FileReader fileReader = switch (tableNameAndExtension.getSecond().toLowerCase()) {
-            case "xlsx" -> new ExcelFileReader();
-            case "dbf" -> new DbfFileReader();
-            case "csv" -> new CsvFileReader();
-            default -> {
-                log.severe("Unsupported file extension: " + tableNameAndExtension.getSecond());
-                throw new IllegalArgumentException("Unsupported file extension: " + tableNameAndExtension.getSecond());
-            }
-        };
+        if (tableNameAndExtension.getSecond().equalsIgnoreCase("xlsx")
+                && DatabaseConnectionManager.getProperty("xlsx", "sheets", "first").equalsIgnoreCase("all")) {
+            int parallelism = Integer.parseInt(DatabaseConnectionManager.getProperty("xlsx", "sheet-parallelism", "4"));
+            new WorkbookProcessingService(new FileSystemDataSource(), new PostgresDatabaseWriter(), parallelism)
+                    .processWorkbook(source, file.getName());
+            return;
+        }
+        FileReader fileReader;
+        try {
+            fileReader = FileReaderFactory.create(tableNameAndExtension.getSecond());
+        } catch (IllegalArgumentException e) {
+            log.severe(e.getMessage());
+            throw e;
+        }
 
         FileSystemDataSource fileSystemDataSource = new FileSystemDataSource();
         PostgresDatabaseWriter databaseWriter = new PostgresDatabaseWriter();
@@ -44,14 +51,36 @@ public class Application {
         fileProcessingService.processFile(source, file.getName());
     }
 
+    /**
+     * Loads all files of a directory, glob or manifest, each into its own table.
+     *
+     * @param pattern    the directory, glob or manifest
+     * @param properties the configuration file
+     * @return the result of every file
+     */
+    public List<BatchProcessingService.FileResult> processBatch(String pattern, String properties) throws Exception {
+        DatabaseConnectionManager.loadProperties(properties);
+        int parseThreads = Integer.parseInt(DatabaseConnectionManager.getProperty("batch", "parse-threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int sessions = Integer.parseInt(DatabaseConnectionManager.getProperty("batch", "sessions", "8"));
+        List<Path> files = BatchProcessingService.resolve(pattern);
+        log.info("Loading " + files.size() + " files from " + pattern);
+        return new BatchProcessingService(new FileSystemDataSource(), new PostgresDatabaseWriter(), parseThreads, sessions)
+                .processFiles(files);
+    }
+
     public static void main(String[] args) {
         if (args.length < 1) {
-            log.info("Usage: Application <filePath>");
+            log.info("Usage: Application <filePath | directory | glob | manifest>");
             return;
         }
 
         String filePath = args[0];
         try {
+            if (BatchProcessingService.isBatch(filePath)) {
+                new Application().processBatch(filePath, "application.yml");
+                return;
+            }
             new Application().processFile(filePath, "application.yml");
         } catch (Exception e) {
             log.severe("An error occurred during file processing: " + e.getMessage());
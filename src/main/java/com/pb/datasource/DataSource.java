@@ -1,7 +1,25 @@
 package com.pb.datasource;
 
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public interface DataSource {
     InputStream getInputStream(String source) throws Exception;
+
+    /**
+     * Opens a re-openable, random-access handle on the source. Sources that cannot seek are spooled to a
+     * temporary file first; the file is deleted when the handle is closed.
+     */
+    default SourceHandle open(String source) throws Exception {
+        Path tempFile = Files.createTempFile("xlsx_to_db", ".spool");
+        try (InputStream inputStream = getInputStream(source)) {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            return new MappedFileHandle(tempFile, true);
+        } catch (Exception e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
 }
@@ -2,10 +2,16 @@ package com.pb.datasource;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 public class FileSystemDataSource implements DataSource {
     @Override
     public InputStream getInputStream(String source) throws Exception {
         return new FileInputStream(source);
     }
+
+    @Override
+    public SourceHandle open(String source) throws Exception {
+        return new MappedFileHandle(Path.of(source));
+    }
 }
@@ -0,0 +1,136 @@
+package com.pb.datasource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link SourceHandle} backed by a {@link FileChannel}. Streams read the file through memory-mapped regions of
+ * at most {@link #REGION_SIZE} bytes, so files larger than 2 GB are supported and the content stays off the heap.
+ */
+public class MappedFileHandle implements SourceHandle {
+    static final long REGION_SIZE = 256L * 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean deleteOnClose;
+
+    public MappedFileHandle(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * @param path          The file to open.
+     * @param deleteOnClose Whether the file is a temporary copy that should be deleted when the handle is closed.
+     */
+    public MappedFileHandle(Path path, boolean deleteOnClose) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public InputStream openStream(long position) throws IOException {
+        return new MappedInputStream(position, channel.size());
+    }
+
+    @Override
+    public ByteBuffer map(long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (deleteOnClose) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Reads a range of the file region by region. Closing the stream does not close the handle.
+     */
+    private class MappedInputStream extends InputStream {
+        private final long end;
+        private long position;
+        private MappedByteBuffer region;
+
+        private MappedInputStream(long position, long end) {
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureRegion()) {
+                return -1;
+            }
+            return region.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!ensureRegion()) {
+                return -1;
+            }
+            int count = Math.min(length, region.remaining());
+            region.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            long current = currentPosition();
+            long skipped = Math.min(n, end - current);
+            position = current + skipped;
+            region = null;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - currentPosition());
+        }
+
+        private long currentPosition() {
+            return region != null ? position - region.remaining() : position;
+        }
+
+        private boolean ensureRegion() throws IOException {
+            if (region != null && region.hasRemaining()) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            long length = Math.min(REGION_SIZE, end - position);
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pb.datasource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * Identifies the content of a source: its size, its modification time and a 64-bit XXH64 hash of its bytes.
+ * Huge sources can be hashed from evenly spaced sample blocks instead of in full, which reads a fixed amount of
+ * data whatever the size, at the cost of missing changes that fall between the blocks.
+ *
+ * @param size     The size in bytes.
+ * @param modified The modification time in milliseconds since the epoch, or 0 if unknown.
+ * @param hash     The hash, as 16 hex digits.
+ * @param sampled  Whether the hash covers sample blocks only.
+ */
+public record SourceFingerprint(long size, long modified, String hash, boolean sampled) {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int SAMPLE_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * Hashes the whole source, hashed through mapped regions.
+     */
+    public static SourceFingerprint of(SourceHandle source) throws IOException {
+        return of(source, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * @param source      The source.
+     * @param sampleAbove The size above which only sample blocks are hashed.
+     * @param blocks      The number of sample blocks of 1 MB, including the first and the last one.
+     */
+    public static SourceFingerprint of(SourceHandle source, long sampleAbove, int blocks) throws IOException {
+        long size = source.size();
+        long modified = Files.exists(source.getPath()) ? Files.getLastModifiedTime(source.getPath()).toMillis() : 0;
+        Xxh64 xxh64 = new Xxh64();
+        boolean sampled = size > sampleAbove && blocks > 1 && (long) blocks * SAMPLE_BLOCK_SIZE < size;
+        if (sampled) {
+            for (int i = 0; i < blocks; i++) {
+                xxh64.update(source.map((size - SAMPLE_BLOCK_SIZE) / (blocks - 1) * i, SAMPLE_BLOCK_SIZE));
+            }
+        } else {
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                xxh64.update(source.map(position, Math.min(WINDOW_SIZE, size - position)));
+            }
+        }
+        return new SourceFingerprint(size, modified, String.format("%016x", xxh64.digest()), sampled);
+    }
+
+    /**
+     * Returns the size and the hash, which identify the content regardless of where and when the file was written.
+     */
+    public String content() {
+        return size + ":" + hash;
+    }
+
+    /**
+     * XXH64 with seed 0, fed in pieces whose length is a multiple of 32 bytes except for the last one.
+     */
+    static final class Xxh64 {
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+        private static final long P5 = 0x27D4EB2F165667C5L;
+
+        private long v1 = P1 + P2;
+        private long v2 = P2;
+        private long v3 = 0;
+        private long v4 = -P1;
+        private long length;
+        private ByteBuffer tail;
+
+        void update(ByteBuffer piece) {
+            if (tail != null) {
+                throw new IllegalStateException("Only the last piece may have a length that is not a multiple of 32");
+            }
+            ByteBuffer buffer = piece.order(ByteOrder.LITTLE_ENDIAN);
+            int limit = buffer.limit();
+            int stripes = limit - limit % 32;
+            for (int i = 0; i < stripes; i += 32) {
+                v1 = round(v1, buffer.getLong(i));
+                v2 = round(v2, buffer.getLong(i + 8));
+                v3 = round(v3, buffer.getLong(i + 16));
+                v4 = round(v4, buffer.getLong(i + 24));
+            }
+            length += limit;
+            if (stripes < limit) {
+                tail = buffer.slice(stripes, limit - stripes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        long digest() {
+            long hash;
+            if (length >= 32) {
+                hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                hash = mergeRound(hash, v1);
+                hash = mergeRound(hash, v2);
+                hash = mergeRound(hash, v3);
+                hash = mergeRound(hash, v4);
+            } else {
+                hash = P5;
+            }
+            hash += length;
+
+            ByteBuffer rest = tail != null ? tail : ByteBuffer.allocate(0);
+            int i = 0;
+            for (; i + 8 <= rest.limit(); i += 8) {
+                hash ^= round(0, rest.getLong(i));
+                hash = Long.rotateLeft(hash, 27) * P1 + P4;
+            }
+            if (i + 4 <= rest.limit()) {
+                hash ^= Integer.toUnsignedLong(rest.getInt(i)) * P1;
+                hash = Long.rotateLeft(hash, 23) * P2 + P3;
+                i += 4;
+            }
+            for (; i < rest.limit(); i++) {
+                hash ^= (rest.get(i) & 0xFFL) * P5;
+                hash = Long.rotateLeft(hash, 11) * P1;
+            }
+
+            hash ^= hash >>> 33;
+            hash *= P2;
+            hash ^= hash >>> 29;
+            hash *= P3;
+            hash ^= hash >>> 32;
+            return hash;
+        }
+
+        private static long round(long accumulator, long input) {
+            return Long.rotateLeft(accumulator + input * P2, 31) * P1;
+        }
+
+        private static long mergeRound(long hash, long value) {
+            return (hash ^ round(0, value)) * P1 + P4;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.pb.datasource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A re-openable, random-access view of a source file. Readers can open as many streams as they need,
+ * start reading at any offset or map a region directly, without copying the file into the heap.
+ */
+public interface SourceHandle extends AutoCloseable {
+
+    /**
+     * Returns the local file that backs this handle.
+     */
+    Path getPath();
+
+    long size() throws IOException;
+
+    /**
+     * Opens a new stream positioned at the start of the source.
+     */
+    default InputStream openStream() throws IOException {
+        return openStream(0);
+    }
+
+    /**
+     * Opens a new stream positioned at the given byte offset.
+     */
+    InputStream openStream(long position) throws IOException;
+
+    /**
+     * Maps a read-only region of the source. The length may not exceed {@link Integer#MAX_VALUE}.
+     */
+    ByteBuffer map(long position, long length) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
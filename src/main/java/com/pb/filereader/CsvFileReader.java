@@ -2,29 +2,53 @@ package com.pb.filereader;
 
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
-import com.pb.util.ColumnType;
-
-import org.apache.commons.lang3.BooleanUtils;
+import com.opencsv.RFC4180ParserBuilder;
+import com.pb.datasource.SourceHandle;
+import com.pb.util.ColumnTypeInference;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static com.pb.util.ColumnType.BOOLEAN;
-import static com.pb.util.ColumnType.INTEGER;
-import static com.pb.util.ColumnType.NUMERIC;
-import static com.pb.util.ColumnType.TEXT;
-import static com.pb.util.ColumnType.TIMESTAMP;
-import static com.pb.util.ColumnTypeUtil.getDefaultTypeForHeader;
-
 public class CsvFileReader implements FileReader {
-
+    private final int parallelism;
+    private final long chunkSize;
+    private final boolean preserveOrder;
     private Map<Integer, String> headers;
 
+    public CsvFileReader() {
+        this(1, 0, true);
+    }
+
+    /**
+     * Creates a reader that parses files larger than one chunk on several threads (see {@link ParallelCsvReader}).
+     *
+     * @param parallelism   The number of parser threads; 1 parses sequentially.
+     * @param chunkSize     The size of the byte ranges parsed in parallel.
+     * @param preserveOrder Whether rows must be handed on in file order.
+     */
+    public CsvFileReader(int parallelism, long chunkSize, boolean preserveOrder) {
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.preserveOrder = preserveOrder;
+    }
+
+    /**
+     * Creates the CSV reader used by every path, sequential, parallel and resumed, so that all of them split and
+     * unquote fields the same way: RFC 4180 quoting, where a quote inside a quoted field is doubled and a backslash
+     * is an ordinary character.
+     */
+    static CSVReader newReader(InputStream inputStream) {
+        return new CSVReaderBuilder(new InputStreamReader(inputStream))
+                .withCSVParser(new RFC4180ParserBuilder().build())
+                .build();
+    }
+
     @Override
     public Map<Integer, String> readHeaders(InputStream inputStream) throws Exception {
-        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(inputStream)).withSkipLines(0).build()) {
+        try (CSVReader reader = newReader(inputStream)) {
             String[] headers = reader.readNext();
             Map<Integer, String> headerMap = new HashMap<>();
             if (headers != null) {
@@ -39,106 +63,100 @@ public class CsvFileReader implements FileReader {
 
     @Override
     public Map<Integer, String> determineColumnTypes(InputStream inputStream) throws Exception {
-        Map<Integer, String> columnTypes = new HashMap<>();
-        int columnCount = headers.size();
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), true, false);
 
-        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(inputStream)).withSkipLines(1).build()) {
+        try (CSVReader reader = newReader(inputStream)) {
+            reader.skip(1);
             String[] row;
-            while ((row = reader.readNext()) != null) {
-                for (int colIndex = 0; colIndex < columnCount; colIndex++) {
-                    if (!columnTypes.containsKey(colIndex)) {
-                        String value = colIndex < row.length ? row[colIndex] : null;
-                        ColumnType columnType = determineColumnType(value);
-                        if (columnType != TEXT || !columnTypes.containsKey(colIndex)) {
-                            columnTypes.put(colIndex, columnType.toString());
-                        }
-                    }
-                }
+            while (!inference.isComplete() && (row = reader.readNext()) != null) {
+                inference.accept(row);
             }
-            for (int i = 0; i < columnCount; i++) {
-                columnTypes.putIfAbsent(i, getDefaultTypeForHeader(headers.get(i)));
-            }
-            return columnTypes;
+            return inference.columnTypes(headers);
         }
     }
 
-    /**
-     * Determines the column type based on the value.
-     *
-     * @param value The value to check.
-     * @return The determined column type.
-     */
-    private ColumnType determineColumnType(String value) {
-        if (value == null || value.isEmpty()) {
-            return TEXT;
-        }
-        if (isInteger(value)) {
-            return INTEGER;
-        }
-        if (isNumeric(value)) {
-            return NUMERIC;
-        }
-        if (isTimestamp(value)) {
-            return TIMESTAMP;
-        }
-        if (isBoolean(value)) {
-            return BOOLEAN;
-        }
-        return TEXT;
+    @Override
+    public Map<Integer, String> determineColumnTypes(Map<Integer, String> headers, List<Object[]> rows) {
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), true, false);
+        rows.forEach(inference::accept);
+        return inference.columnTypes(headers);
     }
 
-    /**
-     * Checks if the value is an integer.
-     *
-     * @param value The value to check.
-     * @return True if the value is an integer, otherwise false.
-     */
-    private boolean isInteger(String value) {
-        try {
-            Integer.parseInt(value);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
+    @Override
+    public void readRows(InputStream inputStream, RowHandler handler) throws Exception {
+        try (CSVReader reader = newReader(inputStream)) {
+            String[] headerRow = reader.readNext();
+            Map<Integer, String> headerMap = new HashMap<>();
+            if (headerRow != null) {
+                for (int i = 0; i < headerRow.length; i++) {
+                    headerMap.put(i, headerRow[i]);
+                }
+            }
+            headers = headerMap;
+            handler.handleHeaders(headerMap);
 
-    /**
-     * Checks if the value is a numeric type using Apache Commons StringUtils.
-     *
-     * @param value The value to check.
-     * @return True if the value is numeric, otherwise false.
-     */
-    private boolean isNumeric(String value) {
-        try {
-            Double.parseDouble(value);
-            return value.contains(".");
-        } catch (NumberFormatException e) {
-            return false;
+            String[] row;
+            long rowNumber = 1;
+            while ((row = reader.readNext()) != null) {
+                handler.handleRow(rowNumber++, row);
+            }
         }
     }
 
-    /**
-     * Checks if the value is a timestamp type.
-     *
-     * @param value The value to check.
-     * @return True if the value is a timestamp, otherwise false.
-     */
-    private boolean isTimestamp(String value) {
-        try {
-            java.sql.Timestamp.valueOf(value);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+    @Override
+    public void readRows(SourceHandle source, RowHandler handler) throws Exception {
+        if (parallelism <= 1 || source.size() <= chunkSize) {
+            FileReader.super.readRows(source, handler);
+            return;
         }
+        new ParallelCsvReader(parallelism, chunkSize, preserveOrder).read(source, new RowHandler() {
+            @Override
+            public void handleHeaders(Map<Integer, String> headerMap) throws Exception {
+                headers = headerMap;
+                handler.handleHeaders(headerMap);
+            }
+
+            @Override
+            public void handleRow(long rowNumber, Object[] values) throws Exception {
+                handler.handleRow(rowNumber, values);
+            }
+        });
     }
 
     /**
-     * Checks if the value is a boolean type using Apache Commons BooleanUtils.
-     *
-     * @param value The value to check.
-     * @return True if the value is boolean, otherwise false.
+     * Parses sequentially, starting at the byte offset of the position if it has one. The byte offset
+     * after each record is counted from the stream while it is parsed and passed to
+     * {@link RowHandler#handleRow(long, Object[], long)}, so that a later position costs no extra read. Line breaks
+     * are expected to be {@code \n} or {@code \r\n}.
      */
-    private boolean isBoolean(String value) {
-        return BooleanUtils.toBooleanObject(value) != null;
+    @Override
+    public void readRows(SourceHandle source, SourcePosition from, RowHandler handler) throws Exception {
+        boolean resumed = from.offset() >= 0;
+        if (resumed) {
+            handler.handleHeaders(readHeaders(source));
+        }
+        long offset = resumed ? from.offset() : 0;
+        try (LineOffsetInputStream input = new LineOffsetInputStream(source.openStream(offset), offset);
+             CSVReader reader = newReader(input)) {
+            if (!resumed) {
+                String[] headerRow = reader.readNext();
+                Map<Integer, String> headerMap = new HashMap<>();
+                if (headerRow != null) {
+                    for (int i = 0; i < headerRow.length; i++) {
+                        headerMap.put(i, headerRow[i]);
+                    }
+                }
+                headers = headerMap;
+                handler.handleHeaders(headerMap);
+            }
+            String[] row;
+            long rowNumber = resumed ? from.rows() : 0;
+            while ((row = reader.readNext()) != null) {
+                long next = input.offsetAfterLines(reader.getLinesRead());
+                if (++rowNumber > from.rows()) {
+                    handler.handleRow(rowNumber, row, next);
+                }
+            }
+        }
     }
 }
@@ -3,61 +3,60 @@ package com.pb.filereader;
 import com.linuxense.javadbf.DBFDataType;
 import com.linuxense.javadbf.DBFField;
 import com.linuxense.javadbf.DBFReader;
+import com.pb.datasource.SourceHandle;
 import com.pb.util.ColumnType;
-import com.pb.util.ColumnTypeUtil;
+import com.pb.util.ColumnTypeInference;
+import com.pb.util.SqlType;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
-import static com.pb.util.ColumnType.BOOLEAN;
-import static com.pb.util.ColumnType.NUMERIC;
-import static com.pb.util.ColumnType.TEXT;
-import static com.pb.util.ColumnType.TIMESTAMP;
-import static com.pb.util.ColumnType.INTEGER;
-
 public class DbfFileReader implements FileReader {
     private static final Logger logger = Logger.getLogger(DbfFileReader.class.getName());
+    private static final byte DELETED = '*';
+    private static final int SCAN_WINDOW = 64 * 1024 * 1024;
 
     private Map<Integer, String> headers;
+    private List<DBFField> fields;
 
     @Override
     public Map<Integer, String> readHeaders(InputStream inputStream) {
         Map<Integer, String> headers = new HashMap<>();
+        List<DBFField> fields = new ArrayList<>();
         try (DBFReader reader = new DBFReader(inputStream)) {
             for (int i = 0; i < reader.getFieldCount(); i++) {
                 DBFField field = reader.getField(i);
                 headers.put(i, field.getName());
+                fields.add(field);
             }
         } catch (Exception e) {
             logger.severe("Error reading DBF headers: " + e.getMessage());
         }
         this.headers = headers;
+        this.fields = fields;
         return headers;
     }
 
     @Override
     public Map<Integer, String> determineColumnTypes(InputStream inputStream) {
+        if (ColumnTypeInference.configuredMode() == ColumnTypeInference.Mode.LATTICE) {
+            return fieldTypes();
+        }
         Map<Integer, String> columnTypes = new HashMap<>();
-        int columnCount = headers.size();
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), false, false);
 
         try (DBFReader reader = new DBFReader(inputStream)) {
             Object[] row;
-            while ((row = reader.nextRecord()) != null) {
-                for (int colIndex = 0; colIndex < columnCount; colIndex++) {
-                    if (!columnTypes.containsKey(colIndex)) {
-                        Object value = colIndex < row.length ? row[colIndex] : null;
-                        ColumnType columnType = determineColumnType(value);
-                        if (columnType != TEXT || !columnTypes.containsKey(colIndex)) {
-                            columnTypes.put(colIndex, columnType.toString());
-                        }
-                    }
-                }
-            }
-            for (int i = 0; i < columnCount; i++) {
-                columnTypes.putIfAbsent(i, ColumnTypeUtil.getDefaultTypeForHeader(headers.get(i)));
+            while (!inference.isComplete() && (row = reader.nextRecord()) != null) {
+                inference.accept(row);
             }
+            columnTypes = inference.columnTypes(headers);
         } catch (Exception e) {
             logger.severe("Error determining DBF column types: " + e.getMessage());
         }
@@ -65,33 +64,116 @@ public class DbfFileReader implements FileReader {
         return columnTypes;
     }
 
+    @Override
+    public Map<Integer, String> determineColumnTypes(Map<Integer, String> headers, List<Object[]> rows) {
+        if (ColumnTypeInference.configuredMode() == ColumnTypeInference.Mode.LATTICE) {
+            return fieldTypes();
+        }
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), false, false);
+        rows.forEach(inference::accept);
+        return inference.columnTypes(headers);
+    }
+
+    @Override
+    public void readRows(InputStream inputStream, RowHandler handler) throws Exception {
+        try (DBFReader reader = new DBFReader(inputStream)) {
+            readRows(reader, 0, handler);
+        }
+    }
+
     /**
-     * Determines the column type based on the value.
-     *
-     * @param value The value to check.
-     * @return The determined column type.
+     * Continues at the record index of the position, if it has one, skipping the records before it unread.
      */
-    private ColumnType determineColumnType(Object value) {
-        switch (value) {
-            case null -> {
-                return TEXT;
-            }
-            case Number number -> {
-                if (value.toString().contains(".")) {
-                    return NUMERIC;
-                } else {
-                    return INTEGER;
+    @Override
+    public void readRows(SourceHandle source, SourcePosition from, RowHandler handler) throws Exception {
+        if (from.offset() < 0) {
+            FileReader.super.readRows(source, from, handler);
+            return;
+        }
+        try (DBFReader reader = new DBFReader(source.openStream())) {
+            reader.skipRecords(Math.toIntExact(from.offset()));
+            readRows(reader, from.rows(), handler);
+        }
+    }
+
+    private void readRows(DBFReader reader, long firstRowNumber, RowHandler handler) throws Exception {
+        Map<Integer, String> headerMap = new HashMap<>();
+        List<DBFField> fieldList = new ArrayList<>();
+        for (int i = 0; i < reader.getFieldCount(); i++) {
+            headerMap.put(i, reader.getField(i).getName());
+            fieldList.add(reader.getField(i));
+        }
+        headers = headerMap;
+        fields = fieldList;
+        handler.handleHeaders(headerMap);
+
+        Object[] row;
+        long rowNumber = firstRowNumber;
+        while ((row = reader.nextRecord()) != null) {
+            handler.handleRow(rowNumber++, row);
+        }
+    }
+
+    /**
+     * Finds the record index of the row from the deletion flags of the records after the previous position, which
+     * sit at a fixed stride after the file header; deleted records are not rows.
+     */
+    @Override
+    public SourcePosition positionAfter(SourceHandle source, SourcePosition previous, long rows) throws Exception {
+        ByteBuffer header = source.map(0, 12).order(ByteOrder.LITTLE_ENDIAN);
+        int headerLength = Short.toUnsignedInt(header.getShort(8));
+        int recordLength = Short.toUnsignedInt(header.getShort(10));
+        long recordCount = Math.min(Integer.toUnsignedLong(header.getInt(4)), (source.size() - headerLength) / recordLength);
+
+        long record = Math.max(0, previous.offset());
+        long remaining = previous.offset() < 0 ? rows : rows - previous.rows();
+        while (remaining > 0 && record < recordCount) {
+            long windowRecords = Math.min(recordCount - record, Math.max(1, SCAN_WINDOW / recordLength));
+            ByteBuffer window = source.map(headerLength + record * recordLength, windowRecords * recordLength);
+            for (int i = 0; i < windowRecords && remaining > 0; i++, record++) {
+                if (window.get(i * recordLength) != DELETED) {
+                    remaining--;
                 }
             }
-            case Boolean b -> {
-                return BOOLEAN;
-            }
-            case java.util.Date date -> {
-                return TIMESTAMP;
-            }
-            default -> {
-            }
         }
-        return TEXT;
+        return new SourcePosition(rows, record);
+    }
+
+    /**
+     * Returns the column types declared by the DBF field definitions, which hold for every record of the file.
+     */
+    private Map<Integer, String> fieldTypes() {
+        Map<Integer, String> columnTypes = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            columnTypes.put(i, fieldType(fields.get(i)).toString());
+        }
+        return columnTypes;
+    }
+
+    private static SqlType fieldType(DBFField field) {
+        int length = field.getLength();
+        return switch (field.getType()) {
+            case CHARACTER, VARCHAR -> length > 0 ? SqlType.varchar(length) : SqlType.of(ColumnType.TEXT);
+            case NUMERIC, FLOATING_POINT -> {
+                if (field.getDecimalCount() > 0) {
+                    // The length includes the decimal point.
+                    yield SqlType.numeric(length - 1, field.getDecimalCount());
+                }
+                if (length <= 4) {
+                    yield SqlType.of(ColumnType.SMALLINT);
+                }
+                if (length <= 9) {
+                    yield SqlType.of(ColumnType.INTEGER);
+                }
+                yield length <= 18 ? SqlType.of(ColumnType.BIGINT) : SqlType.numeric(length, 0);
+            }
+            case LONG, AUTOINCREMENT -> SqlType.of(ColumnType.INTEGER);
+            case DOUBLE -> SqlType.of(ColumnType.DOUBLE_PRECISION);
+            case CURRENCY -> SqlType.numeric(19, 4);
+            case DATE -> SqlType.of(ColumnType.DATE);
+            case TIMESTAMP, TIMESTAMP_DBASE7 -> SqlType.of(ColumnType.TIMESTAMP);
+            case LOGICAL -> SqlType.of(ColumnType.BOOLEAN);
+            default -> SqlType.of(ColumnType.TEXT);
+        };
     }
 }
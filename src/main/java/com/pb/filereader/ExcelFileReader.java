@@ -1,75 +1,136 @@
 package com.pb.filereader;
 
-import com.pb.util.ColumnType;
-
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.pb.datasource.SourceHandle;
+import com.pb.util.ColumnTypeInference;
 
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static com.pb.util.ColumnType.BOOLEAN;
-import static com.pb.util.ColumnType.NUMERIC;
-import static com.pb.util.ColumnType.TEXT;
-import static com.pb.util.ColumnType.TIMESTAMP;
-import static com.pb.util.ColumnTypeUtil.getDefaultTypeForHeader;
-
 public class ExcelFileReader implements FileReader {
+    private final int sheetIndex;
     private Map<Integer, String> headers;
 
+    public ExcelFileReader() {
+        this(0);
+    }
+
+    /**
+     * @param sheetIndex The zero-based index of the sheet to read.
+     */
+    public ExcelFileReader(int sheetIndex) {
+        this.sheetIndex = sheetIndex;
+    }
+
     @Override
     public Map<Integer, String> readHeaders(InputStream inputStream) throws Exception {
-        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Row headerRow = sheet.getRow(0);
-            headers = new HashMap<>();
-            for (Cell cell : headerRow) {
-                headers.put(cell.getColumnIndex(), cell.getStringCellValue());
-            }
-            return headers;
-        }
+        return readHeaders((reader, handler) -> reader.read(inputStream, sheetIndex, handler));
+    }
+
+    @Override
+    public Map<Integer, String> readHeaders(SourceHandle source) throws Exception {
+        return readHeaders((reader, handler) -> reader.read(source.getPath().toFile(), sheetIndex, handler));
     }
 
     @Override
     public Map<Integer, String> determineColumnTypes(InputStream inputStream) throws Exception {
+        return determineColumnTypes((reader, handler) -> reader.read(inputStream, sheetIndex, handler));
+    }
+
+    @Override
+    public Map<Integer, String> determineColumnTypes(SourceHandle source) throws Exception {
+        return determineColumnTypes((reader, handler) -> reader.read(source.getPath().toFile(), sheetIndex, handler));
+    }
+
+    @Override
+    public Map<Integer, String> determineColumnTypes(Map<Integer, String> headers, List<Object[]> rows) {
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), false, true);
+        rows.forEach(inference::accept);
+        return inference.columnTypes(headers);
+    }
+
+    @Override
+    public void readRows(InputStream inputStream, RowHandler handler) throws Exception {
+        readRows((reader, sheetHandler) -> reader.read(inputStream, sheetIndex, sheetHandler), handler);
+    }
+
+    @Override
+    public void readRows(SourceHandle source, RowHandler handler) throws Exception {
+        readRows((reader, sheetHandler) -> reader.read(source.getPath().toFile(), sheetIndex, sheetHandler), handler);
+    }
+
+    private Map<Integer, String> readHeaders(Sheet sheet) throws Exception {
+        XlsxStreamingReader reader = new XlsxStreamingReader();
+        headers = new HashMap<>();
+        sheet.read(reader, (rowNumber, values) -> {
+            if (rowNumber == 0) {
+                headers = toHeaders(values);
+            }
+            reader.stop();
+        });
+        return headers;
+    }
+
+    private Map<Integer, String> determineColumnTypes(Sheet sheet) throws Exception {
+        ColumnTypeInference inference = ColumnTypeInference.fromConfig(headers.size(), false, true);
+
+        XlsxStreamingReader reader = new XlsxStreamingReader();
+        sheet.read(reader, (rowNumber, values) -> {
+            if (rowNumber == 0 || isRowEmpty(values)) {
+                return;
+            }
+            inference.accept(values);
+            if (inference.isComplete()) {
+                reader.stop();
+            }
+        });
+        return inference.columnTypes(headers);
+    }
+
+    private void readRows(Sheet sheet, RowHandler handler) throws Exception {
+        boolean[] headersHandled = new boolean[1];
+        sheet.read(new XlsxStreamingReader(), (rowNumber, values) -> {
+            if (!headersHandled[0]) {
+                headers = rowNumber == 0 ? toHeaders(values) : new HashMap<>();
+                handler.handleHeaders(headers);
+                headersHandled[0] = true;
+            }
+            if (rowNumber > 0 && !isRowEmpty(values)) {
+                handler.handleRow(rowNumber, values);
+            }
+        });
+        if (!headersHandled[0]) {
+            headers = new HashMap<>();
+            handler.handleHeaders(headers);
+        }
+    }
+
+    private Map<Integer, String> toHeaders(Object[] values) {
+        Map<Integer, String> headerMap = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                headerMap.put(i, values[i].toString());
+            }
+        }
+        return headerMap;
+    }
 
-        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Map<Integer, String> columnTypes = new HashMap<>();
-            int columnCount = headers.size();
-
-            for (int colIndex = 0; colIndex < columnCount; colIndex++) {
-                boolean columnDetermined = false;
-
-                for (Row row : sheet) {
-                    if (row.getRowNum() == 0) continue;
-                    Cell cell = row.getCell(colIndex, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                    ColumnType columnType = getColumnType(cell);
-
-                    if (columnType != TEXT) {
-                        columnTypes.put(colIndex, columnType.toString());
-                        columnDetermined = true;
-                        break;
-                    }
-                }
-                if (!columnDetermined) {
-                    columnTypes.put(colIndex, getDefaultTypeForHeader(headers.get(colIndex)));
-                }
+    private boolean isRowEmpty(Object[] row) {
+        for (Object value : row) {
+            if (value != null) {
+                return false;
             }
-            return columnTypes;
         }
+        return true;
     }
 
-    private ColumnType getColumnType(Cell cell) {
-        return switch (cell.getCellType()) {
-            case NUMERIC -> DateUtil.isCellDateFormatted(cell) ? TIMESTAMP : NUMERIC;
-            case BOOLEAN -> BOOLEAN;
-            default -> TEXT;
-        };
+    /**
+     * Streams the sheet from wherever the workbook comes from: a file can be opened directly,
+     * an input stream has to be spooled first.
+     */
+    @FunctionalInterface
+    private interface Sheet {
+        void read(XlsxStreamingReader reader, RowHandler handler) throws Exception;
     }
 }
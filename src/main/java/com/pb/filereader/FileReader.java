@@ -1,9 +1,75 @@
 package com.pb.filereader;
 
+import com.pb.datasource.SourceHandle;
+
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 public interface FileReader {
     Map<Integer, String> readHeaders(InputStream inputStream) throws Exception;
     Map<Integer, String> determineColumnTypes(InputStream inputStream) throws Exception;
+
+    /**
+     * Determines the column types from data rows that were already read with {@link #readRows}.
+     */
+    Map<Integer, String> determineColumnTypes(Map<Integer, String> headers, List<Object[]> rows) throws Exception;
+
+    /**
+     * Streams the headers and then the data rows of the file to the handler, one row at a time.
+     */
+    void readRows(InputStream inputStream, RowHandler handler) throws Exception;
+
+    default Map<Integer, String> readHeaders(SourceHandle source) throws Exception {
+        try (InputStream inputStream = source.openStream()) {
+            return readHeaders(inputStream);
+        }
+    }
+
+    default Map<Integer, String> determineColumnTypes(SourceHandle source) throws Exception {
+        try (InputStream inputStream = source.openStream()) {
+            return determineColumnTypes(inputStream);
+        }
+    }
+
+    default void readRows(SourceHandle source, RowHandler handler) throws Exception {
+        try (InputStream inputStream = source.openStream()) {
+            readRows(inputStream, handler);
+        }
+    }
+
+    /**
+     * Streams the headers and then the data rows after the given position, in file order. Readers that can seek
+     * start at {@link SourcePosition#offset()}; the others read the file from the start and skip the first rows.
+     */
+    default void readRows(SourceHandle source, SourcePosition from, RowHandler handler) throws Exception {
+        readRows(source, new RowHandler() {
+            private long rows;
+
+            @Override
+            public void handleHeaders(Map<Integer, String> headers) throws Exception {
+                handler.handleHeaders(headers);
+            }
+
+            @Override
+            public void handleRow(long rowNumber, Object[] values) throws Exception {
+                if (++rows > from.rows()) {
+                    handler.handleRow(rowNumber, values);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the position after the given number of data rows, so that
+     * {@link #readRows(SourceHandle, SourcePosition, RowHandler)} can continue from there. Only needed by readers that
+     * do not pass the offset of the next row to {@link RowHandler#handleRow(long, Object[], long)}.
+     *
+     * @param source   The source.
+     * @param previous An earlier position, from which the new one can be found without reading the whole file again.
+     * @param rows     The number of data rows, at least {@code previous.rows()}.
+     */
+    default SourcePosition positionAfter(SourceHandle source, SourcePosition previous, long rows) throws Exception {
+        return new SourcePosition(rows, -1);
+    }
 }
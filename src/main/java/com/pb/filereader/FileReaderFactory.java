@@ -0,0 +1,37 @@
+package com.pb.filereader;
+
+import com.pb.util.DatabaseConnectionManager;
+
+import java.util.Set;
+
+/**
+ * Creates the reader for a file extension, configured from the loaded properties.
+ */
+public class FileReaderFactory {
+    public static final Set<String> SUPPORTED_EXTENSIONS = Set.of("xlsx", "dbf", "csv");
+
+    /**
+     * @param extension The file extension, in any case.
+     * @return The reader.
+     * @throws IllegalArgumentException if the extension is not supported.
+     */
+    public static FileReader create(String extension) {
+        return switch (extension.toLowerCase()) {
+            case "xlsx" -> new ExcelFileReader();
+            case "dbf" -> new DbfFileReader();
+            case "csv" -> createCsvFileReader();
+            default -> throw new IllegalArgumentException("Unsupported file extension: " + extension);
+        };
+    }
+
+    public static boolean isSupported(String extension) {
+        return SUPPORTED_EXTENSIONS.contains(extension.toLowerCase());
+    }
+
+    private static CsvFileReader createCsvFileReader() {
+        int parallelism = Integer.parseInt(DatabaseConnectionManager.getProperty("csv", "parallelism", "1"));
+        long chunkSize = Long.parseLong(DatabaseConnectionManager.getProperty("csv", "chunk-size-mb", "8")) * 1024 * 1024;
+        boolean preserveOrder = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("csv", "preserve-order", "true"));
+        return new CsvFileReader(parallelism, chunkSize, preserveOrder);
+    }
+}
@@ -0,0 +1,92 @@
+package com.pb.filereader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Records the byte offset after every line break ({@code \n}) that passes through it, so that a reader on top of
+ * it, which reads ahead into its own buffers, can still tell where the lines it has consumed end. Only the line
+ * ends that were read but not yet asked for are kept.
+ */
+final class LineOffsetInputStream extends FilterInputStream {
+    private final byte[] single = new byte[1];
+    private long position;
+    private long lines;
+    private long lastLineEnd;
+    private long[] lineEnds = new long[64];
+    private int head;
+    private int count;
+
+    /**
+     * @param in     The stream.
+     * @param offset The byte offset of the stream's first byte in the file.
+     */
+    LineOffsetInputStream(InputStream in, long offset) {
+        super(in);
+        this.position = offset;
+        this.lastLineEnd = offset;
+    }
+
+    /**
+     * Returns the byte offset after the given number of lines, counted from the start of the stream. The numbers
+     * must not decrease from one call to the next. A last line without a line break ends where the stream ended.
+     */
+    long offsetAfterLines(long lineCount) {
+        while (lines < lineCount && count > 0) {
+            lastLineEnd = lineEnds[head];
+            head = (head + 1) % lineEnds.length;
+            count--;
+            lines++;
+        }
+        return lines < lineCount ? position : lastLineEnd;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        for (int i = 0; i < read; i++) {
+            if (buffer[offset + i] == '\n') {
+                add(position + i + 1);
+            }
+        }
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        int read;
+        while (skipped < n && (read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) > 0) {
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void add(long lineEnd) {
+        if (count == lineEnds.length) {
+            long[] grown = new long[count * 2];
+            for (int i = 0; i < count; i++) {
+                grown[i] = lineEnds[(head + i) % count];
+            }
+            lineEnds = grown;
+            head = 0;
+        }
+        lineEnds[(head + count) % lineEnds.length] = lineEnd;
+        count++;
+    }
+}
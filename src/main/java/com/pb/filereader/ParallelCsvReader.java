@@ -0,0 +1,199 @@
+package com.pb.filereader;
+
+import com.opencsv.CSVReader;
+import com.pb.datasource.SourceHandle;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a CSV file on several cores.
+ * <p>
+ * The file is cut into byte ranges of {@code chunkSize} bytes. Every range is scanned in parallel for the first
+ * line break that ends a record, once assuming the range starts outside a quoted field and once assuming it
+ * starts inside one, together with the parity of the quotes it contains. A sequential pass over these results
+ * then knows the real quote state at every range start and moves each start to a record boundary, so records
+ * with quoted line breaks are never split. The record ranges are parsed on a fork-join pool and the parsed rows
+ * are handed to the {@link RowHandler} in file order, or as soon as each range is done when order does not matter.
+ * <p>
+ * Quotes are expected to follow RFC 4180 (a quote inside a quoted field is doubled), and every range is parsed
+ * with the same reader as the sequential path ({@link CsvFileReader#newReader}).
+ */
+public class ParallelCsvReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+
+    private final int parallelism;
+    private final long chunkSize;
+    private final boolean preserveOrder;
+
+    public ParallelCsvReader(int parallelism, long chunkSize, boolean preserveOrder) {
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.preserveOrder = preserveOrder;
+    }
+
+    /**
+     * Reads the header record and then all data records of the source.
+     *
+     * @param source  The CSV file.
+     * @param handler Receives the headers and the rows, always on the calling thread.
+     * @throws Exception if the file cannot be parsed or the handler fails.
+     */
+    public void read(SourceHandle source, RowHandler handler) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<long[]> ranges = findRecordRanges(source, pool);
+            handler.handleHeaders(readHeaders(source));
+            parseRanges(source, ranges, handler, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into ranges that start and end on record boundaries.
+     *
+     * @return The ranges as {@code [start, end)} byte offsets.
+     */
+    List<long[]> findRecordRanges(SourceHandle source, ForkJoinPool pool) throws Exception {
+        long size = source.size();
+        int chunkCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        List<Future<ChunkScan>> scans = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            long start = i * chunkSize;
+            long length = Math.min(chunkSize, size - start);
+            scans.add(pool.submit(() -> scanChunk(source.map(start, length), start)));
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        long rangeStart = 0;
+        boolean insideQuotes = false;
+        for (int i = 0; i < chunkCount; i++) {
+            ChunkScan scan = get(scans.get(i));
+            if (i > 0) {
+                long boundary = insideQuotes ? scan.firstRecordEndInsideQuotes : scan.firstRecordEndOutsideQuotes;
+                if (boundary >= 0 && boundary + 1 > rangeStart) {
+                    ranges.add(new long[]{rangeStart, boundary + 1});
+                    rangeStart = boundary + 1;
+                }
+            }
+            insideQuotes ^= scan.oddQuotes;
+        }
+        if (rangeStart < size) {
+            ranges.add(new long[]{rangeStart, size});
+        }
+        return ranges;
+    }
+
+    private static ChunkScan scanChunk(ByteBuffer chunk, long offset) {
+        ChunkScan scan = new ChunkScan();
+        boolean odd = false;
+        int limit = chunk.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = chunk.get(i);
+            if (b == QUOTE) {
+                odd = !odd;
+            } else if (b == NEWLINE) {
+                if (!odd && scan.firstRecordEndOutsideQuotes < 0) {
+                    scan.firstRecordEndOutsideQuotes = offset + i;
+                } else if (odd && scan.firstRecordEndInsideQuotes < 0) {
+                    scan.firstRecordEndInsideQuotes = offset + i;
+                }
+            }
+        }
+        scan.oddQuotes = odd;
+        return scan;
+    }
+
+    private Map<Integer, String> readHeaders(SourceHandle source) throws Exception {
+        Map<Integer, String> headerMap = new HashMap<>();
+        try (CSVReader reader = newReader(source, 0, source.size())) {
+            String[] headers = reader.readNext();
+            if (headers != null) {
+                for (int i = 0; i < headers.length; i++) {
+                    headerMap.put(i, headers[i]);
+                }
+            }
+        }
+        return headerMap;
+    }
+
+    private void parseRanges(SourceHandle source, List<long[]> ranges, RowHandler handler, ForkJoinPool pool) throws Exception {
+        ExecutorCompletionService<List<String[]>> completion = new ExecutorCompletionService<>(pool);
+        Deque<Future<List<String[]>>> inFlight = new ArrayDeque<>();
+        int maxInFlight = parallelism + 1;
+        int next = 0;
+        long rowNumber = 1;
+
+        while (next < ranges.size() || !inFlight.isEmpty()) {
+            while (next < ranges.size() && inFlight.size() < maxInFlight) {
+                long[] range = ranges.get(next);
+                boolean skipHeader = next == 0;
+                inFlight.add(completion.submit(parseTask(source, range[0], range[1], skipHeader)));
+                next++;
+            }
+            Future<List<String[]>> done;
+            if (preserveOrder) {
+                done = inFlight.removeFirst();
+            } else {
+                done = completion.take();
+                inFlight.remove(done);
+            }
+            for (String[] row : get(done)) {
+                handler.handleRow(rowNumber++, row);
+            }
+        }
+    }
+
+    private Callable<List<String[]>> parseTask(SourceHandle source, long start, long end, boolean skipHeader) {
+        return () -> {
+            List<String[]> rows = new ArrayList<>();
+            try (CSVReader reader = newReader(source, start, end - start)) {
+                if (skipHeader) {
+                    reader.readNext();
+                }
+                String[] row;
+                while ((row = reader.readNext()) != null) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        };
+    }
+
+    private CSVReader newReader(SourceHandle source, long start, long length) throws Exception {
+        return CsvFileReader.newReader(new BoundedInputStream(source.openStream(start), length));
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class ChunkScan {
+        private long firstRecordEndOutsideQuotes = -1;
+        private long firstRecordEndInsideQuotes = -1;
+        private boolean oddQuotes;
+    }
+}
@@ -0,0 +1,41 @@
+package com.pb.filereader;
+
+import java.util.Map;
+
+/**
+ * Receives rows one at a time from a streaming file reader.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles the column headers. Called once, before the first row.
+     *
+     * @param headers The column headers by column index.
+     * @throws Exception if the headers cannot be handled.
+     */
+    default void handleHeaders(Map<Integer, String> headers) throws Exception {
+    }
+
+    /**
+     * Handles a single row.
+     *
+     * @param rowNumber The zero-based row number in the source.
+     * @param values    The row values; cells missing at the end of the row are not present in the array.
+     * @throws Exception if the row cannot be handled.
+     */
+    void handleRow(long rowNumber, Object[] values) throws Exception;
+
+    /**
+     * Handles a single row from a reader that knows where the next row starts, see
+     * {@link FileReader#readRows(com.pb.datasource.SourceHandle, SourcePosition, RowHandler)}.
+     *
+     * @param rowNumber  The zero-based row number in the source.
+     * @param values     The row values.
+     * @param nextOffset The {@link SourcePosition#offset()} of the next row.
+     * @throws Exception if the row cannot be handled.
+     */
+    default void handleRow(long rowNumber, Object[] values, long nextOffset) throws Exception {
+        handleRow(rowNumber, values);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pb.filereader;
+
+/**
+ * How far a file has been read: the number of data rows and, for readers that can seek, where the next row starts.
+ *
+ * @param rows   The number of data rows before the position.
+ * @param offset Where the next row starts in the reader's own terms (a byte offset for CSV, a record index for
+ *               DBF), or -1 if the reader has to skip {@code rows} rows instead.
+ */
+public record SourcePosition(long rows, long offset) {
+    public static final SourcePosition START = new SourcePosition(0, -1);
+}
@@ -0,0 +1,348 @@
+package com.pb.filereader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Event-driven reader for a sheet of an XLSX workbook, by default the first one.
+ * <p>
+ * The sheet XML is parsed with SAX and rows are emitted one at a time, so memory use does not
+ * grow with the number of rows. Cell values are emitted as {@link String}, {@link Double},
+ * {@link java.util.Date} (for date-formatted numeric cells) or {@link Boolean}; blank and error
+ * cells are emitted as {@code null}.
+ */
+public class XlsxStreamingReader {
+
+    private static final byte STYLE_UNKNOWN = 0;
+    private static final byte STYLE_DATE = 1;
+    private static final byte STYLE_NOT_DATE = 2;
+
+    private volatile boolean stopped;
+
+    /**
+     * Streams the rows of the first sheet of the workbook read from the input stream.
+     *
+     * @param inputStream The workbook content.
+     * @param handler     The row handler.
+     * @throws Exception if the workbook cannot be read or the handler fails.
+     */
+    public void read(InputStream inputStream, RowHandler handler) throws Exception {
+        read(inputStream, 0, handler);
+    }
+
+    /**
+     * Streams the rows of a sheet of the workbook read from the input stream.
+     * The stream is spooled to a temporary file first, because opening a package from a file
+     * does not inflate every part into memory.
+     *
+     * @param inputStream The workbook content.
+     * @param sheetIndex  The zero-based index of the sheet.
+     * @param handler     The row handler.
+     * @throws Exception if the workbook cannot be read or the handler fails.
+     */
+    public void read(InputStream inputStream, int sheetIndex, RowHandler handler) throws Exception {
+        Path tempFile = Files.createTempFile("xlsx_to_db", ".xlsx");
+        try {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            read(tempFile.toFile(), sheetIndex, handler);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Streams the rows of the first sheet of the workbook.
+     *
+     * @param file    The workbook file.
+     * @param handler The row handler.
+     * @throws Exception if the workbook cannot be read or the handler fails.
+     */
+    public void read(File file, RowHandler handler) throws Exception {
+        read(file, 0, handler);
+    }
+
+    /**
+     * Streams the rows of a sheet of the workbook. Every call opens the package on its own, so different sheets
+     * of the same file can be read concurrently by separate readers.
+     *
+     * @param file       The workbook file.
+     * @param sheetIndex The zero-based index of the sheet.
+     * @param handler    The row handler.
+     * @throws Exception if the workbook cannot be read or the handler fails.
+     */
+    public void read(File file, int sheetIndex, RowHandler handler) throws Exception {
+        stopped = false;
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = xssfReader.getStylesTable();
+            boolean date1904 = isDate1904(xssfReader);
+
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+                sheets.next().close();
+            }
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                parseSheet(sheet, new SheetHandler(sharedStrings, styles, date1904, handler));
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the sheets of the workbook, in workbook order.
+     *
+     * @param file The workbook file.
+     * @throws Exception if the workbook cannot be read.
+     */
+    public List<String> sheetNames(File file) throws Exception {
+        List<String> names = new ArrayList<>();
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Stops reading after the row currently being handled. Intended to be called from a {@link RowHandler}.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void parseSheet(InputStream sheet, SheetHandler sheetHandler) throws Exception {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(sheetHandler);
+        try {
+            xmlReader.parse(new InputSource(sheet));
+        } catch (StopParsingException e) {
+            // the handler asked to stop
+        } catch (SAXException e) {
+            if (e.getException() != null) {
+                throw e.getException();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isDate1904(XSSFReader xssfReader) throws Exception {
+        Date1904Handler handler = new Date1904Handler();
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        try (InputStream workbook = xssfReader.getWorkbookData()) {
+            xmlReader.parse(new InputSource(workbook));
+        } catch (StopParsingException e) {
+            // workbookPr found
+        }
+        return handler.date1904;
+    }
+
+    /**
+     * Converts a cell reference such as {@code "AB12"} into a zero-based column index.
+     */
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static final class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        private StopParsingException() {
+            super("Parsing stopped");
+        }
+    }
+
+    private static final class Date1904Handler extends DefaultHandler {
+        private boolean date1904;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("workbookPr".equals(localName)) {
+                String value = attributes.getValue("date1904");
+                date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                throw new StopParsingException();
+            }
+            if ("sheets".equals(localName)) {
+                throw new StopParsingException();
+            }
+        }
+    }
+
+    private final class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+
+        private final StringBuilder text = new StringBuilder();
+        private final List<Object> rowValues = new ArrayList<>();
+        private byte[] styleDateFlags = new byte[64];
+
+        private long rowNumber = -1;
+        private int columnIndex;
+        private int nextColumnIndex;
+        private String cellType;
+        private int styleIndex;
+        private String cellText;
+        private boolean collectingText;
+
+        private SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String reference = attributes.getValue("r");
+                    rowNumber = reference != null ? Long.parseLong(reference) - 1 : rowNumber + 1;
+                    rowValues.clear();
+                    nextColumnIndex = 0;
+                }
+                case "c" -> {
+                    String reference = attributes.getValue("r");
+                    columnIndex = reference != null ? columnIndex(reference) : nextColumnIndex;
+                    nextColumnIndex = columnIndex + 1;
+                    cellType = attributes.getValue("t");
+                    String style = attributes.getValue("s");
+                    styleIndex = style != null ? Integer.parseInt(style) : 0;
+                    cellText = null;
+                }
+                case "v", "t" -> {
+                    collectingText = true;
+                    text.setLength(0);
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectingText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v" -> {
+                    collectingText = false;
+                    cellText = text.toString();
+                }
+                case "t" -> {
+                    collectingText = false;
+                    cellText = cellText == null ? text.toString() : cellText + text;
+                }
+                case "c" -> setCellValue(columnIndex, cellValue());
+                case "row" -> emitRow();
+                default -> {
+                }
+            }
+        }
+
+        private void setCellValue(int index, Object value) {
+            if (value == null) {
+                return;
+            }
+            while (rowValues.size() <= index) {
+                rowValues.add(null);
+            }
+            rowValues.set(index, value);
+        }
+
+        private Object cellValue() {
+            if (cellText == null) {
+                return null;
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                if (cellText.isEmpty()) {
+                    return null;
+                }
+                double value = Double.parseDouble(cellText);
+                if (isDateStyle(styleIndex) && DateUtil.isValidExcelDate(value)) {
+                    return DateUtil.getJavaDate(value, date1904);
+                }
+                return value;
+            }
+            return switch (cellType) {
+                case "s" -> sharedStrings.getItemAt(Integer.parseInt(cellText)).getString();
+                case "b" -> "1".equals(cellText) || "true".equalsIgnoreCase(cellText);
+                case "e" -> null;
+                default -> cellText;
+            };
+        }
+
+        /**
+         * Checks whether the cell style uses a date format. The result is cached per style index,
+         * because a sheet usually has only a handful of styles shared by all of its cells.
+         */
+        private boolean isDateStyle(int index) {
+            if (index >= styleDateFlags.length) {
+                styleDateFlags = Arrays.copyOf(styleDateFlags, Math.max(index + 1, styleDateFlags.length * 2));
+            }
+            byte flag = styleDateFlags[index];
+            if (flag == STYLE_UNKNOWN) {
+                flag = STYLE_NOT_DATE;
+                if (styles != null && index < styles.getNumCellStyles()) {
+                    XSSFCellStyle style = styles.getStyleAt(index);
+                    if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                        flag = STYLE_DATE;
+                    }
+                }
+                styleDateFlags[index] = flag;
+            }
+            return flag == STYLE_DATE;
+        }
+
+        private void emitRow() throws SAXException {
+            try {
+                handler.handleRow(rowNumber, rowValues.toArray());
+            } catch (Exception e) {
+                throw new SAXException(e);
+            }
+            if (stopped) {
+                throw new StopParsingException();
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.pb.service;
+
+import com.pb.datasource.DataSource;
+import com.pb.filereader.FileReaderFactory;
+import com.pb.writer.DatabaseWriter;
+
+import org.apache.commons.math3.util.Pair;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static com.pb.util.TableNameUtil.createTableNameAndExtension;
+
+/**
+ * Loads many files concurrently, each into its own table, one virtual thread per file.
+ * <p>
+ * The files are given as a directory (its CSV, DBF and XLSX files), a glob such as {@code drop/**.csv} or a manifest
+ * listing one path per line. Two limits keep the load in check: {@code parseThreads} files are parsed at the same
+ * time, which bounds the CPU-heavy work, and {@code sessions} files write to the database at the same time, which
+ * bounds the connections in use (see {@link ThrottledDatabaseWriter}). A file that fails does not stop the others.
+ */
+public class BatchProcessingService {
+    private static final Logger log = Logger.getLogger(BatchProcessingService.class.getName());
+
+    private final DataSource dataSource;
+    private final DatabaseWriter databaseWriter;
+    private final Semaphore parsePermits;
+    private final Semaphore sessionPermits;
+
+    /**
+     * The outcome of loading one file.
+     *
+     * @param path    The file.
+     * @param rows    The number of rows committed.
+     * @param bytes   The size of the file.
+     * @param millis  The time from the start of the file until its load ended, waiting for permits included.
+     * @param failure The failure, or null if the file was loaded.
+     */
+    public record FileResult(Path path, long rows, long bytes, long millis, Exception failure) {
+        public boolean failed() {
+            return failure != null;
+        }
+    }
+
+    /**
+     * @param parseThreads The maximum number of files parsed at the same time.
+     * @param sessions     The maximum number of files written at the same time; each uses {@code writer.connections}
+     *                     connections of the pool.
+     */
+    public BatchProcessingService(DataSource dataSource, DatabaseWriter databaseWriter, int parseThreads, int sessions) {
+        this.dataSource = dataSource;
+        this.databaseWriter = databaseWriter;
+        this.parsePermits = new Semaphore(parseThreads, true);
+        this.sessionPermits = new Semaphore(sessions, true);
+    }
+
+    /**
+     * Returns whether a path names a batch (a directory, a glob or a manifest) rather than a single data file.
+     */
+    public static boolean isBatch(String pattern) {
+        if (isGlob(pattern)) {
+            return true;
+        }
+        Path path = Paths.get(pattern);
+        return Files.isDirectory(path) || (Files.isRegularFile(path) && !FileReaderFactory.isSupported(extension(path)));
+    }
+
+    /**
+     * Resolves a directory, glob or manifest to the data files it names, sorted by path.
+     *
+     * @param pattern The directory, glob or manifest.
+     * @return The files.
+     * @throws IOException if the directory or manifest cannot be read.
+     */
+    public static List<Path> resolve(String pattern) throws IOException {
+        List<Path> files;
+        if (isGlob(pattern)) {
+            files = resolveGlob(pattern);
+        } else {
+            Path path = Paths.get(pattern);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> entries = Files.list(path)) {
+                    files = entries.filter(Files::isRegularFile).toList();
+                }
+            } else if (FileReaderFactory.isSupported(extension(path))) {
+                files = List.of(path);
+            } else {
+                files = readManifest(path);
+            }
+        }
+        return files.stream().filter(file -> FileReaderFactory.isSupported(extension(file))).sorted().toList();
+    }
+
+    private static boolean isGlob(String pattern) {
+        return pattern.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    /**
+     * Walks the directory before the first segment with a wildcard and matches the files below it.
+     */
+    private static List<Path> resolveGlob(String pattern) throws IOException {
+        String normalized = pattern.replace('\\', '/');
+        int wildcard = 0;
+        while (wildcard < normalized.length() && "*?[{".indexOf(normalized.charAt(wildcard)) < 0) {
+            wildcard++;
+        }
+        int separator = normalized.lastIndexOf('/', wildcard);
+        Path base = Paths.get(separator < 0 ? "." : separator == 0 ? "/" : normalized.substring(0, separator));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized.substring(separator + 1));
+        int depth = normalized.contains("**") ? Integer.MAX_VALUE : (int) normalized.substring(separator + 1).chars().filter(c -> c == '/').count() + 1;
+        try (Stream<Path> entries = Files.walk(base, depth)) {
+            return entries.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(base.relativize(file)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Reads a manifest: one path per line, relative to the manifest's directory. Blank lines and lines starting
+     * with {@code #} are skipped.
+     */
+    private static List<Path> readManifest(Path manifest) throws IOException {
+        Path directory = manifest.toAbsolutePath().getParent();
+        List<Path> files = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            String entry = line.trim();
+            if (!entry.isEmpty() && !entry.startsWith("#")) {
+                files.add(directory.resolve(entry));
+            }
+        }
+        return files;
+    }
+
+    private static String extension(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1);
+    }
+
+    /**
+     * Loads the files, each into the table named after it, and logs a summary.
+     *
+     * @param files The files to load.
+     * @return The result of every file, in the order of the files.
+     */
+    public List<FileResult> processFiles(List<Path> files) throws InterruptedException {
+        long start = System.nanoTime();
+        List<FileResult> results = new ArrayList<>(files.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FileResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> processFile(file)));
+            }
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Batch task failed unexpectedly", e.getCause());
+                }
+            }
+        }
+        logSummary(results, (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
+    private FileResult processFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        long bytes = Files.size(file);
+        ThrottledDatabaseWriter writer = new ThrottledDatabaseWriter(databaseWriter, parsePermits, sessionPermits);
+        try {
+            writer.acquire();
+            Pair<String, String> tableNameAndExtension = createTableNameAndExtension(file.getFileName().toString());
+            new FileProcessingService(FileReaderFactory.create(tableNameAndExtension.getSecond()), dataSource, writer)
+                    .processFile(file.toString(), tableNameAndExtension);
+            return new FileResult(file, writer.rows(), bytes, (System.nanoTime() - start) / 1_000_000, null);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.severe("Failed to load " + file + ": " + e.getMessage());
+            return new FileResult(file, writer.rows(), bytes, (System.nanoTime() - start) / 1_000_000, e);
+        } finally {
+            writer.release();
+        }
+    }
+
+    private void logSummary(List<FileResult> results, long millis) {
+        long rows = 0;
+        long bytes = 0;
+        int failed = 0;
+        StringBuilder summary = new StringBuilder("Batch summary:");
+        for (FileResult result : results) {
+            rows += result.rows();
+            bytes += result.bytes();
+            summary.append(System.lineSeparator())
+                    .append(String.format("  %-60s %10d rows %12d bytes %8d ms  %s", result.path(), result.rows(),
+                            result.bytes(), result.millis(), result.failed() ? "FAILED: " + result.failure().getMessage() : "OK"));
+            if (result.failed()) {
+                failed++;
+            }
+        }
+        summary.append(System.lineSeparator())
+                .append(String.format("  %d files (%d failed), %d rows, %d bytes in %d ms", results.size(), failed, rows, bytes, millis));
+        log.info(summary.toString());
+    }
+}
@@ -1,20 +1,39 @@
 package com.pb.service;
 
 import com.pb.datasource.DataSource;
+import com.pb.datasource.SourceFingerprint;
+import com.pb.datasource.SourceHandle;
 import com.pb.filereader.FileReader;
-import com.pb.util.EscapeUtil;
+import com.pb.filereader.RowHandler;
+import com.pb.filereader.SourcePosition;
+import com.pb.util.ColumnType;
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.writer.CheckpointStore;
 import com.pb.writer.DatabaseWriter;
+import com.pb.writer.DeltaApplier;
+import com.pb.writer.IndexBuilder;
+import com.pb.writer.LoadCatalog;
+import com.pb.writer.RowWriter;
+import com.pb.writer.RowWriterOptions;
+import com.pb.writer.StagingTable;
 
 import org.apache.commons.math3.util.Pair;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import static com.pb.util.EscapeUtil.sanitizeHeader;
 import static com.pb.util.TableNameUtil.createTableNameAndExtension;
 
 public class FileProcessingService {
+    public static final int DEFAULT_SAMPLE_ROWS = 10000;
+    private static final Logger log = Logger.getLogger(FileProcessingService.class.getName());
+
     private final FileReader fileReader;
     private final DataSource dataSource;
     private final DatabaseWriter databaseWriter;
@@ -26,21 +45,501 @@ public class FileProcessingService {
     }
 
     public void processFile(String source, String fileName) throws Exception {
-        Pair<String, String> tableNameAndExtension = createTableNameAndExtension(fileName);
+        processFile(source, createTableNameAndExtension(fileName));
+    }
+
+    /**
+     * Loads the source into the given table. With {@code catalog.enabled}, a source that was already loaded into
+     * the table unchanged is skipped, see {@link LoadCatalog}.
+     *
+     * @param source                The source to read.
+     * @param tableNameAndExtension The table name and the file extension of the source.
+     */
+    public void processFile(String source, Pair<String, String> tableNameAndExtension) throws Exception {
+        try (SourceHandle sourceHandle = dataSource.open(source)) {
+            if (Boolean.parseBoolean(DatabaseConnectionManager.getProperty("catalog", "enabled", "false"))) {
+                processCataloged(sourceHandle, tableNameAndExtension);
+            } else {
+                load(sourceHandle, tableNameAndExtension, null);
+            }
+        }
+        log.info("Connection pool: " + DatabaseConnectionManager.getPoolMetrics());
+    }
+
+    /**
+     * Skips the source if the catalog records a successful load of the same content into the table and the table
+     * still holds rows, otherwise loads it and records the outcome. The content is compared by size and modification
+     * time first and, if the time differs or is not trusted, by size and hash.
+     */
+    private void processCataloged(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension) throws Exception {
+        String tableName = tableNameAndExtension.getFirst();
+        LoadCatalog catalog = new LoadCatalog(DatabaseConnectionManager.getProperty("catalog", "table", "ingest_catalog"));
+        boolean trustModified = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("catalog", "trust-modified-time", "true"));
+        long sampleAbove = Long.parseLong(DatabaseConnectionManager.getProperty("catalog", "sample-above-mb", "0")) * 1024 * 1024;
+        int sampleBlocks = Integer.parseInt(DatabaseConnectionManager.getProperty("catalog", "sample-blocks", "64"));
+        String fileName = sourceHandle.getPath().getFileName().toString();
 
-        try (InputStream inputStream = dataSource.getInputStream(source)) {
-            byte[] fileData = inputStream.readAllBytes();
+        LoadCatalog.Entry entry;
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            catalog.createTable(connection);
+            entry = catalog.find(connection, tableName);
+            if (entry != null && entry.loaded() && !catalog.hasRows(connection, tableName)) {
+                log.info("Reloading " + fileName + ": " + tableName + " was dropped or emptied since it was loaded.");
+                entry = null;
+            }
+        }
+        long size = sourceHandle.size();
+        long modified = Files.getLastModifiedTime(sourceHandle.getPath()).toMillis();
+        if (entry != null && entry.loaded() && trustModified && entry.fingerprint().size() == size && entry.fingerprint().modified() == modified) {
+            log.info("Skipping " + fileName + ": already loaded into " + tableName + " (same size and modification time).");
+            return;
+        }
 
-            try (InputStream headerStream = new ByteArrayInputStream(fileData);
-                 InputStream columnTypeStream = new ByteArrayInputStream(fileData);
-                 InputStream dataStream = new ByteArrayInputStream(fileData)) {
+        SourceFingerprint fingerprint = SourceFingerprint.of(sourceHandle, sampleAbove > 0 ? sampleAbove : Long.MAX_VALUE, sampleBlocks);
+        if (entry != null && entry.loaded() && entry.fingerprint().content().equals(fingerprint.content())
+                && entry.fingerprint().sampled() == fingerprint.sampled()) {
+            log.info("Skipping " + fileName + ": already loaded into " + tableName + " (same content).");
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                catalog.save(connection, tableName, fileName, fingerprint, LoadCatalog.LOADED, entry.message());
+            }
+            return;
+        }
+
+        try {
+            load(sourceHandle, tableNameAndExtension, fingerprint.sampled() ? null : fingerprint);
+        } catch (Exception e) {
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                catalog.save(connection, tableName, fileName, fingerprint, LoadCatalog.FAILED, String.valueOf(e.getMessage()));
+            } catch (Exception catalogFailure) {
+                e.addSuppressed(catalogFailure);
+            }
+            throw e;
+        }
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            catalog.save(connection, tableName, fileName, fingerprint, LoadCatalog.LOADED, null);
+        }
+    }
+
+    /**
+     * Loads the source in the first enabled mode of delta, checkpointed and staged, or in full. The modes do not
+     * combine; the ones that are enabled but not used are logged.
+     *
+     * @param fingerprint The full fingerprint of the source if it is already known, or null.
+     */
+    private void load(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, SourceFingerprint fingerprint) throws Exception {
+        boolean delta = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("delta", "enabled", "false"));
+        boolean checkpoint = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("checkpoint", "enabled", "false"));
+        boolean staging = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("staging", "enabled", "false"));
+        if (delta && (checkpoint || staging)) {
+            log.warning("delta.enabled takes precedence, ignoring " + (checkpoint ? "checkpoint.enabled" : "")
+                    + (checkpoint && staging ? " and " : "") + (staging ? "staging.enabled" : "") + ".");
+        } else if (checkpoint && staging) {
+            log.warning("checkpoint.enabled takes precedence, ignoring staging.enabled: the table is loaded in place.");
+        }
+        if (delta) {
+            processDelta(sourceHandle, tableNameAndExtension);
+        } else if (checkpoint) {
+            processCheckpointed(sourceHandle, tableNameAndExtension, fingerprint != null ? fingerprint : SourceFingerprint.of(sourceHandle));
+        } else if (staging) {
+            processStaged(sourceHandle, tableNameAndExtension);
+        } else {
+            processFull(sourceHandle, tableNameAndExtension, tableNameAndExtension.getFirst());
+            buildIndexes(tableNameAndExtension.getFirst(), tableNameAndExtension.getFirst());
+        }
+    }
+
+    /**
+     * Builds the keys and indexes declared for the table in the {@code table-indexes} section, see
+     * {@link IndexBuilder}.
+     *
+     * @param tableName   The table the declaration belongs to.
+     * @param loadedTable The table to build them on: the table itself or its staging table.
+     */
+    private void buildIndexes(String tableName, String loadedTable) throws Exception {
+        IndexBuilder.Definition definition = IndexBuilder.Definition.parse(DatabaseConnectionManager.getProperties("table-indexes", tableName));
+        if (definition.isEmpty()) {
+            return;
+        }
+        new IndexBuilder(Integer.parseInt(DatabaseConnectionManager.getProperty("indexes", "parallelism", "2")),
+                DatabaseConnectionManager.getProperty("indexes", "maintenance-work-mem", null),
+                Boolean.parseBoolean(DatabaseConnectionManager.getProperty("indexes", "analyze", "true")))
+                .build(loadedTable, definition);
+    }
+
+    /**
+     * Loads the file in one or three passes as configured.
+     *
+     * @param loadedTable The table to load: the table itself or a staging table, see
+     *                    {@link DatabaseWriter#createStagingTable}.
+     */
+    private void processFull(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, String loadedTable) throws Exception {
+        if (Boolean.parseBoolean(DatabaseConnectionManager.getProperty("ingest", "single-pass", "true"))) {
+            int sampleRows = Integer.parseInt(DatabaseConnectionManager.getProperty("ingest", "sample-rows", String.valueOf(DEFAULT_SAMPLE_ROWS)));
+            processSinglePass(sourceHandle, tableNameAndExtension, loadedTable, sampleRows, false);
+        } else {
+            processMultiPass(sourceHandle, tableNameAndExtension, loadedTable);
+        }
+    }
 
-                Map<Integer, String> headers = fileReader.readHeaders(headerStream);
-                headers.replaceAll((k, v) -> sanitizeHeader(v));
-                Map<Integer, String> columnTypes = fileReader.determineColumnTypes(columnTypeStream);
-                databaseWriter.createTable(headers, columnTypes, tableNameAndExtension.getFirst());
-                databaseWriter.insertData(headers, columnTypes, tableNameAndExtension.getFirst(), tableNameAndExtension.getSecond(), dataStream);
+    /**
+     * Loads the file into an unlogged staging table and then replaces the table with it, see {@link StagingTable}.
+     * The table keeps its old content until the load is complete, and keeps it if the load fails.
+     */
+    private void processStaged(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension) throws Exception {
+        String tableName = tableNameAndExtension.getFirst();
+        String stagingTable = StagingTable.nameOf(tableName);
+        StagingTable staging = new StagingTable(Boolean.parseBoolean(DatabaseConnectionManager.getProperty("staging", "set-logged", "true")),
+                DatabaseConnectionManager.getProperty("staging", "maintenance-work-mem", null));
+        try {
+            processFull(sourceHandle, tableNameAndExtension, stagingTable);
+            buildIndexes(tableName, stagingTable);
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                staging.publish(connection, stagingTable, tableName);
             }
+        } catch (Exception e) {
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                staging.dropTable(connection, stagingTable);
+            } catch (Exception dropFailure) {
+                e.addSuppressed(dropFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the file once: the first {@code sampleRows} rows are buffered to determine the column types,
+     * then the table is created and the buffered rows followed by the rest of the file are streamed into it.
+     * If the {@link SchemaResolver} knows the types of the file, no rows are buffered.
+     *
+     * @param loadedTable The table to load: the table itself or a staging table. The {@link SchemaResolver} keeps the
+     *                    types under the name of the table itself.
+     */
+    private void processSinglePass(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, String loadedTable, int sampleRows,
+                                   boolean rowHash) throws Exception {
+        SchemaResolver schemas = SchemaResolver.forTable(tableNameAndExtension.getFirst(), tableNameAndExtension.getSecond());
+        boolean staged = !loadedTable.equals(tableNameAndExtension.getFirst());
+        try (SinglePassLoader loader = new SinglePassLoader(loadedTable, tableNameAndExtension.getSecond(), sampleRows, rowHash, staged, schemas)) {
+            fileReader.readRows(sourceHandle, loader);
+            loader.finish();
+        } catch (Exception e) {
+            schemas.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the headers, the column types and the data in three passes over the same source handle. The pass for
+     * the column types is skipped if the {@link SchemaResolver} knows them.
+     *
+     * @param loadedTable The table to load: the table itself or a staging table. The {@link SchemaResolver} keeps the
+     *                    types under the name of the table itself.
+     */
+    private void processMultiPass(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, String loadedTable) throws Exception {
+        String tableName = tableNameAndExtension.getFirst();
+        Map<Integer, String> headers = fileReader.readHeaders(sourceHandle);
+        headers.replaceAll((k, v) -> sanitizeHeader(v));
+        SchemaResolver schemas = SchemaResolver.forTable(tableName, tableNameAndExtension.getSecond());
+        Map<Integer, String> columnTypes = schemas.find(headers);
+        if (columnTypes == null) {
+            columnTypes = fileReader.determineColumnTypes(sourceHandle);
+        }
+        if (loadedTable.equals(tableName)) {
+            databaseWriter.createTable(headers, columnTypes, loadedTable);
+        } else {
+            databaseWriter.createStagingTable(headers, columnTypes, loadedTable);
+        }
+
+        try (RowWriter rowWriter = databaseWriter.openRowWriter(headers, columnTypes, loadedTable, tableNameAndExtension.getSecond())) {
+            fileReader.readRows(sourceHandle, (rowNumber, values) -> rowWriter.writeRow(values));
+            rowWriter.finish();
+            schemas.loaded(rowWriter.columnTypes());
+        } catch (Exception e) {
+            schemas.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the file into a staging table and applies only the changed rows to the table, matched on the
+     * {@code delta.key-columns}. A table that does not exist yet, or was not loaded in delta mode, is loaded in full.
+     */
+    private void processDelta(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension) throws Exception {
+        String tableName = tableNameAndExtension.getFirst();
+        int sampleRows = Integer.parseInt(DatabaseConnectionManager.getProperty("ingest", "sample-rows", String.valueOf(DEFAULT_SAMPLE_ROWS)));
+        List<String> keyColumns = List.of(DatabaseConnectionManager.getProperty("delta", "key-columns", "ID").split("\\s*,\\s*"));
+        DeltaApplier applier = new DeltaApplier(keyColumns);
+
+        boolean hasRowHashes;
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            hasRowHashes = applier.hasRowHashes(connection, tableName);
+        }
+        if (!hasRowHashes) {
+            log.info("Table " + tableName + " has no row hashes yet, loading it in full.");
+            processSinglePass(sourceHandle, tableNameAndExtension, tableName, sampleRows, true);
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                applier.createKeyIndex(connection, tableName);
+            }
+            buildIndexes(tableName, tableName);
+            return;
+        }
+
+        String stagingTable = tableName + "_delta";
+        try {
+            processSinglePass(sourceHandle, tableNameAndExtension, stagingTable, sampleRows, true);
+            long start = System.nanoTime();
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                DeltaApplier.Result result = applier.apply(connection, stagingTable, tableName);
+                log.info("Applied delta to " + tableName + " in " + (System.nanoTime() - start) / 1_000_000 + " ms: "
+                        + result.inserted() + " inserted, " + result.updated() + " updated, " + result.deleted() + " deleted.");
+            }
+        } finally {
+            try (Connection connection = DatabaseConnectionManager.getConnection()) {
+                applier.dropTable(connection, stagingTable);
+            }
+        }
+    }
+
+    /**
+     * Reads the file once like {@link #processSinglePass}, but commits every {@code checkpoint.rows} rows or
+     * {@code checkpoint.bytes} bytes of values together with the position reached. If the progress table already
+     * holds a position for the table and the same source fingerprint, the load continues from there instead of
+     * recreating the table.
+     */
+    private void processCheckpointed(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, SourceFingerprint sourceFingerprint) throws Exception {
+        String tableName = tableNameAndExtension.getFirst();
+        int sampleRows = Integer.parseInt(DatabaseConnectionManager.getProperty("ingest", "sample-rows", String.valueOf(DEFAULT_SAMPLE_ROWS)));
+        long checkpointRows = Long.parseLong(DatabaseConnectionManager.getProperty("checkpoint", "rows", "1000000"));
+        long checkpointBytes = Long.parseLong(DatabaseConnectionManager.getProperty("checkpoint", "bytes", "268435456"));
+        CheckpointStore store = new CheckpointStore(DatabaseConnectionManager.getProperty("checkpoint", "progress-table", "ingest_progress"));
+
+        String fingerprint = sourceFingerprint.content();
+        CheckpointStore.Progress progress;
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            store.createTable(connection);
+            progress = store.find(connection, tableName);
+        }
+        if (progress != null && !progress.fingerprint().equals(fingerprint)) {
+            log.info("Source of " + tableName + " changed since its last checkpoint, loading it from the start.");
+            progress = null;
+        }
+        if (progress != null) {
+            log.info("Resuming load of " + tableName + " after row " + progress.position().rows() + ".");
+        }
+
+        SchemaResolver schemas = SchemaResolver.forTable(tableName, tableNameAndExtension.getSecond());
+        try (CheckpointLoader loader = new CheckpointLoader(sourceHandle, tableNameAndExtension, sampleRows, store, fingerprint,
+                progress, checkpointRows, checkpointBytes, schemas)) {
+            fileReader.readRows(sourceHandle, progress == null ? SourcePosition.START : progress.position(), loader);
+            loader.finish();
+        } catch (Exception e) {
+            schemas.failed(e);
+            throw e;
+        }
+        buildIndexes(tableName, tableName);
+    }
+
+    private class SinglePassLoader implements RowHandler, AutoCloseable {
+        private final String tableName;
+        private final String extension;
+        private final int sampleRows;
+        private final boolean rowHash;
+        private final boolean staged;
+        private final SchemaResolver schemas;
+        private final List<Object[]> sample = new ArrayList<>();
+        private Map<Integer, String> headers;
+        private Map<Integer, String> cachedTypes;
+        private RowWriter rowWriter;
+
+        /**
+         * @param rowHash Whether to add a {@link DeltaApplier#ROW_HASH_COLUMN} after the columns of the file.
+         * @param staged  Whether the table is a staging table, see {@link DatabaseWriter#createStagingTable}.
+         */
+        private SinglePassLoader(String tableName, String extension, int sampleRows, boolean rowHash, boolean staged, SchemaResolver schemas) {
+            this.tableName = tableName;
+            this.extension = extension;
+            this.sampleRows = sampleRows;
+            this.rowHash = rowHash;
+            this.staged = staged;
+            this.schemas = schemas;
+        }
+
+        @Override
+        public void handleHeaders(Map<Integer, String> headers) throws Exception {
+            headers.replaceAll((k, v) -> sanitizeHeader(v));
+            this.headers = headers;
+            cachedTypes = schemas.find(headers);
+            if (cachedTypes != null) {
+                startLoading();
+            }
+        }
+
+        @Override
+        public void handleRow(long rowNumber, Object[] values) throws Exception {
+            if (rowWriter != null) {
+                rowWriter.writeRow(values);
+                return;
+            }
+            sample.add(values);
+            if (sample.size() >= sampleRows) {
+                startLoading();
+            }
+        }
+
+        private void startLoading() throws Exception {
+            Map<Integer, String> columnTypes = cachedTypes != null ? cachedTypes : fileReader.determineColumnTypes(headers, sample);
+            if (rowHash) {
+                // after the highest index rather than at size(): XLSX headers skip blank cells
+                int hashColumn = headers.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+                headers.put(hashColumn, DeltaApplier.ROW_HASH_COLUMN);
+                columnTypes.put(hashColumn, ColumnType.BIGINT.toString());
+            }
+            if (staged) {
+                databaseWriter.createStagingTable(headers, columnTypes, tableName);
+            } else {
+                databaseWriter.createTable(headers, columnTypes, tableName);
+            }
+            rowWriter = databaseWriter.openRowWriter(headers, columnTypes, tableName, extension, new RowWriterOptions(false, rowHash));
+            for (Object[] row : sample) {
+                rowWriter.writeRow(row);
+            }
+            sample.clear();
+        }
+
+        private void finish() throws Exception {
+            if (rowWriter == null) {
+                startLoading();
+            }
+            rowWriter.finish();
+            schemas.loaded(rowWriter.columnTypes());
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (rowWriter != null) {
+                rowWriter.close();
+            }
+        }
+    }
+
+    private class CheckpointLoader implements RowHandler, AutoCloseable {
+        private final SourceHandle sourceHandle;
+        private final String tableName;
+        private final String extension;
+        private final int sampleRows;
+        private final CheckpointStore store;
+        private final String fingerprint;
+        private final long checkpointRows;
+        private final long checkpointBytes;
+        private final SchemaResolver schemas;
+        private final List<Object[]> sample = new ArrayList<>();
+        private Map<Integer, String> headers;
+        private Map<Integer, String> columnTypes;
+        private Map<Integer, String> cachedTypes;
+        private RowWriter rowWriter;
+        private SourcePosition position;
+        private long rows;
+        private long bytes;
+        private long nextOffset = -1;
+
+        private CheckpointLoader(SourceHandle sourceHandle, Pair<String, String> tableNameAndExtension, int sampleRows, CheckpointStore store,
+                                 String fingerprint, CheckpointStore.Progress progress, long checkpointRows, long checkpointBytes,
+                                 SchemaResolver schemas) {
+            this.sourceHandle = sourceHandle;
+            this.tableName = tableNameAndExtension.getFirst();
+            this.extension = tableNameAndExtension.getSecond();
+            this.sampleRows = sampleRows;
+            this.store = store;
+            this.fingerprint = fingerprint;
+            this.checkpointRows = checkpointRows;
+            this.checkpointBytes = checkpointBytes;
+            this.schemas = schemas;
+            this.columnTypes = progress == null ? null : progress.columnTypes();
+            this.position = progress == null ? SourcePosition.START : progress.position();
+            this.rows = position.rows();
+        }
+
+        @Override
+        public void handleHeaders(Map<Integer, String> headers) throws Exception {
+            headers.replaceAll((k, v) -> sanitizeHeader(v));
+            this.headers = headers;
+            if (columnTypes == null) {
+                cachedTypes = schemas.find(headers);
+            }
+        }
+
+        @Override
+        public void handleRow(long rowNumber, Object[] values, long nextOffset) throws Exception {
+            this.nextOffset = nextOffset;
+            handleRow(rowNumber, values);
+        }
+
+        @Override
+        public void handleRow(long rowNumber, Object[] values) throws Exception {
+            rows++;
+            bytes += estimateSize(values);
+            if (rowWriter == null) {
+                sample.add(values);
+                if (columnTypes != null || cachedTypes != null || sample.size() >= sampleRows) {
+                    startLoading();
+                }
+            } else {
+                rowWriter.writeRow(values);
+            }
+            if (rowWriter != null && (rows - position.rows() >= checkpointRows || bytes >= checkpointBytes)) {
+                checkpoint();
+            }
+        }
+
+        /**
+         * Creates the table unless the load is resumed, in which case the table already holds the committed rows.
+         */
+        private void startLoading() throws Exception {
+            if (columnTypes == null) {
+                columnTypes = cachedTypes != null ? cachedTypes : fileReader.determineColumnTypes(headers, sample);
+                databaseWriter.createTable(headers, columnTypes, tableName);
+            }
+            rowWriter = databaseWriter.openRowWriter(headers, columnTypes, tableName, extension, new RowWriterOptions(true, false));
+            for (Object[] row : sample) {
+                rowWriter.writeRow(row);
+            }
+            sample.clear();
+        }
+
+        /**
+         * Saves the position after the current row: the offset the reader passed with the row, if it passed one, or
+         * otherwise the one {@link FileReader#positionAfter} finds.
+         */
+        private void checkpoint() throws Exception {
+            SourcePosition next = nextOffset >= 0
+                    ? new SourcePosition(rows, nextOffset)
+                    : fileReader.positionAfter(sourceHandle, position, rows);
+            rowWriter.commit((connection, types) -> store.save(connection, tableName, fingerprint, next, types));
+            position = next;
+            bytes = 0;
+        }
+
+        private void finish() throws Exception {
+            if (rowWriter == null) {
+                startLoading();
+            }
+            rowWriter.commit((connection, types) -> store.delete(connection, tableName));
+            rowWriter.finish();
+            schemas.loaded(rowWriter.columnTypes());
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (rowWriter != null) {
+                rowWriter.close();
+            }
+        }
+    }
+
+    private static long estimateSize(Object[] values) {
+        long size = 0;
+        for (Object value : values) {
+            size += value instanceof CharSequence text ? text.length() : 8;
         }
+        return size;
     }
 }
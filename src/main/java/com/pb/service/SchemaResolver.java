@@ -0,0 +1,116 @@
+package com.pb.service;
+
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.writer.SchemaCache;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Takes the column types of one load from the {@link SchemaCache} and records the types the load ended with.
+ * The cached types are not checked up front: a value that does not fit widens its column during the load (see
+ * {@link com.pb.writer.SourceRowWriter}) and the widened types are stored when the load succeeds. If a load that
+ * used cached types fails, their entry is removed so that the next load infers the types again.
+ * <p>
+ * Configured in the {@code schema-cache} section: {@code enabled}, {@code table}, {@code pin} (pin the entry of
+ * the load so later loads keep it as it is) and {@code invalidate} (forget the entries of the table before the load).
+ */
+class SchemaResolver {
+    private static final Logger log = Logger.getLogger(SchemaResolver.class.getName());
+
+    private final SchemaCache cache;
+    private final String tableName;
+    private final String format;
+    private final boolean pin;
+    private final boolean invalidate;
+    private String signature;
+    private int columnCount;
+    private SchemaCache.Entry entry;
+
+    private SchemaResolver(SchemaCache cache, String tableName, String format, boolean pin, boolean invalidate) {
+        this.cache = cache;
+        this.tableName = tableName;
+        this.format = format.toLowerCase();
+        this.pin = pin;
+        this.invalidate = invalidate;
+    }
+
+    /**
+     * Returns the resolver of a load as configured, which does nothing if the cache is not enabled.
+     */
+    static SchemaResolver forTable(String tableName, String format) {
+        if (!Boolean.parseBoolean(DatabaseConnectionManager.getProperty("schema-cache", "enabled", "false"))) {
+            return new SchemaResolver(null, tableName, format, false, false);
+        }
+        return new SchemaResolver(new SchemaCache(DatabaseConnectionManager.getProperty("schema-cache", "table", "schema_cache")), tableName, format,
+                Boolean.parseBoolean(DatabaseConnectionManager.getProperty("schema-cache", "pin", "false")),
+                Boolean.parseBoolean(DatabaseConnectionManager.getProperty("schema-cache", "invalidate", "false")));
+    }
+
+    /**
+     * Looks up the types of the file shape given by the headers.
+     *
+     * @param headers The sanitized headers of the file.
+     * @return A copy of the cached types, or null if the cache is not enabled or has no entry.
+     */
+    Map<Integer, String> find(Map<Integer, String> headers) throws Exception {
+        if (cache == null) {
+            return null;
+        }
+        signature = SchemaCache.signature(headers);
+        columnCount = headers.size();
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            cache.createTable(connection);
+            if (invalidate) {
+                log.info("Invalidated " + cache.invalidate(connection, tableName) + " cached schema(s) of " + tableName + ".");
+            }
+            entry = cache.find(connection, tableName, format, signature);
+        }
+        if (entry == null || entry.columnTypes().size() != columnCount) {
+            entry = null;
+            return null;
+        }
+        log.info("Using cached column types of " + tableName + (entry.pinned() ? " (pinned)" : "") + ", skipping type inference.");
+        return new HashMap<>(entry.columnTypes());
+    }
+
+    /**
+     * Records the types the load ended with, if they differ from the cached ones.
+     *
+     * @param columnTypes The types of the loaded table; columns after those of the file are ignored.
+     */
+    void loaded(Map<Integer, String> columnTypes) throws Exception {
+        if (cache == null || signature == null || columnTypes == null) {
+            return;
+        }
+        Map<Integer, String> fileTypes = new HashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            fileTypes.put(i, columnTypes.get(i));
+        }
+        if (entry != null && entry.columnTypes().equals(fileTypes) && (entry.pinned() || !pin)) {
+            return;
+        }
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            if (!cache.save(connection, tableName, format, signature, fileTypes, pin)) {
+                log.info("Cached schema of " + tableName + " is pinned, keeping it.");
+            }
+        }
+    }
+
+    /**
+     * Removes the entry the failed load used, unless it is pinned.
+     */
+    void failed(Exception failure) {
+        if (cache == null || entry == null || entry.pinned()) {
+            return;
+        }
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            cache.delete(connection, tableName, format, signature);
+            log.info("Removed the cached schema of " + tableName + " after the load failed.");
+        } catch (Exception e) {
+            failure.addSuppressed(e);
+        }
+    }
+}
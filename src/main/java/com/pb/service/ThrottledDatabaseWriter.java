@@ -0,0 +1,149 @@
+package com.pb.service;
+
+import com.pb.writer.Checkpoint;
+import com.pb.writer.DatabaseWriter;
+import com.pb.writer.RowWriter;
+import com.pb.writer.RowWriterOptions;
+
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the work of one file in a batch. The file starts with a parse permit, which covers reading the sample
+ * and determining the column types. When the table is created it gives the parse permit up while it waits for a
+ * session permit, which is held until {@link #release()}, and takes a parse permit again when its rows are read.
+ * The parse permit is released for the blocking parts of the write, {@link RowWriter#commit} and
+ * {@link RowWriter#finish()}, so that {@code parseThreads} bounds the files being parsed at any time.
+ * <p>
+ * Used by a single file, from the thread that loads it.
+ */
+class ThrottledDatabaseWriter implements DatabaseWriter {
+    private final DatabaseWriter delegate;
+    private final Semaphore parsePermits;
+    private final Semaphore sessionPermits;
+    private boolean parsing;
+    private boolean inSession;
+    private long rows;
+
+    ThrottledDatabaseWriter(DatabaseWriter delegate, Semaphore parsePermits, Semaphore sessionPermits) {
+        this.delegate = delegate;
+        this.parsePermits = parsePermits;
+        this.sessionPermits = sessionPermits;
+    }
+
+    /**
+     * Waits for a parse permit before the file is opened.
+     */
+    void acquire() throws InterruptedException {
+        parsePermits.acquire();
+        parsing = true;
+    }
+
+    /**
+     * Returns the permit the file still holds.
+     */
+    void release() {
+        pauseParsing();
+        if (inSession) {
+            inSession = false;
+            sessionPermits.release();
+        }
+    }
+
+    /**
+     * @return The number of rows committed by the row writers of the file.
+     */
+    long rows() {
+        return rows;
+    }
+
+    @Override
+    public void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
+        startSession();
+        delegate.createTable(headers, columnTypes, tableName);
+    }
+
+    @Override
+    public void createStagingTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
+        startSession();
+        delegate.createStagingTable(headers, columnTypes, tableName);
+    }
+
+    @Override
+    public void insertData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension, InputStream inputStream) throws Exception {
+        startSession();
+        resumeParsing();
+        delegate.insertData(headers, columnTypes, tableName, extension, inputStream);
+    }
+
+    @Override
+    public RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                                   RowWriterOptions options) throws Exception {
+        startSession();
+        resumeParsing();
+        RowWriter rowWriter = delegate.openRowWriter(headers, columnTypes, tableName, extension, options);
+        return new RowWriter() {
+            @Override
+            public void writeRow(Object[] values) throws Exception {
+                rowWriter.writeRow(values);
+            }
+
+            @Override
+            public long finish() throws Exception {
+                pauseParsing();
+                long written = rowWriter.finish();
+                rows += written;
+                return written;
+            }
+
+            @Override
+            public long commit(Checkpoint checkpoint) throws Exception {
+                pauseParsing();
+                long committed = rowWriter.commit(checkpoint);
+                resumeParsing();
+                return committed;
+            }
+
+            @Override
+            public Map<Integer, String> columnTypes() {
+                return rowWriter.columnTypes();
+            }
+
+            @Override
+            public void changeColumnType(int columnIndex, String columnType) throws Exception {
+                rowWriter.changeColumnType(columnIndex, columnType);
+            }
+
+            @Override
+            public void close() throws SQLException {
+                pauseParsing();
+                rowWriter.close();
+            }
+        };
+    }
+
+    private void startSession() throws InterruptedException {
+        if (inSession) {
+            return;
+        }
+        pauseParsing();
+        sessionPermits.acquire();
+        inSession = true;
+    }
+
+    private void resumeParsing() throws InterruptedException {
+        if (!parsing) {
+            parsePermits.acquire();
+            parsing = true;
+        }
+    }
+
+    private void pauseParsing() {
+        if (parsing) {
+            parsing = false;
+            parsePermits.release();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.pb.service;
+
+import com.pb.datasource.DataSource;
+import com.pb.datasource.SourceHandle;
+import com.pb.filereader.ExcelFileReader;
+import com.pb.filereader.XlsxStreamingReader;
+import com.pb.writer.DatabaseWriter;
+
+import org.apache.commons.math3.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static com.pb.util.TableNameUtil.createSheetTableName;
+import static com.pb.util.TableNameUtil.createSheetTableNames;
+import static com.pb.util.TableNameUtil.createTableNameAndExtension;
+
+/**
+ * Loads every sheet of an XLSX workbook into its own table, named by
+ * {@link com.pb.util.TableNameUtil#createSheetTableNames}.
+ * <p>
+ * The sheets are streamed concurrently on a pool of at most {@code parallelism} threads. Every sheet is loaded like
+ * a single file by its own {@link FileProcessingService}, with its own reader and its own writer connection and
+ * transaction, so the wall-clock time approaches that of the largest sheet rather than the sum of all of them.
+ * A sheet that fails does not stop the others; the failures are reported together once all sheets are done.
+ */
+public class WorkbookProcessingService {
+    private static final Logger log = Logger.getLogger(WorkbookProcessingService.class.getName());
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final DataSource dataSource;
+    private final DatabaseWriter databaseWriter;
+    private final int parallelism;
+
+    /**
+     * @param parallelism The maximum number of sheets loaded at the same time; each needs a connection of the pool.
+     */
+    public WorkbookProcessingService(DataSource dataSource, DatabaseWriter databaseWriter, int parallelism) {
+        this.dataSource = dataSource;
+        this.databaseWriter = databaseWriter;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Loads all sheets of the workbook.
+     *
+     * @param source   The workbook to read.
+     * @param fileName The file name of the workbook, from which the table names are derived.
+     * @throws Exception the failure of the first sheet that failed, with the failures of other sheets suppressed.
+     */
+    public void processWorkbook(String source, String fileName) throws Exception {
+        List<String> sheetNames;
+        try (SourceHandle sourceHandle = dataSource.open(source)) {
+            sheetNames = new XlsxStreamingReader().sheetNames(sourceHandle.getPath().toFile());
+        }
+        String extension = createTableNameAndExtension(fileName).getSecond();
+        List<String> tableNames = createSheetTableNames(fileName, sheetNames);
+        for (int i = 0; i < sheetNames.size(); i++) {
+            if (!tableNames.get(i).equals(createSheetTableName(fileName, sheetNames.get(i)))) {
+                log.warning("Sheet '" + sheetNames.get(i) + "' has the table name of an earlier sheet, loading it into " + tableNames.get(i));
+            }
+        }
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, sheetNames.size())),
+                runnable -> new Thread(runnable, "sheet-loader-" + THREAD_COUNTER.incrementAndGet()));
+        try {
+            List<Future<Long>> sheets = new ArrayList<>();
+            for (int i = 0; i < sheetNames.size(); i++) {
+                int sheetIndex = i;
+                String tableName = tableNames.get(i);
+                sheets.add(executor.submit(() -> processSheet(source, sheetIndex, new Pair<>(tableName, extension))));
+            }
+
+            Exception failure = null;
+            for (int i = 0; i < sheets.size(); i++) {
+                try {
+                    long millis = sheets.get(i).get();
+                    log.info("Sheet '" + sheetNames.get(i) + "' loaded in " + millis + " ms.");
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                    log.severe("Sheet '" + sheetNames.get(i) + "' failed: " + cause.getMessage());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            log.info(sheetNames.size() + " sheets loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long processSheet(String source, int sheetIndex, Pair<String, String> tableNameAndExtension) throws Exception {
+        long start = System.nanoTime();
+        new FileProcessingService(new ExcelFileReader(sheetIndex), dataSource, databaseWriter).processFile(source, tableNameAndExtension);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
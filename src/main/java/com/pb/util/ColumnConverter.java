@@ -0,0 +1,16 @@
+package com.pb.util;
+
+/**
+ * Converts the source values of one column into the Java values of its column type. Converters are created once
+ * per column by {@link ValueConverter#compile}, so the column type is not looked up again for every value.
+ */
+@FunctionalInterface
+public interface ColumnConverter {
+
+    /**
+     * @param value The source value.
+     * @return The converted value; see {@link ValueConverter#fromText} and {@link ValueConverter#fromObject} for
+     * empty values and values that do not fit the column type.
+     */
+    Object convert(Object value);
+}
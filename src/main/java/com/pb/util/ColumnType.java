@@ -1,10 +1,16 @@
 package com.pb.util;
 
 public enum ColumnType {
+    SMALLINT("SMALLINT"),
     INTEGER("INTEGER"),
+    BIGINT("BIGINT"),
     NUMERIC("NUMERIC"),
+    DOUBLE_PRECISION("DOUBLE PRECISION"),
+    DATE("DATE"),
     TIMESTAMP("TIMESTAMP"),
     BOOLEAN("BOOLEAN"),
+    UUID("UUID"),
+    VARCHAR("VARCHAR"),
     TEXT("TEXT");
 
     private final String value;
@@ -21,4 +27,21 @@ public enum ColumnType {
     public String getValue() {
         return value;
     }
+
+    /**
+     * Returns the base type of a column type, e.g. {@code NUMERIC} for {@code NUMERIC(10,2)}.
+     *
+     * @param columnType The column type.
+     * @return The base type; {@code TEXT} for types this enum does not know.
+     */
+    public static ColumnType of(String columnType) {
+        int parenthesis = columnType.indexOf('(');
+        String base = (parenthesis < 0 ? columnType : columnType.substring(0, parenthesis)).trim();
+        for (ColumnType type : values()) {
+            if (type.value.equalsIgnoreCase(base)) {
+                return type;
+            }
+        }
+        return TEXT;
+    }
 }
@@ -0,0 +1,196 @@
+package com.pb.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static com.pb.util.ColumnType.BOOLEAN;
+import static com.pb.util.ColumnType.INTEGER;
+import static com.pb.util.ColumnType.NUMERIC;
+import static com.pb.util.ColumnType.TEXT;
+import static com.pb.util.ColumnType.TIMESTAMP;
+import static com.pb.util.ColumnType.VARCHAR;
+import static com.pb.util.ColumnTypeUtil.getDefaultTypeForHeader;
+
+/**
+ * Determines column types from a bounded sample of rows.
+ * <p>
+ * The first {@code headRows} rows are always sampled; later rows go through a reservoir of {@code reservoirRows}
+ * rows, so every row of the file has the same chance to be sampled while memory stays bounded. The sampled values
+ * are classified column by column once the sample is complete.
+ * <p>
+ * In {@link Mode#LATTICE} mode a column gets the narrowest type that fits every sampled value, joined with
+ * {@link SqlType#join}: integers get {@code SMALLINT}, {@code INTEGER} or {@code BIGINT} by their range, decimals
+ * {@code NUMERIC(p,s)} by their digits, dates {@code DATE}, text {@code VARCHAR(n)} by its length, and empty values
+ * do not count. {@link Mode#FIRST_MATCH} keeps the earlier behaviour of taking the type of the first sampled value,
+ * from the basic types {@code INTEGER}, {@code NUMERIC}, {@code TIMESTAMP}, {@code BOOLEAN} and {@code TEXT}.
+ * Columns without a typed value get the default type for their header.
+ */
+public class ColumnTypeInference {
+    public static final int DEFAULT_HEAD_ROWS = 10000;
+    public static final int DEFAULT_RESERVOIR_ROWS = 1000;
+
+    public enum Mode {
+        LATTICE, FIRST_MATCH;
+
+        public static Mode fromConfig(String value) {
+            return value == null ? LATTICE : valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final int columnCount;
+    private final boolean textValues;
+    private final Mode mode;
+    private final boolean skipText;
+    private final int headRows;
+    private final int reservoirRows;
+    private final List<Object[]> head = new ArrayList<>();
+    private final List<Object[]> reservoir = new ArrayList<>();
+    private final Random random = new Random(42);
+    private long tailRows;
+
+    /**
+     * @param columnCount   The number of columns.
+     * @param textValues    Whether the values are text (CSV) rather than typed values (DBF, XLSX).
+     * @param mode          How the sampled types of a column are combined.
+     * @param skipText      In {@link Mode#FIRST_MATCH} mode, whether text values are skipped rather than matched.
+     * @param headRows      The number of leading rows that are always sampled.
+     * @param reservoirRows The number of rows sampled from the rest of the file.
+     */
+    public ColumnTypeInference(int columnCount, boolean textValues, Mode mode, boolean skipText,
+                               int headRows, int reservoirRows) {
+        this.columnCount = columnCount;
+        this.textValues = textValues;
+        this.mode = mode;
+        this.skipText = skipText;
+        this.headRows = headRows;
+        this.reservoirRows = reservoirRows;
+    }
+
+    /**
+     * Creates an inference configured by {@code ingest.inference}, {@code ingest.sample-rows} and
+     * {@code ingest.reservoir-rows}.
+     */
+    public static ColumnTypeInference fromConfig(int columnCount, boolean textValues, boolean skipText) {
+        return new ColumnTypeInference(columnCount, textValues, configuredMode(), skipText,
+                Integer.parseInt(DatabaseConnectionManager.getProperty("ingest", "sample-rows", String.valueOf(DEFAULT_HEAD_ROWS))),
+                Integer.parseInt(DatabaseConnectionManager.getProperty("ingest", "reservoir-rows", String.valueOf(DEFAULT_RESERVOIR_ROWS))));
+    }
+
+    /**
+     * Returns the mode configured by {@code ingest.inference}.
+     */
+    public static Mode configuredMode() {
+        return Mode.fromConfig(DatabaseConnectionManager.getProperty("ingest", "inference", null));
+    }
+
+    /**
+     * Offers the next row of the file to the sample.
+     */
+    public void accept(Object[] row) {
+        if (head.size() < headRows) {
+            head.add(row);
+            return;
+        }
+        if (mode == Mode.FIRST_MATCH) {
+            return;
+        }
+        tailRows++;
+        if (reservoir.size() < reservoirRows) {
+            reservoir.add(row);
+        } else {
+            long slot = (long) (random.nextDouble() * tailRows);
+            if (slot < reservoirRows) {
+                reservoir.set((int) slot, row);
+            }
+        }
+    }
+
+    /**
+     * Returns whether further rows can no longer change the result, so the reader may stop early.
+     */
+    public boolean isComplete() {
+        return mode == Mode.FIRST_MATCH && head.size() >= headRows;
+    }
+
+    /**
+     * Classifies the sampled rows.
+     *
+     * @param headers The column headers, used for the default type of columns without typed values.
+     * @return The column types by column index.
+     */
+    public Map<Integer, String> columnTypes(Map<Integer, String> headers) {
+        Map<Integer, String> columnTypes = new HashMap<>();
+        for (int column = 0; column < columnCount; column++) {
+            SqlType type = mode == Mode.LATTICE ? widestType(column) : firstType(column);
+            if (type != null) {
+                columnTypes.put(column, type.toString());
+            }
+        }
+        for (int i = 0; i < headers.size(); i++) {
+            columnTypes.putIfAbsent(i, getDefaultTypeForHeader(headers.get(i)));
+        }
+        return columnTypes;
+    }
+
+    private SqlType widestType(int column) {
+        SqlType type = null;
+        int maxLength = 0;
+        for (List<Object[]> rows : List.of(head, reservoir)) {
+            for (Object[] row : rows) {
+                if (type != null && type.base() == TEXT) {
+                    return type;
+                }
+                Object value = column < row.length ? row[column] : null;
+                if (value != null && !"".equals(value)) {
+                    type = SqlType.join(type, textValues ? SqlType.ofText((String) value) : SqlType.ofObject(value));
+                    if (value instanceof String text) {
+                        maxLength = Math.max(maxLength, text.length());
+                    }
+                }
+            }
+        }
+        // A column that became text must also hold the values sampled as numbers, dates etc. as they were written.
+        return type != null && type.base() == VARCHAR ? SqlType.join(type, SqlType.text(maxLength)) : type;
+    }
+
+    private SqlType firstType(int column) {
+        for (Object[] row : head) {
+            Object value = column < row.length ? row[column] : null;
+            ColumnType type = textValues ? classifyText(value) : classifyObject(value);
+            if (type != TEXT || !skipText) {
+                return SqlType.of(type);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Classifies a text value (as read from a CSV file), see {@link ValueClassifier}.
+     *
+     * @param value The value to check.
+     * @return The determined column type.
+     */
+    public static ColumnType classifyText(Object value) {
+        return ValueClassifier.classify((String) value);
+    }
+
+    /**
+     * Classifies a typed value (as read from a DBF or XLSX file).
+     *
+     * @param value The value to check.
+     * @return The determined column type.
+     */
+    public static ColumnType classifyObject(Object value) {
+        return switch (value) {
+            case null -> TEXT;
+            case Number number -> number.toString().contains(".") ? NUMERIC : INTEGER;
+            case Boolean b -> BOOLEAN;
+            case java.util.Date date -> TIMESTAMP;
+            default -> TEXT;
+        };
+    }
+}
@@ -0,0 +1,441 @@
+package com.pb.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A small, thread-safe JDBC connection pool.
+ * <p>
+ * At most {@code maxSize} physical connections are open at a time; callers wait up to {@code maxWaitMillis} for a
+ * free one. Connections handed out are proxies: {@link Connection#close()} rolls back any open transaction and
+ * returns the physical connection to the pool. A connection that was idle for a while is validated before it is
+ * handed out again, and idle connections above {@code minSize} are closed after {@code idleTimeoutMillis}.
+ * <p>
+ * Every physical connection keeps the prepared statements created through {@link Connection#prepareStatement(String)}
+ * in a small LRU cache, so loads with the same INSERT shape reuse the same (server-side) statement. Closing a cached
+ * statement only clears its parameters and batch.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(ConnectionPool.class.getName());
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 1000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private int open;
+
+    /**
+     * Pool metrics at one point in time.
+     *
+     * @param active          Connections currently handed out.
+     * @param idle            Open connections waiting in the pool.
+     * @param acquired        Connections handed out since the pool was created.
+     * @param created         Physical connections opened since the pool was created.
+     * @param totalWaitMillis Time callers spent waiting for a connection.
+     * @param maxWaitMillis   The longest single wait for a connection.
+     * @param statementHits   Prepared statements served from the statement cache.
+     * @param statementMisses Prepared statements that had to be created.
+     */
+    public record Metrics(int active, int idle, long acquired, long created, long totalWaitMillis, long maxWaitMillis,
+                          long statementHits, long statementMisses) {
+    }
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, int validationTimeoutSeconds, int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, Math.min(idleTimeoutMillis / 2, 30_000));
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured time for one to become free.
+     *
+     * @return A connection whose {@code close()} returns it to the pool.
+     * @throws SQLException if no connection became free in time or a new connection cannot be opened.
+     */
+    public Connection getConnection() throws SQLException {
+        acquirePermits(1);
+        return open();
+    }
+
+    /**
+     * Borrows several connections at once: the caller waits until all of them are free and holds none of them while
+     * it waits, so callers that need several connections cannot deadlock by each holding part of the pool.
+     *
+     * @param count The number of connections, at most the maximum size of the pool.
+     * @return The connections; closing each returns it to the pool.
+     * @throws SQLException if the connections did not become free in time or a new connection cannot be opened.
+     */
+    public List<Connection> getConnections(int count) throws SQLException {
+        if (count > maxSize) {
+            throw new SQLException(count + " connections requested from a pool of at most " + maxSize);
+        }
+        acquirePermits(count);
+        List<Connection> connections = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                connections.add(open());
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release(count - connections.size() - 1);
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            throw e;
+        }
+        return connections;
+    }
+
+    public Metrics metrics() {
+        synchronized (idle) {
+            return new Metrics(open - idle.size(), idle.size(), acquired.get(), created.get(),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos.get()), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                    statementHits.get(), statementMisses.get());
+        }
+    }
+
+    /**
+     * Closes the idle connections. Connections still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = pollIdle()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private void acquirePermits(int count) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(count, maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("No " + (count > 1 ? count + " connections" : "connection") + " available within "
+                        + maxWaitMillis + " ms (" + metrics() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        recordWait(System.nanoTime() - start, count);
+    }
+
+    /**
+     * Hands out an idle or a new connection for a permit the caller holds; the permit is released if that fails.
+     */
+    private Connection open() throws SQLException {
+        try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled.lease();
+                }
+                discard(pooled);
+            }
+            pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+            created.incrementAndGet();
+            synchronized (idle) {
+                open++;
+            }
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void recordWait(long nanos, int count) {
+        acquired.addAndGet(count);
+        waitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private PooledConnection pollIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER_IDLE_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes a connection back from a caller; it is reset and pooled again, or closed if it cannot be reused.
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            boolean reusable = !closed && !pooled.connection.isClosed();
+            if (reusable) {
+                try {
+                    if (!pooled.connection.getAutoCommit()) {
+                        pooled.connection.rollback();
+                        pooled.connection.setAutoCommit(true);
+                    }
+                    pooled.connection.clearWarnings();
+                } catch (SQLException e) {
+                    log.warning("Discarding connection that could not be reset: " + e.getMessage());
+                    reusable = false;
+                }
+            }
+            if (reusable) {
+                pooled.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+            } else {
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        synchronized (idle) {
+            open--;
+        }
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            log.warning("Failed to close pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && open > minSize) {
+                PooledConnection pooled = iterator.next();
+                if (now - pooled.lastUsed >= idleTimeoutMillis) {
+                    iterator.remove();
+                    open--;
+                    try {
+                        pooled.connection.close();
+                    } catch (SQLException e) {
+                        log.warning("Failed to close idle connection: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A physical connection together with its statement cache.
+     */
+    private final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, CachedStatement> statements;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() > statementCacheSize && !eldest.getValue().inUse) {
+                        closeQuietly(eldest.getValue().statement);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Lease(this));
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            if (statementCacheSize <= 0) {
+                return connection.prepareStatement(sql);
+            }
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+                statementHits.incrementAndGet();
+                cached.inUse = true;
+                return cached.proxy;
+            }
+            statementMisses.incrementAndGet();
+            if (cached != null) {
+                return connection.prepareStatement(sql);
+            }
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+            return cached.proxy;
+        }
+    }
+
+    /**
+     * The caller's view of a pooled connection. It only forwards calls until it is closed.
+     */
+    private final class Lease implements InvocationHandler {
+        private PooledConnection pooled;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (pooled != null) {
+                        PooledConnection returned = pooled;
+                        pooled = null;
+                        release(returned);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return pooled == null || pooled.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + (pooled != null ? pooled.connection : "closed") + "]";
+                }
+                default -> {
+                }
+            }
+            if (pooled == null) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                return pooled.prepare((String) args[0]);
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * A cached statement; closing it through the proxy resets it and makes it available again.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse = true;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (inUse) {
+                        inUse = false;
+                        statement.clearParameters();
+                        statement.clearBatch();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !inUse || statement.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warning("Failed to close cached statement: " + e.getMessage());
+        }
+    }
+}
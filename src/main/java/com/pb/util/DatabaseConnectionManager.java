@@ -1,41 +1,173 @@
 package com.pb.util;
 
+import com.pb.writer.Dialect;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
 
+/**
+ * Holds the loaded configuration, the connection pool built from its {@code jdbc} and {@code pool} sections and the
+ * {@link Dialect} of its {@code jdbc.url}.
+ * <p>
+ * The configuration is replaced as a whole, so concurrent loads always see a consistent snapshot. Loading the same
+ * database settings again keeps the existing pool and its open connections.
+ */
 public class DatabaseConnectionManager {
+    private static final Logger log = Logger.getLogger(DatabaseConnectionManager.class.getName());
 
-    private static Map<String, Map<String, String>> properties;
-    /* TODO rewrite for use datasource in main class */
-    public static void loadProperties(String configFileName) {
+    private record State(Map<String, Map<String, Object>> properties, ConnectionPool pool, Dialect dialect) {
+    }
+
+    private static volatile State state;
+
+    public static synchronized void loadProperties(String configFileName) {
         Yaml yaml = new Yaml();
+        Map<String, Map<String, Object>> loaded;
         try (InputStream input = DatabaseConnectionManager.class.getClassLoader().getResourceAsStream(configFileName)) {
-            properties = yaml.load(input);
+            loaded = yaml.load(input);
         } catch (IOException e) {
             throw new RuntimeException("Failed to load database properties from " + configFileName, e);
         }
+        Map<String, Map<String, Object>> properties = new HashMap<>();
+        if (loaded != null) {
+            loaded.forEach((section, values) -> properties.put(section, values != null ? Map.copyOf(withoutNulls(values)) : Map.of()));
+        }
+
+        State current = state;
+        ConnectionPool pool = null;
+        Dialect dialect;
+        if (current != null && sameDatabase(current.properties, properties)) {
+            pool = current.pool;
+            dialect = current.dialect;
+        } else {
+            if (current != null && current.pool != null) {
+                current.pool.close();
+            }
+            Map<String, Object> jdbcProperties = properties.get("jdbc");
+            dialect = Dialect.forUrl(jdbcProperties != null ? asString(jdbcProperties.get("url")) : null);
+        }
+        state = new State(Map.copyOf(properties), pool, dialect);
     }
 
     public static Connection getConnection() throws SQLException {
-        if (properties == null) {
+        return getPool().getConnection();
+    }
+
+    /**
+     * Borrows several connections at once, see {@link ConnectionPool#getConnections(int)}.
+     */
+    public static List<Connection> getConnections(int count) throws SQLException {
+        return getPool().getConnections(count);
+    }
+
+    /**
+     * Returns the dialect of the configured {@code jdbc.url}, resolved when the configuration was loaded.
+     */
+    public static Dialect getDialect() {
+        State current = state;
+        return current != null ? current.dialect : Dialect.forUrl(null);
+    }
+
+    /**
+     * Returns the current pool metrics (active and idle connections, wait times and statement cache hits).
+     */
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        State current = state;
+        return current != null && current.pool != null ? current.pool.metrics() : null;
+    }
+
+    /**
+     * Returns a value from the loaded configuration.
+     *
+     * @param section      The top-level section, e.g. {@code writer}.
+     * @param key          The key inside the section.
+     * @param defaultValue The value to return when the section or key is missing.
+     * @return The configured value as a string, or the default value.
+     */
+    public static String getProperty(String section, String key, String defaultValue) {
+        State current = state;
+        if (current == null || current.properties.get(section) == null) {
+            return defaultValue;
+        }
+        Object value = current.properties.get(section).get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    /**
+     * Returns a nested map from the loaded configuration, e.g. the settings of one table.
+     *
+     * @param section The top-level section.
+     * @param key     The key of the nested map inside the section.
+     * @return The values of the nested map as strings, or an empty map if it is missing.
+     */
+    public static Map<String, String> getProperties(String section, String key) {
+        State current = state;
+        if (current == null || current.properties.get(section) == null
+                || !(current.properties.get(section).get(key) instanceof Map<?, ?> values)) {
+            return Map.of();
+        }
+        Map<String, String> properties = new HashMap<>();
+        values.forEach((name, value) -> {
+            if (value != null) {
+                properties.put(name.toString(), value.toString());
+            }
+        });
+        return properties;
+    }
+
+    private static synchronized ConnectionPool getPool() {
+        State current = state;
+        if (current == null) {
             throw new RuntimeException("Database properties not loaded. Call loadProperties first.");
         }
+        if (current.pool != null) {
+            return current.pool;
+        }
 
-        Map<String, String> jdbcProperties = properties.get("jdbc");
+        Map<String, Object> jdbcProperties = current.properties.get("jdbc");
         if (jdbcProperties == null) {
             throw new RuntimeException("No JDBC configuration found in configuration file");
         }
 
-        String url = jdbcProperties.get("url");
-        String user = jdbcProperties.get("user");
-        String password = jdbcProperties.get("password");
+        String url = asString(jdbcProperties.get("url"));
+        if (url != null && url.startsWith("jdbc:postgresql:") && !url.contains("reWriteBatchedInserts")
+                && Boolean.parseBoolean(asString(jdbcProperties.get("rewrite-batched-inserts")))) {
+            url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        }
+        String user = asString(jdbcProperties.get("user"));
+        String password = asString(jdbcProperties.get("password"));
+
+        ConnectionPool pool = new ConnectionPool(url, user, password,
+                Integer.parseInt(getProperty("pool", "min-size", "1")),
+                Integer.parseInt(getProperty("pool", "max-size", "10")),
+                Long.parseLong(getProperty("pool", "max-wait-ms", "30000")),
+                Long.parseLong(getProperty("pool", "idle-timeout-ms", "600000")),
+                Integer.parseInt(getProperty("pool", "validation-timeout-s", "5")),
+                Integer.parseInt(getProperty("pool", "statement-cache-size", "32")));
+        log.info("Created connection pool for " + url);
+        state = new State(current.properties, pool, current.dialect);
+        return pool;
+    }
+
+    private static boolean sameDatabase(Map<String, Map<String, Object>> a, Map<String, Map<String, Object>> b) {
+        return Objects.equals(a.get("jdbc"), b.get("jdbc")) && Objects.equals(a.get("pool"), b.get("pool"));
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> values) {
+        Map<String, Object> result = new HashMap<>(values);
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
 
-        return DriverManager.getConnection(url, user, password);
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
     }
 }
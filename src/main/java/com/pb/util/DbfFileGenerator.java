@@ -43,7 +43,6 @@ public class DbfFileGenerator {
                 writer.addRecord(generateRowData(i, random));
             }
 
-            writer.write();
             System.out.println("DBF file created successfully on disk with file name " + dbfFilePath);
 
         } catch (IOException e) {
@@ -61,7 +60,6 @@ public class DbfFileGenerator {
             for (int i = 0; i < numberOfRecords; i++) {
                 writer.addRecord(generateRowData(i, random));
             }
-            writer.write();
             System.out.println("DBF file created in memory successfully!");
         }
     }
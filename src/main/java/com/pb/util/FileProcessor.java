@@ -1,17 +1,16 @@
 package com.pb.util;
 
+import com.pb.datasource.FileSystemDataSource;
 import com.pb.filereader.CsvFileReader;
 import com.pb.filereader.DbfFileReader;
 import com.pb.filereader.ExcelFileReader;
 import com.pb.filereader.FileReader;
+import com.pb.service.FileProcessingService;
 import com.pb.writer.PostgresDatabaseWriter;
 
 import org.apache.commons.math3.util.Pair;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.sql.Connection;
-import java.util.Map;
 
 public class FileProcessor {
 
@@ -20,7 +19,6 @@ public class FileProcessor {
         PostgresDatabaseWriter databaseWriter = new PostgresDatabaseWriter();
 
         Pair<String, String> tableNameAndExtension = TableNameUtil.createTableNameAndExtension(filePath);
-        String tableName = tableNameAndExtension.getFirst();
         String fileExtension = tableNameAndExtension.getSecond().toLowerCase();
 
         fileReader = switch (fileExtension) {
@@ -30,18 +28,6 @@ public class FileProcessor {
             default -> throw new IllegalArgumentException("Unsupported file extension: " + fileExtension);
         };
 
-        try (InputStream inputStream = new FileInputStream(filePath)) {
-            Map<Integer, String> headers = fileReader.readHeaders(inputStream);
-            inputStream.close();
-
-            try (InputStream inputStreamForColumnTypes = new FileInputStream(filePath)) {
-                Map<Integer, String> columnTypes = fileReader.determineColumnTypes(inputStreamForColumnTypes);
-                databaseWriter.createTable(headers, columnTypes, tableName);
-
-                try (InputStream inputStreamForData = new FileInputStream(filePath)) {
-                    databaseWriter.insertData(headers, columnTypes, tableName, fileExtension, inputStreamForData);
-                }
-            }
-        }
+        new FileProcessingService(fileReader, new FileSystemDataSource(), databaseWriter).processFile(filePath, filePath);
     }
 }
@@ -0,0 +1,80 @@
+package com.pb.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Hashes the converted values of a row into 64 bits, so that a changed row can be found by comparing one column.
+ * Numbers are hashed by value (e.g. {@code 1.50} and {@code 1.5} hash alike), everything else by its content;
+ * null and the position of each value are part of the hash.
+ */
+public class RowHash {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xBF58476D1CE4E5B9L;
+    private static final long NULL = 0x94D049BB133111EBL;
+
+    /**
+     * @param values The converted values.
+     * @param count  The number of values to hash, from the first one.
+     * @return The hash.
+     */
+    public static long of(Object[] values, int count) {
+        long hash = SEED;
+        for (int i = 0; i < count; i++) {
+            hash = (Long.rotateLeft(hash, 27) ^ hash(values[i])) * MULTIPLIER;
+        }
+        return mix(hash ^ count);
+    }
+
+    private static long hash(Object value) {
+        return switch (value) {
+            case null -> NULL;
+            case Short s -> mix(s);
+            case Integer i -> mix(i);
+            case Long l -> mix(l);
+            case Double d -> mix(Double.doubleToLongBits(d));
+            case BigDecimal d -> hash(d);
+            case Timestamp t -> mix(t.getTime() * 1_000_000L + t.getNanos() % 1_000_000);
+            case Date d -> mix(d.getTime());
+            case Boolean b -> b ? 1 : 2;
+            case UUID u -> mix(u.getMostSignificantBits() ^ mix(u.getLeastSignificantBits()));
+            case CharSequence text -> hash(text);
+            default -> hash(value.toString());
+        };
+    }
+
+    /**
+     * Hashes whole decimals like the integer of the same value, so a column inferred as INTEGER in one file and as
+     * NUMERIC in the next does not change the hash of its rows.
+     */
+    private static long hash(BigDecimal value) {
+        BigDecimal stripped = value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= 18) {
+            return mix(stripped.longValue());
+        }
+        BigInteger unscaled = stripped.unscaledValue();
+        long digits = unscaled.bitLength() < 64 ? unscaled.longValue() : hash(unscaled.toString());
+        return mix(digits * 31 + stripped.scale());
+    }
+
+    private static long hash(CharSequence text) {
+        long hash = SEED ^ text.length();
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * MULTIPLIER;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every input bit over the whole result.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
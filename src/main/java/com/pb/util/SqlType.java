@@ -0,0 +1,303 @@
+package com.pb.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static com.pb.util.ColumnType.BIGINT;
+import static com.pb.util.ColumnType.BOOLEAN;
+import static com.pb.util.ColumnType.DATE;
+import static com.pb.util.ColumnType.DOUBLE_PRECISION;
+import static com.pb.util.ColumnType.INTEGER;
+import static com.pb.util.ColumnType.NUMERIC;
+import static com.pb.util.ColumnType.SMALLINT;
+import static com.pb.util.ColumnType.TEXT;
+import static com.pb.util.ColumnType.TIMESTAMP;
+import static com.pb.util.ColumnType.UUID;
+import static com.pb.util.ColumnType.VARCHAR;
+
+/**
+ * A column type with its modifiers: the precision and scale of {@code NUMERIC(p,s)} or the length of
+ * {@code VARCHAR(n)}. A precision of 0 means the type has none, e.g. an unbounded {@code NUMERIC}.
+ * <p>
+ * {@link #ofText} and {@link #ofObject} give the narrowest type of a single value and {@link #join} the narrowest
+ * type that holds the values of two types. Together they track the range, scale and length of a column: integers
+ * get ten times their magnitude as headroom, decimals one more integer digit and text twice its length, so values
+ * slightly beyond the sample still fit.
+ */
+public record SqlType(ColumnType base, int precision, int scale) {
+    public static final int MAX_NUMERIC_PRECISION = 1000;
+    public static final int MAX_VARCHAR_LENGTH = 1024;
+    private static final int MIN_VARCHAR_LENGTH = 16;
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+    private static final double MAX_EXACT_DOUBLE_INTEGER = 0x1p53;
+
+    public static SqlType of(ColumnType base) {
+        return new SqlType(base, 0, 0);
+    }
+
+    /**
+     * Parses a column type such as {@code INTEGER}, {@code NUMERIC(10,2)} or {@code VARCHAR(32)}.
+     */
+    public static SqlType parse(String columnType) {
+        ColumnType base = ColumnType.of(columnType);
+        int open = columnType.indexOf('(');
+        if (open < 0) {
+            return of(base);
+        }
+        String[] arguments = columnType.substring(open + 1, columnType.indexOf(')', open)).split(",");
+        int precision = Integer.parseInt(arguments[0].trim());
+        int scale = arguments.length > 1 ? Integer.parseInt(arguments[1].trim()) : 0;
+        return new SqlType(base, precision, scale);
+    }
+
+    /**
+     * Returns the type of an existing column from its JDBC metadata, see {@link java.sql.ResultSetMetaData}.
+     *
+     * @param jdbcType  The {@link java.sql.Types} constant.
+     * @param typeName  The database-specific type name.
+     * @param precision The precision or length.
+     * @param scale     The scale.
+     * @return The type; {@code TEXT} for types this class does not know.
+     */
+    public static SqlType ofJdbc(int jdbcType, String typeName, int precision, int scale) {
+        if ("uuid".equalsIgnoreCase(typeName)) {
+            return of(UUID);
+        }
+        return switch (jdbcType) {
+            case Types.TINYINT, Types.SMALLINT -> of(SMALLINT);
+            case Types.INTEGER -> of(INTEGER);
+            case Types.BIGINT -> of(BIGINT);
+            case Types.NUMERIC, Types.DECIMAL -> precision <= 0 ? of(NUMERIC) : numeric(precision, Math.max(0, scale));
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> of(DOUBLE_PRECISION);
+            case Types.DATE -> of(DATE);
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> of(TIMESTAMP);
+            case Types.BOOLEAN, Types.BIT -> of(BOOLEAN);
+            case Types.VARCHAR, Types.NVARCHAR, Types.CHAR, Types.NCHAR -> precision <= 0 ? of(TEXT) : varchar(precision);
+            default -> of(TEXT);
+        };
+    }
+
+    /**
+     * Returns {@code NUMERIC(precision,scale)}, or an unbounded {@code NUMERIC} above {@link #MAX_NUMERIC_PRECISION}.
+     */
+    public static SqlType numeric(int precision, int scale) {
+        return precision > MAX_NUMERIC_PRECISION ? of(NUMERIC) : new SqlType(NUMERIC, precision, scale);
+    }
+
+    /**
+     * Returns {@code VARCHAR(length)}, or {@code TEXT} above {@link #MAX_VARCHAR_LENGTH}.
+     */
+    public static SqlType varchar(int length) {
+        return length > MAX_VARCHAR_LENGTH ? of(TEXT) : new SqlType(VARCHAR, length, 0);
+    }
+
+    /**
+     * Returns the type of a text value of the given length: {@code VARCHAR} with room for twice the length, rounded
+     * up to a power of two.
+     */
+    public static SqlType text(int length) {
+        return varchar(textWidth(length));
+    }
+
+    /**
+     * Returns the narrowest integer type that holds ten times the value.
+     */
+    public static SqlType integer(long value) {
+        long magnitude = value == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(value);
+        if (magnitude <= Short.MAX_VALUE / 10) {
+            return of(SMALLINT);
+        }
+        return of(magnitude <= Integer.MAX_VALUE / 10 ? INTEGER : BIGINT);
+    }
+
+    /**
+     * Returns the narrowest type of a text value (as read from a CSV file).
+     *
+     * @param value The value.
+     * @return The type, or null for an empty value.
+     */
+    public static SqlType ofText(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (ValueClassifier.isLong(value)) {
+            return integer(Long.parseLong(value));
+        }
+        if (ValueClassifier.isPlainDecimal(value)) {
+            return decimal(value);
+        }
+        if (ValueClassifier.isNumeric(value)) {
+            return of(DOUBLE_PRECISION);
+        }
+        if (ValueClassifier.isDate(value)) {
+            return of(DATE);
+        }
+        if (ValueClassifier.isTimestamp(value)) {
+            return of(TIMESTAMP);
+        }
+        if (ValueClassifier.isBoolean(value)) {
+            return of(BOOLEAN);
+        }
+        if (ValueClassifier.isUuid(value)) {
+            return of(UUID);
+        }
+        return text(value.length());
+    }
+
+    /**
+     * Returns the narrowest type of a typed value (as read from a DBF or XLSX file). Integral doubles, which is how
+     * spreadsheets store whole numbers, get an integer type.
+     *
+     * @param value The value.
+     * @return The type, or null for a null value.
+     */
+    public static SqlType ofObject(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Byte b -> integer(b);
+            case Short s -> integer(s);
+            case Integer i -> integer(i);
+            case Long l -> integer(l);
+            case BigInteger i -> i.bitLength() < 64 ? integer(i.longValue()) : numeric(i.toString().length() + 1, 0);
+            case BigDecimal d -> decimal(d);
+            case Number number -> {
+                double d = number.doubleValue();
+                yield d == Math.rint(d) && Math.abs(d) <= MAX_EXACT_DOUBLE_INTEGER ? integer((long) d) : of(DOUBLE_PRECISION);
+            }
+            case Boolean b -> of(BOOLEAN);
+            case Date date -> isMidnight(date) ? of(DATE) : of(TIMESTAMP);
+            case java.util.UUID uuid -> of(UUID);
+            default -> text(value.toString().length());
+        };
+    }
+
+    /**
+     * Returns the narrowest type that holds the values of both types.
+     *
+     * @param a A type, or null if there is none yet.
+     * @param b Another type, or null.
+     * @return The joined type.
+     */
+    public static SqlType join(SqlType a, SqlType b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null || a.equals(b)) {
+            return a;
+        }
+        if (a.isInteger() && b.isInteger()) {
+            return a.base.ordinal() >= b.base.ordinal() ? a : b;
+        }
+        if (a.isNumber() && b.isNumber()) {
+            return joinNumbers(a, b);
+        }
+        if ((a.base == DATE || a.base == TIMESTAMP) && (b.base == DATE || b.base == TIMESTAMP)) {
+            return of(TIMESTAMP);
+        }
+        return varchar(Math.max(a.textWidth(), b.textWidth()));
+    }
+
+    private static SqlType joinNumbers(SqlType a, SqlType b) {
+        if ((a.base == NUMERIC && a.precision == 0) || (b.base == NUMERIC && b.precision == 0)) {
+            return of(NUMERIC);
+        }
+        if (a.base == DOUBLE_PRECISION || b.base == DOUBLE_PRECISION) {
+            SqlType other = a.base == DOUBLE_PRECISION ? b : a;
+            return other.base == DOUBLE_PRECISION || other.digits() <= MAX_EXACT_DOUBLE_DIGITS ? of(DOUBLE_PRECISION) : of(NUMERIC);
+        }
+        int scale = Math.max(a.scale, b.scale);
+        return numeric(Math.max(a.integerDigits(), b.integerDigits()) + scale, scale);
+    }
+
+    private static SqlType decimal(String value) {
+        int integerDigits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                point = true;
+            } else if (point) {
+                scale++;
+            } else if (c != '+' && c != '-' && (integerDigits > 0 || c != '0')) {
+                integerDigits++;
+            }
+        }
+        return numeric(integerDigits + 1 + scale, scale);
+    }
+
+    private static SqlType decimal(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        int integerDigits = Math.max(0, stripped.precision() - stripped.scale());
+        if (stripped.scale() <= 0 && integerDigits <= 18) {
+            return integer(stripped.longValue());
+        }
+        int scale = Math.max(0, stripped.scale());
+        return numeric(integerDigits + 1 + scale, scale);
+    }
+
+    static boolean isMidnight(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    private static int textWidth(long length) {
+        long width = MIN_VARCHAR_LENGTH;
+        while (width < length * 2 && width <= MAX_VARCHAR_LENGTH) {
+            width <<= 1;
+        }
+        return width > MAX_VARCHAR_LENGTH ? Integer.MAX_VALUE : (int) width;
+    }
+
+    private boolean isInteger() {
+        return base == SMALLINT || base == INTEGER || base == BIGINT;
+    }
+
+    private boolean isNumber() {
+        return isInteger() || base == NUMERIC || base == DOUBLE_PRECISION;
+    }
+
+    private int integerDigits() {
+        return switch (base) {
+            case SMALLINT -> 5;
+            case INTEGER -> 10;
+            case BIGINT -> 19;
+            default -> precision - scale;
+        };
+    }
+
+    private int digits() {
+        return base == NUMERIC ? precision : integerDigits();
+    }
+
+    /**
+     * Returns the {@code VARCHAR} length that holds every value of this type as text.
+     */
+    private int textWidth() {
+        return switch (base) {
+            case VARCHAR -> precision;
+            case NUMERIC -> precision == 0 ? Integer.MAX_VALUE : textWidth(precision + 2);
+            case SMALLINT -> textWidth(6);
+            case INTEGER -> textWidth(11);
+            case BIGINT -> textWidth(20);
+            case DOUBLE_PRECISION -> textWidth(24);
+            case DATE -> textWidth(13);
+            case TIMESTAMP -> textWidth(32);
+            case BOOLEAN -> textWidth(5);
+            case UUID -> textWidth(36);
+            default -> Integer.MAX_VALUE;
+        };
+    }
+
+    @Override
+    public String toString() {
+        if (precision == 0) {
+            return base.toString();
+        }
+        return base == NUMERIC ? base + "(" + precision + "," + scale + ")" : base + "(" + precision + ")";
+    }
+}
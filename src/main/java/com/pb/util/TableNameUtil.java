@@ -2,7 +2,18 @@ package com.pb.util;
 
 import org.apache.commons.math3.util.Pair;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
 public class TableNameUtil {
+    private static final Pattern SQL_IDENTIFIER = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_]*");
+    private static final Pattern QUALIFIED_TABLE_NAME = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_.]*");
+    private static final Pattern FILE_IDENTIFIER = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_\\s()]*");
+
     /**
      * Creates a Pair with the table name derived from the file name and the file extension.
      *
@@ -22,6 +33,93 @@ public class TableNameUtil {
         return new Pair<>(sanitizeName(name), extension);
     }
 
+    /**
+     * Creates the table name for a sheet of a workbook: the table name of the workbook and the sheet name, joined
+     * by an underscore. Characters of the sheet name that are not letters or digits become underscores.
+     *
+     * @param fileName  The name of the workbook file.
+     * @param sheetName The name of the sheet.
+     * @return The table name.
+     */
+    public static String createSheetTableName(String fileName, String sheetName) {
+        if (sheetName == null || sheetName.isBlank()) {
+            throw new IllegalArgumentException("Sheet name cannot be null or empty");
+        }
+        return createTableNameAndExtension(fileName).getFirst() + "_" + sheetName.trim().replaceAll("[^\\p{L}\\p{N}_]+", "_");
+    }
+
+    /**
+     * Creates the table names for all sheets of a workbook, see {@link #createSheetTableName}. Sheet names that
+     * sanitize to the same table name, ignoring case (e.g. "Q1 2024" and "Q1-2024"), would load into the same table,
+     * so every sheet after the first gets the suffix {@code _2}, {@code _3}, ..., skipping names taken by other
+     * sheets.
+     *
+     * @param fileName   The name of the workbook file.
+     * @param sheetNames The names of the sheets, in workbook order.
+     * @return The table names, in the order of the sheets.
+     */
+    public static List<String> createSheetTableNames(String fileName, List<String> sheetNames) {
+        List<String> baseNames = new ArrayList<>();
+        Set<String> reserved = new HashSet<>();
+        for (String sheetName : sheetNames) {
+            String baseName = createSheetTableName(fileName, sheetName);
+            baseNames.add(baseName);
+            reserved.add(baseName.toLowerCase(Locale.ROOT));
+        }
+        List<String> tableNames = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (String baseName : baseNames) {
+            String tableName = baseName;
+            int suffix = 1;
+            while (taken.contains(tableName.toLowerCase(Locale.ROOT))
+                    || !tableName.equals(baseName) && reserved.contains(tableName.toLowerCase(Locale.ROOT))) {
+                tableName = baseName + "_" + ++suffix;
+            }
+            taken.add(tableName.toLowerCase(Locale.ROOT));
+            tableNames.add(tableName);
+        }
+        return tableNames;
+    }
+
+    /**
+     * Checks that the identifier can be put into SQL unquoted: letters, digits and underscores, not starting with a
+     * digit.
+     *
+     * @param identifier The table, column or index name.
+     * @throws IllegalArgumentException If the identifier is not valid.
+     */
+    public static void validateSqlIdentifier(String identifier) {
+        validate(SQL_IDENTIFIER, identifier, "SQL identifier");
+    }
+
+    /**
+     * Checks a configured table name like {@link #validateSqlIdentifier}, allowing a schema prefix such as
+     * {@code ingest.progress}.
+     *
+     * @param tableName The table name.
+     * @throws IllegalArgumentException If the table name is not valid.
+     */
+    public static void validateTableName(String tableName) {
+        validate(QUALIFIED_TABLE_NAME, tableName, "table name");
+    }
+
+    /**
+     * Checks a table name derived from a file name or a column name derived from a header like
+     * {@link #validateSqlIdentifier}, allowing whitespace and parentheses as well.
+     *
+     * @param identifier The table or column name.
+     * @throws IllegalArgumentException If the identifier is not valid.
+     */
+    public static void validateFileIdentifier(String identifier) {
+        validate(FILE_IDENTIFIER, identifier, "SQL identifier");
+    }
+
+    private static void validate(Pattern pattern, String identifier, String kind) {
+        if (identifier == null || !pattern.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid " + kind + ": " + identifier);
+        }
+    }
+
     /**
      * Sanitizes the name by replacing spaces with underscores and performing other necessary transformations.
      *
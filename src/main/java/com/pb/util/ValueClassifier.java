@@ -0,0 +1,318 @@
+package com.pb.util;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import static com.pb.util.ColumnType.BOOLEAN;
+import static com.pb.util.ColumnType.INTEGER;
+import static com.pb.util.ColumnType.NUMERIC;
+import static com.pb.util.ColumnType.TEXT;
+import static com.pb.util.ColumnType.TIMESTAMP;
+
+/**
+ * Classifies text values by scanning their characters once, without throwing or allocating.
+ * <p>
+ * The checks accept exactly what the converters in {@link ValueConverter} accept: {@link Integer#parseInt},
+ * {@link Long#parseLong}, {@link Double#parseDouble} (for values containing a '.'), {@link java.sql.Date#valueOf},
+ * {@link java.sql.Timestamp#valueOf} and {@link BooleanUtils#toBooleanObject(String)}. Only hexadecimal
+ * floating-point literals, which are rare in data files, are handed to {@link Double#parseDouble} itself.
+ */
+public final class ValueClassifier {
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    private ValueClassifier() {
+    }
+
+    /**
+     * Determines the column type of a text value.
+     *
+     * @param value The value to check.
+     * @return The determined column type; {@code TEXT} for null or empty values.
+     */
+    public static ColumnType classify(String value) {
+        if (value == null || value.isEmpty()) {
+            return TEXT;
+        }
+        if (isInteger(value)) {
+            return INTEGER;
+        }
+        if (isNumeric(value)) {
+            return NUMERIC;
+        }
+        if (isTimestamp(value)) {
+            return TIMESTAMP;
+        }
+        if (isBoolean(value)) {
+            return BOOLEAN;
+        }
+        return TEXT;
+    }
+
+    /**
+     * Checks whether {@link Integer#parseInt} accepts the value.
+     */
+    public static boolean isInteger(String value) {
+        return parseInt(value, 0, value.length()) != NOT_A_NUMBER;
+    }
+
+    /**
+     * Checks whether {@link Long#parseLong} accepts the value.
+     */
+    public static boolean isLong(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == length) {
+                return false;
+            }
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0 || result < limit / 10) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the value is a plain decimal such as {@code -12.50}: an optional sign, ASCII digits and at most
+     * one '.', without exponent or surrounding whitespace. {@link java.math.BigDecimal#BigDecimal(String)} accepts
+     * such values and keeps all of their digits.
+     */
+    public static boolean isPlainDecimal(String value) {
+        int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        int digits = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (isAsciiDigit(c)) {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return false;
+            }
+        }
+        return digits > 0;
+    }
+
+    /**
+     * Checks whether {@link Double#parseDouble} accepts the value and the value contains a '.'.
+     */
+    public static boolean isNumeric(String value) {
+        if (value.indexOf('.') < 0) {
+            return false;
+        }
+        int end = value.length();
+        int i = 0;
+        while (i < end && value.charAt(i) <= ' ') {
+            i++;
+        }
+        while (end > i && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        if (i + 1 < end && value.charAt(i) == '0' && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')) {
+            return isHexNumeric(value);
+        }
+
+        int digits = 0;
+        while (i < end && isAsciiDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && value.charAt(i) == '.') {
+            i++;
+            while (i < end && isAsciiDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isAsciiDigit(value.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        if (i < end && "fFdD".indexOf(value.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == end;
+    }
+
+    /**
+     * Checks whether {@link java.sql.Timestamp#valueOf} accepts the value, following its parsing steps.
+     */
+    public static boolean isTimestamp(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int space = indexOf(value, ' ', start, end);
+        if (space < 0) {
+            return false;
+        }
+
+        int firstDash = indexOf(value, '-', start, space);
+        int secondDash = indexOf(value, '-', firstDash < 0 ? start : firstDash + 1, space);
+        if (firstDash - start != 4 || secondDash < 0 || secondDash >= space - 1
+                || secondDash - firstDash <= 1 || secondDash - firstDash > 3 || space - secondDash > 3) {
+            return false;
+        }
+        long month = parseInt(value, firstDash + 1, secondDash);
+        long day = parseInt(value, secondDash + 1, space);
+        if (parseInt(value, start, firstDash) == NOT_A_NUMBER || month < 1 || month > 12 || day < 1 || day > 31) {
+            return false;
+        }
+
+        int time = space + 1;
+        int firstColon = indexOf(value, ':', time, end);
+        int secondColon = indexOf(value, ':', firstColon < 0 ? time : firstColon + 1, end);
+        int period = indexOf(value, '.', secondColon < 0 ? time : secondColon + 1, end);
+        if (firstColon <= time || secondColon <= time || secondColon >= end - 1) {
+            return false;
+        }
+        if (parseInt(value, time, firstColon) == NOT_A_NUMBER || parseInt(value, firstColon + 1, secondColon) == NOT_A_NUMBER) {
+            return false;
+        }
+        if (period > time && period < end - 1) {
+            return end - (period + 1) <= 9
+                    && Character.isDigit(value.charAt(period + 1))
+                    && parseInt(value, secondColon + 1, period) != NOT_A_NUMBER
+                    && parseInt(value, period + 1, end) != NOT_A_NUMBER;
+        }
+        return period <= time && parseInt(value, secondColon + 1, end) != NOT_A_NUMBER;
+    }
+
+    /**
+     * Checks whether {@link java.sql.Date#valueOf} accepts the value, following its parsing steps.
+     */
+    public static boolean isDate(String value) {
+        int length = value.length();
+        int firstDash = value.indexOf('-');
+        int secondDash = value.indexOf('-', firstDash + 1);
+        if (firstDash != 4 || secondDash < 0 || secondDash >= length - 1
+                || secondDash - firstDash <= 1 || secondDash - firstDash > 3 || length - secondDash > 3) {
+            return false;
+        }
+        long month = parseInt(value, firstDash + 1, secondDash);
+        long day = parseInt(value, secondDash + 1, length);
+        return parseInt(value, 0, firstDash) != NOT_A_NUMBER && month >= 1 && month <= 12 && day >= 1 && day <= 31;
+    }
+
+    /**
+     * Checks whether the value is a UUID in its canonical form, {@code 8-4-4-4-12} hexadecimal digits.
+     */
+    public static boolean isUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : Character.digit(c, 16) < 0 || c > 'f') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether {@link BooleanUtils#toBooleanObject(String)} recognizes the value.
+     */
+    public static boolean isBoolean(String value) {
+        return BooleanUtils.toBooleanObject(value) != null;
+    }
+
+    /**
+     * Parses {@code value[from, to)} like {@link Integer#parseInt(CharSequence, int, int, int)} with radix 10.
+     *
+     * @return The value, or {@link #NOT_A_NUMBER} if {@code parseInt} would throw.
+     */
+    private static long parseInt(String value, int from, int to) {
+        if (from >= to) {
+            return NOT_A_NUMBER;
+        }
+        boolean negative = false;
+        char first = value.charAt(from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            from++;
+            if (from == to) {
+                return NOT_A_NUMBER;
+            }
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                return NOT_A_NUMBER;
+            }
+            result = result * 10 + digit;
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                return NOT_A_NUMBER;
+            }
+        }
+        if (negative) {
+            return -result;
+        }
+        return result > Integer.MAX_VALUE ? NOT_A_NUMBER : result;
+    }
+
+    private static int indexOf(String value, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexNumeric(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
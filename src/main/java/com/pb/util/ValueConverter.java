@@ -0,0 +1,180 @@
+package com.pb.util;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+public class ValueConverter {
+
+    /**
+     * Converts a text value (as read from a CSV file) into the Java value for the column type.
+     *
+     * @param value      The text value.
+     * @param columnType The column type.
+     * @return The converted value, or null for an empty value.
+     * @throws IllegalArgumentException if the value does not fit the column type.
+     */
+    public static Object fromText(String value, String columnType) {
+        return fromText(value, SqlType.parse(columnType));
+    }
+
+    /**
+     * Converts a text value into the Java value for the column type, see {@link #fromText(String, String)}.
+     */
+    public static Object fromText(String value, SqlType columnType) {
+        return compile(columnType, true).convert(value);
+    }
+
+    /**
+     * Creates the converter for a column, so the row loop calls one specialized converter per value instead of
+     * dispatching on the column type.
+     *
+     * @param columnType The column type.
+     * @param textValues Whether the source values are text (CSV), converted like {@link #fromText(String, String)},
+     *                   rather than typed values (DBF, XLSX), converted like {@link #fromObject(Object, String)}.
+     * @return The converter.
+     */
+    public static ColumnConverter compile(SqlType columnType, boolean textValues) {
+        return textValues ? compileText(columnType) : compileObject(columnType);
+    }
+
+    private static ColumnConverter compileText(SqlType columnType) {
+        return switch (columnType.base()) {
+            case SMALLINT -> value -> isEmpty(value) ? null : Short.parseShort((String) value);
+            case INTEGER -> value -> isEmpty(value) ? null : Integer.parseInt((String) value);
+            case BIGINT -> value -> isEmpty(value) ? null : Long.parseLong((String) value);
+            case NUMERIC -> value -> isEmpty(value) ? null : checkDecimal(parseDecimal((String) value), columnType, value);
+            case DOUBLE_PRECISION -> value -> isEmpty(value) ? null : Double.parseDouble((String) value);
+            case DATE -> value -> isEmpty(value) ? null : java.sql.Date.valueOf((String) value);
+            case TIMESTAMP -> value -> isEmpty(value) ? null : Timestamp.valueOf((String) value);
+            case BOOLEAN -> value -> isEmpty(value) ? null : parseBoolean((String) value);
+            case UUID -> value -> isEmpty(value) ? null : UUID.fromString((String) value);
+            case VARCHAR -> value -> isEmpty(value) ? null : checkLength((String) value, columnType);
+            default -> value -> isEmpty(value) ? null : value;
+        };
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value == null || ((String) value).isEmpty();
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (ValueClassifier.isPlainDecimal(value)) {
+            return new BigDecimal(value);
+        }
+        return BigDecimal.valueOf(Double.parseDouble(value));
+    }
+
+    private static BigDecimal checkDecimal(BigDecimal value, SqlType columnType, Object text) {
+        if (!fits(value, columnType)) {
+            throw new IllegalArgumentException("Value " + text + " does not fit " + columnType);
+        }
+        return value;
+    }
+
+    private static String checkLength(String value, SqlType columnType) {
+        if (value.length() > columnType.precision()) {
+            throw new IllegalArgumentException("Value " + value + " does not fit " + columnType);
+        }
+        return value;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        Boolean result = BooleanUtils.toBooleanObject(value);
+        if (result == null) {
+            throw new IllegalArgumentException("Not a boolean: " + value);
+        }
+        return result;
+    }
+
+    /**
+     * Converts a typed value (as read from a DBF or XLSX file) into the Java value for the column type.
+     * Values that do not fit the column type are converted to null.
+     *
+     * @param value      The source value.
+     * @param columnType The column type.
+     * @return The converted value.
+     */
+    public static Object fromObject(Object value, String columnType) {
+        return fromObject(value, SqlType.parse(columnType));
+    }
+
+    /**
+     * Converts a typed value into the Java value for the column type, see {@link #fromObject(Object, String)}.
+     * Numbers are only converted if no digits are lost.
+     */
+    public static Object fromObject(Object value, SqlType columnType) {
+        return compile(columnType, false).convert(value);
+    }
+
+    private static ColumnConverter compileObject(SqlType columnType) {
+        int length = columnType.precision();
+        return switch (columnType.base()) {
+            case SMALLINT -> value -> exactLong(value) instanceof Long l && l == l.shortValue() ? l.shortValue() : null;
+            case INTEGER -> value -> exactLong(value) instanceof Long l && l == l.intValue() ? l.intValue() : null;
+            case BIGINT -> ValueConverter::exactLong;
+            case NUMERIC -> value -> toDecimal(value) instanceof BigDecimal d && fits(d, columnType) ? d : null;
+            case DOUBLE_PRECISION -> value -> value instanceof Number number ? number.doubleValue() : null;
+            case DATE -> value -> value instanceof Date date && SqlType.isMidnight(date) ? new java.sql.Date(date.getTime()) : null;
+            case TIMESTAMP -> value -> value instanceof Date date ? new Timestamp(date.getTime()) : null;
+            case BOOLEAN -> value -> value instanceof Boolean ? value : null;
+            case UUID -> value -> value instanceof UUID ? value : null;
+            case VARCHAR -> value -> value == null || value.toString().length() > length ? null : value.toString();
+            default -> value -> value == null ? null : value.toString();
+        };
+    }
+
+    private static Long exactLong(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Byte b -> (long) b;
+            case Short s -> (long) s;
+            case Integer i -> (long) i;
+            case Long l -> l;
+            case BigInteger i -> i.bitLength() < 64 ? i.longValue() : null;
+            case BigDecimal d -> {
+                try {
+                    yield d.longValueExact();
+                } catch (ArithmeticException e) {
+                    yield null;
+                }
+            }
+            case Number number -> {
+                double d = number.doubleValue();
+                yield d == Math.rint(d) && Math.abs(d) < 0x1p63 ? (long) d : null;
+            }
+            default -> null;
+        };
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        return switch (value) {
+            case null -> null;
+            case BigDecimal d -> d;
+            case BigInteger i -> new BigDecimal(i);
+            case Byte b -> BigDecimal.valueOf(b);
+            case Short s -> BigDecimal.valueOf(s);
+            case Integer i -> BigDecimal.valueOf(i);
+            case Long l -> BigDecimal.valueOf(l);
+            case Number number -> Double.isFinite(number.doubleValue()) ? BigDecimal.valueOf(number.doubleValue()) : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * Checks that a decimal keeps all of its digits in the column type: at most {@code scale} fractional digits
+     * (trailing zeros aside) and at most {@code precision - scale} integer digits.
+     */
+    private static boolean fits(BigDecimal value, SqlType columnType) {
+        if (columnType.precision() == 0) {
+            return true;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        int integerDigits = Math.max(0, stripped.precision() - stripped.scale());
+        return stripped.scale() <= columnType.scale() && integerDigits <= columnType.precision() - columnType.scale();
+    }
+}
@@ -0,0 +1,146 @@
+package com.pb.writer;
+
+import com.pb.util.ColumnType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Writes rows with a prepared INSERT statement, sending them in batches whose size is chosen by a {@link BatchSizer}.
+ * <p>
+ * With more than one row per statement the rows are sent as {@code INSERT ... VALUES (...),(...),...}, so every
+ * statement of a batch carries several rows. Rows that do not fill a whole statement when the writer finishes are
+ * sent with the single-row statement.
+ */
+public class BatchInsertRowWriter implements RowWriter {
+    private static final Logger log = Logger.getLogger(BatchInsertRowWriter.class.getName());
+    private static final int MAX_PARAMETERS = 32767;
+
+    private final Connection connection;
+    private final String insertSQL;
+    private final PreparedStatement preparedStatement;
+    private final ColumnBinder[] binders;
+    private final int[] sqlTypes;
+    private final int columnCount;
+    private final BatchSizer batchSizer;
+    private final int rowsPerStatement;
+    private final Object[][] pendingRows;
+    private PreparedStatement singleRowStatement;
+    private int pending;
+    private int count;
+    private long bytes;
+    private long total;
+
+    public BatchInsertRowWriter(Connection connection, String insertSQL, Map<Integer, String> columnTypes) throws SQLException {
+        this(connection, insertSQL, columnTypes, BatchSizer.fixed(PostgresDatabaseWriter.BATCH_SIZE), 1);
+    }
+
+    /**
+     * @param insertSQL        The INSERT statement of a single row, ending with its {@code VALUES (?,...)}.
+     * @param batchSizer       Chooses the number of rows per batch.
+     * @param rowsPerStatement The number of rows per statement; limited so that a statement has at most 32767
+     *                         parameters.
+     */
+    public BatchInsertRowWriter(Connection connection, String insertSQL, Map<Integer, String> columnTypes, BatchSizer batchSizer,
+                                int rowsPerStatement) throws SQLException {
+        this.connection = connection;
+        this.insertSQL = insertSQL;
+        this.columnCount = columnTypes.size();
+        this.batchSizer = batchSizer;
+        this.rowsPerStatement = Math.max(1, Math.min(rowsPerStatement, MAX_PARAMETERS / Math.max(1, columnCount)));
+        this.pendingRows = new Object[this.rowsPerStatement][];
+        this.binders = new ColumnBinder[columnCount];
+        this.sqlTypes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            ColumnType columnType = ColumnType.of(columnTypes.get(i));
+            binders[i] = ColumnBinder.of(columnType);
+            sqlTypes[i] = PostgresDatabaseWriter.getSqlType(columnType);
+        }
+        String valuesRow = insertSQL.substring(insertSQL.lastIndexOf("VALUES") + "VALUES".length()).trim();
+        this.preparedStatement = connection.prepareStatement(insertSQL + ("," + valuesRow).repeat(this.rowsPerStatement - 1));
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        for (int i = 0; i < columnCount; i++) {
+            Object value = values[i];
+            bytes += value instanceof CharSequence text ? text.length() : 8;
+        }
+        pendingRows[pending++] = values;
+        if (pending == rowsPerStatement) {
+            bindRows(preparedStatement, pendingRows, pending);
+            preparedStatement.addBatch();
+            count += pending;
+            pending = 0;
+            if (count >= batchSizer.size()) {
+                executeBatch();
+            }
+        }
+    }
+
+    @Override
+    public long finish() throws Exception {
+        if (pending > 0) {
+            if (singleRowStatement == null) {
+                singleRowStatement = connection.prepareStatement(insertSQL);
+            }
+            for (int row = 0; row < pending; row++) {
+                bindRows(singleRowStatement, new Object[][]{pendingRows[row]}, 1);
+                singleRowStatement.addBatch();
+            }
+        }
+        if (count > 0 || pending > 0) {
+            executeBatch();
+        }
+        log.info("Inserted " + total + " rows, " + rowsPerStatement + " row(s) per statement, " + batchSizer.summary() + ".");
+        return total;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        preparedStatement.close();
+        if (singleRowStatement != null) {
+            singleRowStatement.close();
+        }
+    }
+
+    private void bindRows(PreparedStatement statement, Object[][] rows, int rowCount) throws SQLException {
+        int parameter = 1;
+        for (int row = 0; row < rowCount; row++) {
+            Object[] values = rows[row];
+            for (int i = 0; i < columnCount; i++, parameter++) {
+                Object value = values[i];
+                if (value == null) {
+                    statement.setNull(parameter, sqlTypes[i]);
+                } else {
+                    binders[i].bind(statement, parameter, value);
+                }
+            }
+            rows[row] = null;
+        }
+    }
+
+    /**
+     * Sends the batched statements, including the single-row statements of the last rows if there are any.
+     */
+    private void executeBatch() throws SQLException {
+        long start = System.nanoTime();
+        int rows = count;
+        if (count > 0) {
+            preparedStatement.executeBatch();
+        }
+        if (pending > 0) {
+            singleRowStatement.executeBatch();
+            rows += pending;
+            pending = 0;
+        }
+        batchSizer.record(rows, bytes, System.nanoTime() - start);
+        total += rows;
+        log.fine(rows + " rows have been inserted into the table.");
+        count = 0;
+        bytes = 0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.pb.writer;
+
+/**
+ * Chooses the number of rows per batch of a load. It measures the time and the value bytes of every batch sent and
+ * steers the batch size towards a target duration per batch, so narrow rows are sent in large batches and wide
+ * rows in small ones, without letting a batch grow beyond a byte limit. A batch can at most double the size of
+ * the next one, while shrinking takes effect at once.
+ * <p>
+ * Shared by the writers of one load, which may run on several threads.
+ */
+public class BatchSizer {
+    private static final double SMOOTHING = 0.3;
+
+    private final long targetNanos;
+    private final long maxBytes;
+    private final int minRows;
+    private final int maxRows;
+    private int size;
+    private double nanosPerRow;
+    private double bytesPerRow;
+    private long batches;
+    private long rows;
+    private long bytes;
+    private long nanos;
+
+    /**
+     * @param initialRows The size of the first batch.
+     * @param targetMillis The duration to aim for per batch, or 0 to keep the initial size.
+     * @param minRows     The smallest batch size.
+     * @param maxRows     The largest batch size.
+     * @param maxBytes    The largest number of value bytes per batch.
+     */
+    public BatchSizer(int initialRows, long targetMillis, int minRows, int maxRows, long maxBytes) {
+        this.minRows = Math.max(1, minRows);
+        this.maxRows = Math.max(this.minRows, maxRows);
+        this.size = Math.max(this.minRows, Math.min(this.maxRows, initialRows));
+        this.targetNanos = targetMillis * 1_000_000;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a sizer that always uses the given size.
+     */
+    public static BatchSizer fixed(int rows) {
+        return new BatchSizer(rows, 0, rows, rows, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return The number of rows of the next batch.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Records a batch that was sent and adjusts the size of the next one.
+     *
+     * @param batchRows  The number of rows of the batch.
+     * @param batchBytes The estimated size of the values of the batch.
+     * @param batchNanos The time it took to send the batch.
+     */
+    public synchronized void record(int batchRows, long batchBytes, long batchNanos) {
+        if (batchRows <= 0) {
+            return;
+        }
+        batches++;
+        rows += batchRows;
+        bytes += batchBytes;
+        nanos += batchNanos;
+        nanosPerRow = smooth(nanosPerRow, (double) batchNanos / batchRows);
+        bytesPerRow = smooth(bytesPerRow, (double) batchBytes / batchRows);
+        if (targetNanos <= 0 || batchRows < size) {
+            return;
+        }
+        double next = targetNanos / Math.max(1, nanosPerRow);
+        next = Math.min(next, maxBytes / Math.max(1, bytesPerRow));
+        next = Math.min(next, 2.0 * size);
+        size = (int) Math.max(minRows, Math.min(maxRows, next));
+    }
+
+    /**
+     * Describes the chosen size and the batches sent so far, for the log.
+     */
+    public synchronized String summary() {
+        if (batches == 0) {
+            return "no batches sent, batch size " + size + " rows";
+        }
+        return batches + " batches, batch size " + size + " rows (average " + rows / batches + " rows, "
+                + bytes / batches / 1024 + " KB and " + nanos / batches / 1_000_000 + " ms per batch)";
+    }
+
+    private static double smooth(double average, double value) {
+        return average == 0 ? value : average + SMOOTHING * (value - average);
+    }
+}
@@ -0,0 +1,66 @@
+package com.pb.writer;
+
+import com.pb.util.ColumnType;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Writes rows with PostgreSQL {@code COPY ... FROM STDIN (FORMAT BINARY)}.
+ * Converted values are encoded in the server's binary representation, so numbers, dates, timestamps, booleans and
+ * UUIDs are never formatted to text on the client or parsed on the server.
+ */
+public class BinaryCopyRowWriter implements RowWriter {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final Logger log = Logger.getLogger(BinaryCopyRowWriter.class.getName());
+
+    private final CopyIn copyIn;
+    private final PgBinaryCopyEncoder encoder;
+    private final ColumnEncoder[] encoders;
+    private final int columnCount;
+
+    public BinaryCopyRowWriter(Connection connection, String copySQL, Map<Integer, String> columnTypes) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySQL);
+        this.encoder = new PgBinaryCopyEncoder(copyIn::writeToCopy, BUFFER_SIZE);
+        this.columnCount = columnTypes.size();
+        this.encoders = new ColumnEncoder[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            encoders[i] = ColumnEncoder.of(ColumnType.of(columnTypes.get(i)));
+        }
+        encoder.writeHeader();
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        encoder.startRow(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            Object value = values[i];
+            if (value == null) {
+                encoder.writeNull();
+            } else {
+                encoders[i].encode(encoder, value);
+            }
+        }
+    }
+
+    @Override
+    public long finish() throws Exception {
+        encoder.writeTrailer();
+        encoder.flush();
+        long rows = copyIn.endCopy();
+        log.info(rows + " rows have been copied into the table.");
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+}
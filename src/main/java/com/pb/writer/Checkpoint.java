@@ -0,0 +1,19 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Work done inside the transaction of a {@link RowWriter#commit}, such as recording how far the source has been
+ * loaded, so that it is committed together with the rows or not at all.
+ */
+@FunctionalInterface
+public interface Checkpoint {
+
+    /**
+     * @param connection  The connection of the transaction; must not be committed or closed.
+     * @param columnTypes The current column types of the table, including any widened columns.
+     */
+    void save(Connection connection, Map<Integer, String> columnTypes) throws SQLException;
+}
@@ -0,0 +1,106 @@
+package com.pb.writer;
+
+import com.pb.filereader.SourcePosition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static com.pb.util.TableNameUtil.validateTableName;
+
+/**
+ * Keeps the progress of checkpointed loads in a table of the target database, one row per loaded table: the
+ * fingerprint of the source, how far it has been committed and the column types at that point. The row is written
+ * in the transaction of the rows it describes (see {@link Checkpoint}), so it never runs ahead of the data.
+ */
+public class CheckpointStore {
+    private static final String TYPE_SEPARATOR = ";";
+
+    private final String progressTable;
+
+    /**
+     * The committed progress of a load.
+     */
+    public record Progress(String fingerprint, SourcePosition position, Map<Integer, String> columnTypes) {
+    }
+
+    public CheckpointStore(String progressTable) {
+        validateTableName(progressTable);
+        this.progressTable = progressTable;
+    }
+
+    /**
+     * Creates the progress table if it does not exist yet.
+     */
+    public void createTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + progressTable + " ("
+                    + "table_name VARCHAR(255) PRIMARY KEY, "
+                    + "fingerprint VARCHAR(255) NOT NULL, "
+                    + "rows_committed BIGINT NOT NULL, "
+                    + "source_offset BIGINT NOT NULL, "
+                    + "column_types TEXT NOT NULL, "
+                    + "updated_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    /**
+     * @return The committed progress of the table, or null if no load of it is in progress.
+     */
+    public Progress find(Connection connection, String tableName) throws SQLException {
+        String sql = "SELECT fingerprint, rows_committed, source_offset, column_types FROM " + progressTable + " WHERE table_name = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                Map<Integer, String> columnTypes = new HashMap<>();
+                String[] types = resultSet.getString(4).split(TYPE_SEPARATOR);
+                for (int i = 0; i < types.length; i++) {
+                    columnTypes.put(i, types[i]);
+                }
+                return new Progress(resultSet.getString(1), new SourcePosition(resultSet.getLong(2), resultSet.getLong(3)), columnTypes);
+            }
+        }
+    }
+
+    /**
+     * Replaces the progress of the table, in the current transaction of the connection.
+     */
+    public void save(Connection connection, String tableName, String fingerprint, SourcePosition position,
+                     Map<Integer, String> columnTypes) throws SQLException {
+        delete(connection, tableName);
+        StringJoiner types = new StringJoiner(TYPE_SEPARATOR);
+        for (int i = 0; i < columnTypes.size(); i++) {
+            types.add(columnTypes.get(i));
+        }
+        String sql = "INSERT INTO " + progressTable
+                + " (table_name, fingerprint, rows_committed, source_offset, column_types, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            statement.setString(2, fingerprint);
+            statement.setLong(3, position.rows());
+            statement.setLong(4, position.offset());
+            statement.setString(5, types.toString());
+            statement.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes the progress of the table, in the current transaction of the connection.
+     */
+    public void delete(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + progressTable + " WHERE table_name = ?")) {
+            statement.setString(1, tableName);
+            statement.executeUpdate();
+        }
+    }
+}
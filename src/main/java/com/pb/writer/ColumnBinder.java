@@ -0,0 +1,39 @@
+package com.pb.writer;
+
+import com.pb.util.ColumnType;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Binds the converted values of one column to a statement parameter. Binders are created once per column by
+ * {@link #of}, so the row loop neither looks up the column type nor switches on it for every value.
+ */
+@FunctionalInterface
+public interface ColumnBinder {
+
+    /**
+     * @param value The converted value, never null; nulls are bound with {@code setNull} by the caller.
+     */
+    void bind(PreparedStatement statement, int parameterIndex, Object value) throws SQLException;
+
+    /**
+     * Returns the binder for values of the column type, as converted by {@link com.pb.util.ValueConverter}.
+     */
+    static ColumnBinder of(ColumnType columnType) {
+        return switch (columnType) {
+            case SMALLINT -> (statement, index, value) -> statement.setShort(index, (Short) value);
+            case INTEGER -> (statement, index, value) -> statement.setInt(index, (Integer) value);
+            case BIGINT -> (statement, index, value) -> statement.setLong(index, (Long) value);
+            case NUMERIC -> (statement, index, value) -> statement.setBigDecimal(index, (BigDecimal) value);
+            case DOUBLE_PRECISION -> (statement, index, value) -> statement.setDouble(index, (Double) value);
+            case DATE -> (statement, index, value) -> statement.setDate(index, (java.sql.Date) value);
+            case TIMESTAMP -> (statement, index, value) -> statement.setTimestamp(index, (Timestamp) value);
+            case BOOLEAN -> (statement, index, value) -> statement.setBoolean(index, (Boolean) value);
+            case UUID -> PreparedStatement::setObject;
+            default -> (statement, index, value) -> statement.setString(index, value.toString());
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.pb.writer;
+
+import com.pb.util.ColumnType;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Writes the converted values of one column in the binary COPY format. Encoders are created once per column by
+ * {@link #of}, like {@link ColumnBinder}s for batched inserts.
+ */
+@FunctionalInterface
+public interface ColumnEncoder {
+
+    /**
+     * @param value The converted value, never null; nulls are written with {@code writeNull} by the caller.
+     */
+    void encode(PgBinaryCopyEncoder encoder, Object value) throws SQLException;
+
+    /**
+     * Returns the encoder for values of the column type, as converted by {@link com.pb.util.ValueConverter}.
+     */
+    static ColumnEncoder of(ColumnType columnType) {
+        return switch (columnType) {
+            case SMALLINT -> (encoder, value) -> encoder.writeInt2((Short) value);
+            case INTEGER -> (encoder, value) -> encoder.writeInt4((Integer) value);
+            case BIGINT -> (encoder, value) -> encoder.writeInt8((Long) value);
+            case NUMERIC -> (encoder, value) -> encoder.writeNumeric((BigDecimal) value);
+            case DOUBLE_PRECISION -> (encoder, value) -> encoder.writeFloat8((Double) value);
+            case DATE -> (encoder, value) -> encoder.writeDate((java.sql.Date) value);
+            case TIMESTAMP -> (encoder, value) -> encoder.writeTimestamp((Timestamp) value);
+            case BOOLEAN -> (encoder, value) -> encoder.writeBoolean((Boolean) value);
+            case UUID -> (encoder, value) -> encoder.writeUuid((UUID) value);
+            default -> (encoder, value) -> encoder.writeText(value.toString());
+        };
+    }
+}
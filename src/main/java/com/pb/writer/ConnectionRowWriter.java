@@ -0,0 +1,77 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a writer inside one transaction on its own connection: {@link #finish()} commits the rows,
+ * {@link #close()} rolls back anything not committed and closes the connection. {@link #commit} ends the
+ * transaction early and starts the next one.
+ */
+public class ConnectionRowWriter implements RowWriter {
+    private final Connection connection;
+    private final RowWriterFactory factory;
+    private final Map<Integer, String> columnTypes;
+    private RowWriter target;
+    private long written;
+    private boolean finished;
+
+    public ConnectionRowWriter(Connection connection, RowWriterFactory factory, Map<Integer, String> columnTypes) throws Exception {
+        this.connection = connection;
+        this.factory = factory;
+        this.columnTypes = new HashMap<>(columnTypes);
+        this.target = factory.create(connection, this.columnTypes);
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        target.writeRow(values);
+    }
+
+    /**
+     * Sends the pending rows, alters the column inside the same transaction and continues with a new target writer.
+     */
+    @Override
+    public void changeColumnType(int columnIndex, String columnType) throws Exception {
+        written += target.finish();
+        target.close();
+        factory.alterColumnType(connection, columnIndex, columnType);
+        columnTypes.put(columnIndex, columnType);
+        target = factory.create(connection, columnTypes);
+    }
+
+    /**
+     * Sends the pending rows, saves the checkpoint and commits, then continues with a new target writer.
+     */
+    @Override
+    public long commit(Checkpoint checkpoint) throws Exception {
+        written += target.finish();
+        target.close();
+        checkpoint.save(connection, columnTypes);
+        connection.commit();
+        target = factory.create(connection, columnTypes);
+        return written;
+    }
+
+    @Override
+    public long finish() throws Exception {
+        long total = written + target.finish();
+        connection.commit();
+        finished = true;
+        return total;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            target.close();
+            if (!finished) {
+                connection.rollback();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+}
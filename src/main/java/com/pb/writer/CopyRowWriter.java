@@ -0,0 +1,97 @@
+package com.pb.writer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Writes rows with PostgreSQL {@code COPY ... FROM STDIN} in text format.
+ * Rows are encoded into a local buffer and sent to the server in chunks of about {@link #FLUSH_SIZE} characters.
+ */
+public class CopyRowWriter implements RowWriter {
+    static final int FLUSH_SIZE = 64 * 1024;
+    private static final Logger log = Logger.getLogger(CopyRowWriter.class.getName());
+
+    private final CopyIn copyIn;
+    private final int columnCount;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 1024);
+    private long total;
+
+    public CopyRowWriter(Connection connection, String copySQL, Map<Integer, String> columnTypes) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySQL);
+        this.columnCount = columnTypes.size();
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        appendRow(buffer, values, columnCount);
+        total++;
+        if (buffer.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public long finish() throws Exception {
+        flush();
+        long rows = copyIn.endCopy();
+        log.info(rows + " rows have been copied into the table.");
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends a row in COPY text format: tab separated values terminated by a newline, {@code \N} for null.
+     */
+    static void appendRow(StringBuilder buffer, Object[] values, int columnCount) {
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                buffer.append("\\N");
+            } else if (value instanceof Boolean b) {
+                buffer.append(b ? 't' : 'f');
+            } else if (value instanceof Number) {
+                buffer.append(value);
+            } else {
+                appendEscaped(buffer, value.toString());
+            }
+        }
+        buffer.append('\n');
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
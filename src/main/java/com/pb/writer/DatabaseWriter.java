@@ -5,5 +5,28 @@ import java.util.Map;
 
 public interface DatabaseWriter {
     void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception;
+
+    /**
+     * Creates a table that is loaded under a staging name and published later, see {@link StagingTable}. Such a
+     * table need not survive a crash; the default creates an ordinary table.
+     */
+    default void createStagingTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
+        createTable(headers, columnTypes, tableName);
+    }
+
     void insertData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension, InputStream inputStream) throws Exception;
+
+    /**
+     * Opens a writer that accepts rows as they are read from a file with the given extension.
+     * The rows are committed by {@link RowWriter#finish()}; closing the writer without finishing rolls them back.
+     */
+    default RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension) throws Exception {
+        return openRowWriter(headers, columnTypes, tableName, extension, RowWriterOptions.DEFAULT);
+    }
+
+    /**
+     * Opens a writer like {@link #openRowWriter(Map, Map, String, String)} for a load of the given kind.
+     */
+    RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                            RowWriterOptions options) throws Exception;
 }
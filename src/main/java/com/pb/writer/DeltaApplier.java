@@ -0,0 +1,180 @@
+package com.pb.writer;
+
+import com.pb.util.SqlType;
+import com.pb.util.TableNameUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.logging.Logger;
+
+import static com.pb.util.TableNameUtil.validateSqlIdentifier;
+
+/**
+ * Applies a freshly loaded staging table to an existing table as inserts, updates and deletes, matching rows on
+ * key columns. Both tables carry a {@link #ROW_HASH_COLUMN} with the {@link com.pb.util.RowHash} of each row, so
+ * rows whose content did not change are left alone and only the difference is written.
+ */
+public class DeltaApplier {
+    /**
+     * The column that holds the hash of the other columns of a row.
+     */
+    public static final String ROW_HASH_COLUMN = "_row_hash";
+
+    private static final Logger log = Logger.getLogger(DeltaApplier.class.getName());
+
+    private final List<String> keyColumns;
+
+    /**
+     * The number of rows changed by {@link #apply}.
+     */
+    public record Result(int inserted, int updated, int deleted) {
+    }
+
+    /**
+     * @param keyColumns The columns that identify a row; their values must be unique and not null.
+     */
+    public DeltaApplier(List<String> keyColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Delta loads need at least one key column");
+        }
+        keyColumns.forEach(TableNameUtil::validateSqlIdentifier);
+        this.keyColumns = List.copyOf(keyColumns);
+    }
+
+    /**
+     * Returns whether the table exists and has a {@link #ROW_HASH_COLUMN}, i.e. a delta can be applied to it.
+     * Runs outside of any transaction.
+     */
+    public boolean hasRowHashes(Connection connection, String tableName) {
+        try {
+            return columnTypes(connection, tableName).keySet().stream().anyMatch(ROW_HASH_COLUMN::equalsIgnoreCase);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the unique index on the key columns that the lookups of {@link #apply} need.
+     */
+    public void createKeyIndex(Connection connection, String tableName) throws SQLException {
+        validateSqlIdentifier(tableName);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + tableName + "_delta_key ON " + tableName + " (" + String.join(",", keyColumns) + ")");
+        }
+    }
+
+    /**
+     * Applies the staging table to the target table in one transaction. Target columns narrower than their staging
+     * column are widened first.
+     *
+     * @param connection   The connection; committed on success and rolled back on failure.
+     * @param stagingTable The table holding the new content of the target table.
+     * @param targetTable  The table to update.
+     * @return The number of rows inserted, updated and deleted.
+     * @throws IllegalStateException if the columns of the tables differ or the staging keys are null or not unique.
+     */
+    public Result apply(Connection connection, String stagingTable, String targetTable) throws SQLException {
+        validateSqlIdentifier(stagingTable);
+        validateSqlIdentifier(targetTable);
+        Map<String, SqlType> stagingTypes = columnTypes(connection, stagingTable);
+        Map<String, SqlType> targetTypes = columnTypes(connection, targetTable);
+        if (!stagingTypes.keySet().equals(targetTypes.keySet())) {
+            throw new IllegalStateException("Columns of " + targetTable + " " + targetTypes.keySet() + " differ from the file "
+                    + stagingTypes.keySet() + ", drop the table to load it in full");
+        }
+        List<String> columns = new ArrayList<>(stagingTypes.keySet());
+        List<String> valueColumns = columns.stream().filter(column -> keyColumns.stream().noneMatch(column::equalsIgnoreCase)).toList();
+        if (valueColumns.size() != columns.size() - keyColumns.size()) {
+            throw new IllegalStateException("Key columns " + keyColumns + " are not all columns of " + targetTable + " " + columns);
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            Dialect.of(connection).analyze(statement, stagingTable);
+            checkKeys(statement, stagingTable);
+            for (String column : columns) {
+                SqlType widened = SqlType.join(targetTypes.get(column), stagingTypes.get(column));
+                if (!widened.equals(targetTypes.get(column))) {
+                    String alterSQL = "ALTER TABLE " + targetTable + " ALTER COLUMN " + column + " SET DATA TYPE " + widened;
+                    log.info("Widening column with SQL: " + alterSQL);
+                    statement.execute(alterSQL);
+                }
+            }
+
+            String keysMatch = keyColumns.stream().map(key -> "s." + key + " = t." + key).reduce((a, b) -> a + " AND " + b).orElseThrow();
+            int deleted = statement.executeUpdate("DELETE FROM " + targetTable + " t WHERE NOT EXISTS (SELECT 1 FROM " + stagingTable
+                    + " s WHERE " + keysMatch + ")");
+            int updated = statement.executeUpdate("UPDATE " + targetTable + " t SET (" + String.join(",", valueColumns) + ") = (SELECT "
+                    + prefixed("s.", valueColumns) + " FROM " + stagingTable + " s WHERE " + keysMatch + ") WHERE EXISTS (SELECT 1 FROM "
+                    + stagingTable + " s WHERE " + keysMatch + " AND s." + ROW_HASH_COLUMN + " <> t." + ROW_HASH_COLUMN + ")");
+            int inserted = statement.executeUpdate("INSERT INTO " + targetTable + " (" + String.join(",", columns) + ") SELECT "
+                    + prefixed("s.", columns) + " FROM " + stagingTable + " s WHERE NOT EXISTS (SELECT 1 FROM " + targetTable
+                    + " t WHERE " + keysMatch + ")");
+            connection.commit();
+            return new Result(inserted, updated, deleted);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Drops the staging table.
+     */
+    public void dropTable(Connection connection, String tableName) throws SQLException {
+        validateSqlIdentifier(tableName);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + tableName);
+        }
+    }
+
+    private void checkKeys(Statement statement, String stagingTable) throws SQLException {
+        String keys = String.join(",", keyColumns);
+        String nullKeys = keyColumns.stream().map(key -> key + " IS NULL").reduce((a, b) -> a + " OR " + b).orElseThrow();
+        try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + stagingTable + " WHERE " + nullKeys)) {
+            if (resultSet.next() && resultSet.getLong(1) > 0) {
+                throw new IllegalStateException(resultSet.getLong(1) + " rows have a null key (" + keys + ")");
+            }
+        }
+        try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM (SELECT " + keys + " FROM " + stagingTable
+                + " GROUP BY " + keys + " HAVING COUNT(*) > 1) d")) {
+            if (resultSet.next() && resultSet.getLong(1) > 0) {
+                throw new IllegalStateException(resultSet.getLong(1) + " keys (" + keys + ") occur more than once in the file");
+            }
+        }
+    }
+
+    /**
+     * Returns the columns of the table with their types, in table order and with lower-case names.
+     */
+    private static Map<String, SqlType> columnTypes(Connection connection, String tableName) throws SQLException {
+        validateSqlIdentifier(tableName);
+        Map<String, SqlType> columnTypes = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + tableName + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columnTypes.put(metaData.getColumnName(i).toLowerCase(), SqlType.ofJdbc(metaData.getColumnType(i),
+                        metaData.getColumnTypeName(i), metaData.getPrecision(i), metaData.getScale(i)));
+            }
+        }
+        return columnTypes;
+    }
+
+    private static String prefixed(String prefix, List<String> columns) {
+        StringJoiner joiner = new StringJoiner(",");
+        columns.forEach(column -> joiner.add(prefix + column));
+        return joiner.toString();
+    }
+}
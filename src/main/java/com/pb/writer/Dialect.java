@@ -0,0 +1,125 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * What the writers need to know about a target database: its fastest way to bulk-load rows and which of the
+ * features used around a load (unlogged tables, session settings, statistics, clustering) it has. The defaults
+ * describe a plain JDBC database that only supports batched single-row inserts.
+ * <p>
+ * The dialect is chosen from the JDBC URL, see {@link #forUrl}. Besides the built-in dialects for PostgreSQL and
+ * H2, further dialects can be registered through {@link ServiceLoader}; they are asked first.
+ */
+public interface Dialect {
+    Dialect POSTGRES = new PostgresDialect();
+    Dialect H2 = new H2Dialect();
+    Dialect GENERIC = () -> "generic";
+
+    /**
+     * Returns the dialect of a JDBC URL: the first registered dialect that accepts it, else the built-in PostgreSQL
+     * or H2 dialect, else {@link #GENERIC}.
+     */
+    static Dialect forUrl(String url) {
+        for (Dialect dialect : ServiceLoader.load(Dialect.class)) {
+            if (dialect.accepts(url)) {
+                return dialect;
+            }
+        }
+        for (Dialect dialect : List.of(POSTGRES, H2)) {
+            if (dialect.accepts(url)) {
+                return dialect;
+            }
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Returns the dialect of the database the connection is connected to.
+     */
+    static Dialect of(Connection connection) throws SQLException {
+        return forUrl(connection.getMetaData().getURL());
+    }
+
+    String name();
+
+    /**
+     * Returns whether the dialect is the one of the JDBC URL.
+     */
+    default boolean accepts(String url) {
+        return false;
+    }
+
+    /**
+     * Returns the fastest way to load rows, used by {@code writer.mode: auto}.
+     */
+    default WriterMode bulkMode() {
+        return WriterMode.BATCH;
+    }
+
+    /**
+     * Returns whether the database takes {@code COPY ... FROM STDIN} in text and binary format.
+     */
+    default boolean supportsCopy() {
+        return false;
+    }
+
+    /**
+     * Returns the number of rows per INSERT statement of batched inserts, unless {@code writer.insert-rows} is set.
+     */
+    default int insertRows() {
+        return 1;
+    }
+
+    /**
+     * Returns whether tables can be created {@code UNLOGGED} and later made logged.
+     */
+    default boolean supportsUnloggedTables() {
+        return false;
+    }
+
+    /**
+     * Returns whether the table is an unlogged table.
+     */
+    default boolean isUnlogged(Connection connection, String tableName) throws SQLException {
+        return false;
+    }
+
+    /**
+     * Returns whether {@code PREPARE TRANSACTION} and {@code COMMIT PREPARED} are supported.
+     */
+    default boolean supportsTwoPhaseCommit() {
+        return false;
+    }
+
+    /**
+     * Changes a server setting until the end of the current transaction; does nothing if the database has no
+     * such settings.
+     */
+    default void setLocal(Connection connection, String name, String value) throws SQLException {
+    }
+
+    /**
+     * Updates the planner statistics of the table, if the database keeps any that need updating.
+     */
+    default void analyze(Statement statement, String tableName) throws SQLException {
+    }
+
+    /**
+     * Returns whether a unique index can be turned into the primary key
+     * ({@code ADD CONSTRAINT ... PRIMARY KEY USING INDEX}), so it can be built in parallel with other indexes.
+     */
+    default boolean supportsPrimaryKeyUsingIndex() {
+        return false;
+    }
+
+    /**
+     * Returns whether a table can be ordered by one of its indexes with {@code CLUSTER}.
+     */
+    default boolean supportsCluster() {
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pb.writer;
+
+/**
+ * H2: rows are loaded with multi-row {@code INSERT ... VALUES (...),(...)} statements, which H2 runs about twice as
+ * fast as the same rows in single-row batches and faster than writing them to a file for {@code CSVREAD}.
+ */
+public class H2Dialect implements Dialect {
+    private static final int INSERT_ROWS = 100;
+
+    @Override
+    public String name() {
+        return "h2";
+    }
+
+    @Override
+    public boolean accepts(String url) {
+        return url != null && url.startsWith("jdbc:h2:");
+    }
+
+    @Override
+    public int insertRows() {
+        return INSERT_ROWS;
+    }
+}
@@ -0,0 +1,213 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.util.TableNameUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static com.pb.util.TableNameUtil.validateSqlIdentifier;
+
+/**
+ * Builds the primary key, the secondary indexes and the clustering of a table after the table has been loaded.
+ * The rows go into a bare table, and every index is then built once from all of them instead of being maintained
+ * row by row. The indexes are built in parallel, each on a connection of its own: {@code CREATE INDEX} only blocks
+ * writes, so several builds can run on one table. Where the {@link Dialect} supports it, the primary key is built as a
+ * unique index like the others and then attached to the table, the table is clustered on the chosen index and
+ * finally analyzed.
+ */
+public class IndexBuilder {
+    private static final Logger log = Logger.getLogger(IndexBuilder.class.getName());
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final int parallelism;
+    private final String maintenanceWorkMem;
+    private final boolean analyze;
+
+    /**
+     * The keys and indexes of a table.
+     *
+     * @param primaryKey The primary key columns, or an empty list for none.
+     * @param indexes    The columns of every secondary index.
+     * @param clusterOn  The columns of the index to order the table by, or an empty list for none.
+     */
+    public record Definition(List<String> primaryKey, List<List<String>> indexes, List<String> clusterOn) {
+
+        /**
+         * Reads a definition from the settings of a table: {@code primary-key} and {@code cluster} are
+         * comma-separated columns, {@code indexes} lists the indexes separated by semicolons.
+         */
+        public static Definition parse(Map<String, String> properties) {
+            List<List<String>> indexes = new ArrayList<>();
+            for (String index : properties.getOrDefault("indexes", "").split(";")) {
+                if (!index.isBlank()) {
+                    indexes.add(columns(index));
+                }
+            }
+            return new Definition(columns(properties.getOrDefault("primary-key", "")), indexes, columns(properties.getOrDefault("cluster", "")));
+        }
+
+        public boolean isEmpty() {
+            return primaryKey.isEmpty() && indexes.isEmpty() && clusterOn.isEmpty();
+        }
+
+        private static List<String> columns(String columns) {
+            return columns.isBlank() ? List.of() : List.of(columns.trim().split("\\s*,\\s*"));
+        }
+    }
+
+    private record Index(String name, List<String> columns, boolean unique) {
+    }
+
+    /**
+     * @param parallelism        The maximum number of indexes built at the same time.
+     * @param maintenanceWorkMem The {@code maintenance_work_mem} of every build, or null to keep the server setting.
+     * @param analyze            Whether to analyze the table when the indexes are built.
+     */
+    public IndexBuilder(int parallelism, String maintenanceWorkMem, boolean analyze) {
+        this.parallelism = Math.max(1, parallelism);
+        this.maintenanceWorkMem = maintenanceWorkMem;
+        this.analyze = analyze;
+    }
+
+    /**
+     * Builds the keys and indexes of the table and analyzes it.
+     *
+     * @param tableName  The loaded table; index names start with its name.
+     * @param definition The keys and indexes.
+     */
+    public void build(String tableName, Definition definition) throws Exception {
+        validateSqlIdentifier(tableName);
+        definition.primaryKey().forEach(TableNameUtil::validateSqlIdentifier);
+        definition.indexes().forEach(columns -> columns.forEach(TableNameUtil::validateSqlIdentifier));
+        definition.clusterOn().forEach(TableNameUtil::validateSqlIdentifier);
+        long start = System.nanoTime();
+
+        Dialect dialect = DatabaseConnectionManager.getDialect();
+        Index primaryKey = definition.primaryKey().isEmpty() ? null : new Index(indexName(tableName + "_pkey"), definition.primaryKey(), true);
+        List<Index> indexes = new ArrayList<>();
+        if (primaryKey != null && dialect.supportsPrimaryKeyUsingIndex()) {
+            indexes.add(primaryKey);
+        } else if (primaryKey != null) {
+            for (String column : primaryKey.columns()) {
+                execute("ALTER TABLE " + tableName + " ALTER COLUMN " + column + " SET NOT NULL", false);
+            }
+            execute("ALTER TABLE " + tableName + " ADD PRIMARY KEY (" + String.join(",", primaryKey.columns()) + ")", false);
+        }
+        for (List<String> columns : definition.indexes()) {
+            indexes.add(new Index(indexName(tableName + "_" + String.join("_", columns) + "_idx"), columns, false));
+        }
+        Index cluster = null;
+        if (!definition.clusterOn().isEmpty()) {
+            List<Index> candidates = new ArrayList<>(indexes);
+            if (primaryKey != null) {
+                candidates.add(primaryKey);
+            }
+            cluster = candidates.stream().filter(index -> index.columns().equals(definition.clusterOn())).findFirst().orElse(null);
+            if (cluster == null) {
+                cluster = new Index(indexName(tableName + "_" + String.join("_", definition.clusterOn()) + "_idx"), definition.clusterOn(), false);
+                indexes.add(cluster);
+            }
+        }
+
+        buildInParallel(tableName, indexes);
+        if (primaryKey != null && dialect.supportsPrimaryKeyUsingIndex()) {
+            execute("ALTER TABLE " + tableName + " ADD CONSTRAINT " + primaryKey.name() + " PRIMARY KEY USING INDEX " + primaryKey.name(), false);
+        }
+        if (cluster != null && dialect.supportsCluster()) {
+            execute("CLUSTER " + tableName + " USING " + cluster.name(), true);
+        } else if (cluster != null) {
+            log.warning("Clustering is not supported by the " + dialect.name() + " dialect, " + tableName + " is not clustered.");
+        }
+        if (analyze) {
+            analyze(tableName, dialect);
+        }
+        log.info("Built " + indexes.size() + " index(es) of " + tableName + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    private void buildInParallel(String tableName, List<Index> indexes) throws Exception {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, indexes.size()),
+                runnable -> new Thread(runnable, "index-builder-" + THREAD_COUNTER.incrementAndGet()));
+        try {
+            List<Future<?>> builds = new ArrayList<>();
+            for (Index index : indexes) {
+                String sql = "CREATE " + (index.unique() ? "UNIQUE " : "") + "INDEX " + index.name() + " ON " + tableName
+                        + " (" + String.join(",", index.columns()) + ")";
+                builds.add(executor.submit(() -> execute(sql, true)));
+            }
+            Exception failure = null;
+            for (Future<?> build : builds) {
+                try {
+                    build.get();
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void analyze(String tableName, Dialect dialect) throws SQLException {
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            dialect.analyze(statement, tableName);
+        }
+    }
+
+    /**
+     * Runs a statement in a transaction of its own.
+     *
+     * @param maintenance Whether the statement sorts the table, so that it runs with {@link #maintenanceWorkMem}.
+     */
+    private Void execute(String sql, boolean maintenance) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                if (maintenance && maintenanceWorkMem != null) {
+                    Dialect.of(connection).setLocal(connection, "maintenance_work_mem", maintenanceWorkMem);
+                }
+                statement.execute(sql);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        log.info("Executed in " + (System.nanoTime() - start) / 1_000_000 + " ms: " + sql);
+        return null;
+    }
+
+    /**
+     * Shortens names beyond the identifier length of PostgreSQL, keeping them distinct with a hash.
+     */
+    private static String indexName(String name) {
+        if (name.length() <= MAX_IDENTIFIER_LENGTH) {
+            return name;
+        }
+        return name.substring(0, MAX_IDENTIFIER_LENGTH - 9) + "_" + String.format("%08x", name.hashCode());
+    }
+}
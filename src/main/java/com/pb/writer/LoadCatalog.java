@@ -0,0 +1,137 @@
+package com.pb.writer;
+
+import com.pb.datasource.SourceFingerprint;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static com.pb.util.TableNameUtil.validateFileIdentifier;
+import static com.pb.util.TableNameUtil.validateTableName;
+
+/**
+ * Records the last load of every table in a table of the target database: the fingerprint of the source file and
+ * whether the load succeeded. Since the catalog lives next to the data, every host that loads into the database
+ * sees the same catalog.
+ */
+public class LoadCatalog {
+    public static final String LOADED = "LOADED";
+    public static final String FAILED = "FAILED";
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final String catalogTable;
+
+    /**
+     * The last load of a table.
+     *
+     * @param fileName    The name of the file that was loaded.
+     * @param fingerprint The fingerprint of the file.
+     * @param status      {@link #LOADED} or {@link #FAILED}.
+     * @param message     The failure, or null.
+     */
+    public record Entry(String fileName, SourceFingerprint fingerprint, String status, String message) {
+        public boolean loaded() {
+            return LOADED.equals(status);
+        }
+    }
+
+    public LoadCatalog(String catalogTable) {
+        validateTableName(catalogTable);
+        this.catalogTable = catalogTable;
+    }
+
+    /**
+     * Creates the catalog table if it does not exist yet.
+     */
+    public void createTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + catalogTable + " ("
+                    + "table_name VARCHAR(255) PRIMARY KEY, "
+                    + "file_name VARCHAR(1024) NOT NULL, "
+                    + "file_size BIGINT NOT NULL, "
+                    + "modified_ms BIGINT NOT NULL, "
+                    + "content_hash VARCHAR(16) NOT NULL, "
+                    + "sampled BOOLEAN NOT NULL, "
+                    + "status VARCHAR(16) NOT NULL, "
+                    + "message VARCHAR(" + MAX_MESSAGE_LENGTH + "), "
+                    + "loaded_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    /**
+     * @return The last load of the table, or null if the catalog has none.
+     */
+    public Entry find(Connection connection, String tableName) throws SQLException {
+        String sql = "SELECT file_name, file_size, modified_ms, content_hash, sampled, status, message FROM " + catalogTable + " WHERE table_name = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                SourceFingerprint fingerprint = new SourceFingerprint(resultSet.getLong(2), resultSet.getLong(3), resultSet.getString(4), resultSet.getBoolean(5));
+                return new Entry(resultSet.getString(1), fingerprint, resultSet.getString(6), resultSet.getString(7));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the loaded table still exists and holds rows, i.e. was not dropped or emptied since the load
+     * the catalog records. Runs outside of any transaction.
+     */
+    public boolean hasRows(Connection connection, String tableName) {
+        validateFileIdentifier(tableName);
+        try (Statement statement = connection.createStatement()) {
+            statement.setMaxRows(1);
+            try (ResultSet resultSet = statement.executeQuery("SELECT 1 FROM " + tableName)) {
+                return resultSet.next();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records a load of the table, replacing the previous one, in a transaction of its own.
+     */
+    public void save(Connection connection, String tableName, String fileName, SourceFingerprint fingerprint, String status,
+                     String message) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            replace(connection, tableName, fileName, fingerprint, status, message);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void replace(Connection connection, String tableName, String fileName, SourceFingerprint fingerprint, String status,
+                         String message) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + catalogTable + " WHERE table_name = ?")) {
+            statement.setString(1, tableName);
+            statement.executeUpdate();
+        }
+        String sql = "INSERT INTO " + catalogTable
+                + " (table_name, file_name, file_size, modified_ms, content_hash, sampled, status, message, loaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            statement.setString(2, fileName);
+            statement.setLong(3, fingerprint.size());
+            statement.setLong(4, fingerprint.modified());
+            statement.setString(5, fingerprint.hash());
+            statement.setBoolean(6, fingerprint.sampled());
+            statement.setString(7, status);
+            statement.setString(8, message == null || message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH));
+            statement.setTimestamp(9, new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Writes rows on separate threads, so parsing overlaps with database I/O. Rows are grouped into batches and put on
+ * a bounded queue; every worker thread owns one connection and one target writer (batched inserts or COPY) and
+ * drains the queue inside a single transaction. The queue holds at most two batches per worker, so a slow
+ * database blocks the reader instead of growing memory.
+ * <p>
+ * The time the reader waits for queue space and the time the workers wait for rows are recorded in
+ * {@link PipelineStats}, which tells whether a load was parse-bound or database-bound.
+ * <p>
+ * The transactions are finished together: if any worker fails, all of them are rolled back. With two-phase commit
+ * enabled every transaction is first prepared ({@code PREPARE TRANSACTION}) and only committed once all of them
+ * were prepared, so a failure during the commit itself cannot leave part of the rows behind either. Without it the
+ * transactions are committed one after another.
+ * <p>
+ * With a single worker a column type can be widened during the load: the change is queued behind the rows
+ * converted with the old type. With several workers the {@code ALTER TABLE} would wait for the table locks held by
+ * the open transactions of the other workers, so {@link PostgresDatabaseWriter} only creates several workers when
+ * widening is switched off.
+ */
+public final class ParallelRowWriter implements RowWriter {
+    private static final Logger log = Logger.getLogger(ParallelRowWriter.class.getName());
+    private static final Object[][] END = new Object[0][];
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private record ColumnChange(int columnIndex, String columnType) {
+    }
+
+    private final int batchRows;
+    private final boolean twoPhaseCommit;
+    private final RowWriterFactory factory;
+    private final BlockingQueue<Object> queue;
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<RowWriter> writers = new ArrayList<>();
+    private final List<Future<Long>> workers = new ArrayList<>();
+    private final ExecutorService executor;
+    private final AtomicLong takeStallNanos = new AtomicLong();
+    private long putStallNanos;
+    private long batches;
+    private long queueDepthSum;
+    private int maxQueueDepth;
+    private volatile Exception failure;
+    private Object[][] batch;
+    private int batchSize;
+    private boolean finished;
+
+    /**
+     * @param workerCount    The number of connections and worker threads; the connections are taken from the pool
+     *                       at once.
+     * @param batchRows      The number of rows handed to a worker at a time.
+     * @param twoPhaseCommit Whether to commit through {@code PREPARE TRANSACTION} (PostgreSQL only).
+     * @param factory        Creates the target writer of each worker.
+     * @param columnTypes    The column types the target writers are created with.
+     */
+    public ParallelRowWriter(int workerCount, int batchRows, boolean twoPhaseCommit, RowWriterFactory factory,
+                             Map<Integer, String> columnTypes) throws Exception {
+        this.batchRows = batchRows;
+        this.twoPhaseCommit = twoPhaseCommit;
+        this.factory = factory;
+        this.queue = new ArrayBlockingQueue<>(workerCount * 2);
+        this.batch = new Object[batchRows][];
+        this.executor = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "parallel-writer-" + THREAD_COUNTER.incrementAndGet()));
+        try {
+            connections.addAll(DatabaseConnectionManager.getConnections(workerCount));
+            for (Connection connection : connections) {
+                connection.setAutoCommit(false);
+                writers.add(factory.create(connection, columnTypes));
+            }
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            int worker = i;
+            Map<Integer, String> workerColumnTypes = new HashMap<>(columnTypes);
+            workers.add(executor.submit(() -> drain(worker, workerColumnTypes)));
+        }
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws Exception {
+        batch[batchSize++] = values;
+        if (batchSize == batchRows) {
+            put(batch);
+            batch = new Object[batchRows][];
+            batchSize = 0;
+        }
+    }
+
+    @Override
+    public void changeColumnType(int columnIndex, String columnType) throws Exception {
+        if (workers.size() > 1) {
+            throw new IllegalStateException("Column " + columnIndex + " cannot be widened to " + columnType + " by "
+                    + workers.size() + " writer connections, widening needs a single connection");
+        }
+        flushBatch();
+        put(new ColumnChange(columnIndex, columnType));
+    }
+
+    @Override
+    public long finish() throws Exception {
+        flushBatch();
+        for (int i = 0; i < workers.size(); i++) {
+            put(END);
+        }
+
+        long total = 0;
+        List<Long> counts = new ArrayList<>();
+        for (Future<Long> worker : workers) {
+            try {
+                long count = worker.get();
+                counts.add(count);
+                total += count;
+            } catch (ExecutionException e) {
+                fail(e.getCause() instanceof Exception cause ? cause : e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        commitAll();
+        finished = true;
+        log.info("Rows per writer connection: " + counts + ", " + stats());
+        return total;
+    }
+
+    /**
+     * Returns the queue and stall statistics collected so far.
+     */
+    public PipelineStats stats() {
+        return new PipelineStats(batches, maxQueueDepth, batches > 0 ? (double) queueDepthSum / batches : 0,
+                TimeUnit.NANOSECONDS.toMillis(putStallNanos), TimeUnit.NANOSECONDS.toMillis(takeStallNanos.get()));
+    }
+
+    @Override
+    public void close() throws SQLException {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            // the connections are released below either way
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            try {
+                if (i < writers.size()) {
+                    writers.get(i).close();
+                }
+                if (!finished && !connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            } catch (Exception e) {
+                log.warning("Failed to roll back writer connection: " + e.getMessage());
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    private void flushBatch() throws Exception {
+        if (batchSize > 0) {
+            Object[][] last = new Object[batchSize][];
+            System.arraycopy(batch, 0, last, 0, batchSize);
+            put(last);
+            batchSize = 0;
+        }
+    }
+
+    private long drain(int worker, Map<Integer, String> columnTypes) throws Exception {
+        Connection connection = connections.get(worker);
+        long written = 0;
+        try {
+            while (true) {
+                Object item = take();
+                if (item == END) {
+                    break;
+                }
+                if (item instanceof ColumnChange change) {
+                    RowWriter writer = writers.get(worker);
+                    written += writer.finish();
+                    writer.close();
+                    factory.alterColumnType(connection, change.columnIndex(), change.columnType());
+                    columnTypes.put(change.columnIndex(), change.columnType());
+                    writers.set(worker, factory.create(connection, columnTypes));
+                    continue;
+                }
+                RowWriter writer = writers.get(worker);
+                for (Object[] row : (Object[][]) item) {
+                    writer.writeRow(row);
+                }
+            }
+            return written + writers.get(worker).finish();
+        } catch (Exception e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Records the first failure. The queue is left as it is: the other workers see the failure in {@link #take} and
+     * stop, and the reader sees it in {@link #put}.
+     */
+    private synchronized void fail(Exception e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Puts a batch on the queue, giving up as soon as a worker has failed so the reader is not blocked forever.
+     */
+    private void put(Object rows) throws Exception {
+        int depth = queue.size();
+        if (rows instanceof Object[][] && rows != END) {
+            batches++;
+            queueDepthSum += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+        }
+        if (!queue.offer(rows)) {
+            long start = System.nanoTime();
+            try {
+                while (!queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                }
+            } finally {
+                putStallNanos += System.nanoTime() - start;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Takes the next item from the queue, giving up as soon as a worker has failed so the others are not blocked
+     * forever on items that will not come.
+     */
+    private Object take() throws Exception {
+        checkFailure();
+        Object rows = queue.poll();
+        if (rows == null) {
+            long start = System.nanoTime();
+            try {
+                while ((rows = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    checkFailure();
+                }
+            } finally {
+                takeStallNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        return rows;
+    }
+
+    private void checkFailure() {
+        Exception cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("Stopped after another writer connection failed", cause);
+        }
+    }
+
+    private void commitAll() throws SQLException {
+        if (!twoPhaseCommit) {
+            for (Connection connection : connections) {
+                connection.commit();
+            }
+            return;
+        }
+
+        String prefix = "xlsx_to_db_" + UUID.randomUUID() + "_";
+        int prepared = 0;
+        try {
+            for (; prepared < connections.size(); prepared++) {
+                try (Statement statement = connections.get(prepared).createStatement()) {
+                    statement.execute("PREPARE TRANSACTION '" + prefix + prepared + "'");
+                }
+            }
+        } catch (SQLException e) {
+            for (int i = 0; i < prepared; i++) {
+                runOutsideTransaction(connections.get(i), "ROLLBACK PREPARED '" + prefix + i + "'");
+            }
+            throw e;
+        }
+        for (int i = 0; i < connections.size(); i++) {
+            runOutsideTransaction(connections.get(i), "COMMIT PREPARED '" + prefix + i + "'");
+        }
+    }
+
+    private void runOutsideTransaction(Connection connection, String sql) throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.pb.writer;
+
+import org.postgresql.util.ByteConverter;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Encodes rows in the PostgreSQL binary COPY format into a reusable buffer.
+ * <p>
+ * The stream starts with the {@code PGCOPY} signature, each tuple starts with its field count and every
+ * field is written as a length-prefixed value in the server's wire encoding, so the server does not
+ * have to parse text. The buffer is handed to the {@link Sink} whenever it is full.
+ */
+public class PgBinaryCopyEncoder {
+
+    static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    /** Microseconds between 1970-01-01 and 2000-01-01, the PostgreSQL timestamp epoch. */
+    private static final long POSTGRES_EPOCH_MICROS = 946_684_800L * 1_000_000L;
+
+    /** Days between 1970-01-01 and 2000-01-01, the PostgreSQL date epoch. */
+    private static final long POSTGRES_EPOCH_DAYS = 10_957L;
+
+    private static final short NUMERIC_NAN = (short) 0xC000;
+    private static final short NUMERIC_POSITIVE_INFINITY = (short) 0xD000;
+    private static final short NUMERIC_NEGATIVE_INFINITY = (short) 0xF000;
+
+    /**
+     * Receives encoded bytes.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(byte[] bytes, int offset, int length) throws SQLException;
+    }
+
+    private final Sink sink;
+    private ByteBuffer buffer;
+
+    public PgBinaryCopyEncoder(Sink sink, int bufferSize) {
+        this.sink = sink;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public void writeHeader() throws SQLException {
+        ensureCapacity(SIGNATURE.length + 8);
+        buffer.put(SIGNATURE);
+        buffer.putInt(0);
+        buffer.putInt(0);
+    }
+
+    public void startRow(int fieldCount) throws SQLException {
+        ensureCapacity(2);
+        buffer.putShort((short) fieldCount);
+    }
+
+    public void writeNull() throws SQLException {
+        ensureCapacity(4);
+        buffer.putInt(-1);
+    }
+
+    public void writeInt2(short value) throws SQLException {
+        ensureCapacity(6);
+        buffer.putInt(2);
+        buffer.putShort(value);
+    }
+
+    public void writeInt4(int value) throws SQLException {
+        ensureCapacity(8);
+        buffer.putInt(4);
+        buffer.putInt(value);
+    }
+
+    public void writeInt8(long value) throws SQLException {
+        ensureCapacity(12);
+        buffer.putInt(8);
+        buffer.putLong(value);
+    }
+
+    public void writeFloat8(double value) throws SQLException {
+        ensureCapacity(12);
+        buffer.putInt(8);
+        buffer.putDouble(value);
+    }
+
+    public void writeBoolean(boolean value) throws SQLException {
+        ensureCapacity(5);
+        buffer.putInt(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Writes a {@code timestamp without time zone}: microseconds since 2000-01-01 00:00 of the wall-clock time.
+     */
+    public void writeTimestamp(Timestamp value) throws SQLException {
+        LocalDateTime dateTime = value.toLocalDateTime();
+        long micros = dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+        writeInt8(micros - POSTGRES_EPOCH_MICROS);
+    }
+
+    /**
+     * Writes a {@code date}: days since 2000-01-01.
+     */
+    public void writeDate(java.sql.Date value) throws SQLException {
+        writeInt4((int) (value.toLocalDate().toEpochDay() - POSTGRES_EPOCH_DAYS));
+    }
+
+    public void writeUuid(UUID value) throws SQLException {
+        ensureCapacity(20);
+        buffer.putInt(16);
+        buffer.putLong(value.getMostSignificantBits());
+        buffer.putLong(value.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a {@code numeric} value. The decimal digits are taken from the shortest representation of the double,
+     * the same digits the text format would send.
+     */
+    public void writeNumeric(double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            writeSpecialNumeric(NUMERIC_NAN);
+        } else if (Double.isInfinite(value)) {
+            writeSpecialNumeric(value > 0 ? NUMERIC_POSITIVE_INFINITY : NUMERIC_NEGATIVE_INFINITY);
+        } else {
+            writeNumeric(BigDecimal.valueOf(value));
+        }
+    }
+
+    public void writeNumeric(BigDecimal value) throws SQLException {
+        byte[] bytes = ByteConverter.numeric(value);
+        ensureCapacity(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a text value as UTF-8. ASCII strings are copied into the buffer without an intermediate array.
+     */
+    public void writeText(String value) throws SQLException {
+        int length = value.length();
+        ensureCapacity(4 + length * 3);
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int i = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buffer.put((byte) c);
+        }
+        if (i < length) {
+            buffer.put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    public void writeTrailer() throws SQLException {
+        ensureCapacity(2);
+        buffer.putShort((short) -1);
+    }
+
+    public void flush() throws SQLException {
+        if (buffer.position() > 0) {
+            sink.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    private void writeSpecialNumeric(short sign) throws SQLException {
+        ensureCapacity(12);
+        buffer.putInt(8);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort(sign);
+        buffer.putShort((short) 0);
+    }
+
+    private void ensureCapacity(int bytes) throws SQLException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        flush();
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(bytes);
+        }
+    }
+}
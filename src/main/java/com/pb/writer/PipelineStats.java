@@ -0,0 +1,28 @@
+package com.pb.writer;
+
+/**
+ * Queue statistics of a {@link ParallelRowWriter}.
+ *
+ * @param batches           The number of row batches put on the queue.
+ * @param maxQueueDepth     The most batches found waiting when a batch was put.
+ * @param averageQueueDepth The average number of batches waiting when a batch was put.
+ * @param parseStallMillis  Time the reader spent waiting for queue space, i.e. for the database.
+ * @param writeStallMillis  Time the writers spent waiting for rows, summed over all writer threads.
+ */
+public record PipelineStats(long batches, int maxQueueDepth, double averageQueueDepth,
+                            long parseStallMillis, long writeStallMillis) {
+
+    /**
+     * Returns {@code "database"} when the reader waited on the writers longer than they waited on it,
+     * {@code "parsing"} otherwise.
+     */
+    public String bottleneck() {
+        return parseStallMillis > writeStallMillis ? "database" : "parsing";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d batches, queue depth avg %.1f max %d, parse stall %d ms, write stall %d ms (%s-bound)",
+                batches, averageQueueDepth, maxQueueDepth, parseStallMillis, writeStallMillis, bottleneck());
+    }
+}
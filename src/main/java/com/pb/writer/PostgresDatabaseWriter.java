@@ -1,51 +1,74 @@
 package com.pb.writer;
 
-import com.linuxense.javadbf.DBFReader;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
+import com.pb.filereader.CsvFileReader;
+import com.pb.filereader.DbfFileReader;
+import com.pb.filereader.ExcelFileReader;
+import com.pb.filereader.FileReader;
+import com.pb.util.ColumnType;
 import com.pb.util.DatabaseConnectionManager;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Timestamp;
-import java.util.Date;
 import java.util.Map;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
+
+import static com.pb.util.TableNameUtil.validateFileIdentifier;
 
 public class PostgresDatabaseWriter implements DatabaseWriter {
 
+    /**
+     * The number of rows handed to the pipeline at once, and the first batch size of batched inserts.
+     */
     public static final int BATCH_SIZE = 2500;
     private static final Logger log = Logger.getLogger(PostgresDatabaseWriter.class.getName());
-    private static final Pattern VALID_SQL_IDENTIFIER = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_\\s()]*");
+
+    private final Dialect dialect;
+
+    /**
+     * Creates a writer for the dialect of the configured {@code jdbc.url}.
+     */
+    public PostgresDatabaseWriter() {
+        this(null);
+    }
+
+    /**
+     * @param dialect The dialect of the target database, or null to take it from the configured {@code jdbc.url}.
+     */
+    public PostgresDatabaseWriter(Dialect dialect) {
+        this.dialect = dialect;
+    }
 
     @Override
     public void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
-        validateSqlIdentifier(tableName);
-        StringBuilder createTableSQL = new StringBuilder("CREATE TABLE IF NOT EXISTS " + tableName + " (");
+        createTable(headers, columnTypes, tableName, false);
+    }
+
+    /**
+     * Creates the table UNLOGGED where the dialect supports it, so that its rows are not written to the WAL while it
+     * is loaded. Row writers of unlogged tables also commit with the {@code staging.synchronous-commit} setting.
+     */
+    @Override
+    public void createStagingTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
+        createTable(headers, columnTypes, tableName, true);
+    }
+
+    private void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, boolean unlogged) throws Exception {
+        validateFileIdentifier(tableName);
+        StringBuilder createTableSQL = new StringBuilder(" TABLE IF NOT EXISTS " + tableName + " (");
         for (Map.Entry<Integer, String> entry : headers.entrySet()) {
             int columnIndex = entry.getKey();
             String columnName = entry.getValue();
             String columnType = columnTypes.get(columnIndex);
-            validateSqlIdentifier(columnName);
+            validateFileIdentifier(columnName);
             createTableSQL.append(columnName).append(" ").append(columnType).append(",");
         }
         createTableSQL.deleteCharAt(createTableSQL.length() - 1).append(")");
 
         try (Connection connection = DatabaseConnectionManager.getConnection();
              Statement statement = connection.createStatement()) {
+            createTableSQL.insert(0, unlogged && dialect().supportsUnloggedTables() ? "CREATE UNLOGGED" : "CREATE");
             String dropTableSQL = "DROP TABLE IF EXISTS " + tableName;
             log.info("Dropping table with SQL: " + dropTableSQL);
             statement.execute(dropTableSQL);
@@ -56,162 +79,153 @@ public class PostgresDatabaseWriter implements DatabaseWriter {
 
     @Override
     public void insertData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension, InputStream inputStream) throws Exception {
-        try (Connection connection = DatabaseConnectionManager.getConnection()) {
-            connection.setAutoCommit(false);
-
-            switch (extension.toLowerCase()) {
-                case "xlsx":
-                    insertExcelData(headers, columnTypes, tableName, inputStream, connection);
-                    break;
-                case "dbf":
-                    insertDbfData(headers, columnTypes, tableName, inputStream, connection);
-                    break;
-                case "csv":
-                    insertCsvData(headers, columnTypes, tableName, inputStream, connection);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported file extension: " + extension);
-            }
+        FileReader fileReader = switch (extension.toLowerCase()) {
+            case "xlsx" -> new ExcelFileReader();
+            case "dbf" -> new DbfFileReader();
+            case "csv" -> new CsvFileReader();
+            default -> throw new IllegalArgumentException("Unsupported file extension: " + extension);
+        };
 
-            connection.commit();
+        try (RowWriter rowWriter = openRowWriter(headers, columnTypes, tableName, extension)) {
+            fileReader.readRows(inputStream, (rowNumber, row) -> rowWriter.writeRow(row));
+            rowWriter.finish();
         }
     }
 
-    private void insertExcelData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, InputStream inputStream, Connection connection) throws Exception {
-        Workbook workbook = new XSSFWorkbook(inputStream);
-        Sheet sheet = workbook.getSheetAt(0);
-
-        StringBuilder insertSQL = new StringBuilder("INSERT INTO " + tableName + " (");
-        for (String columnName : headers.values()) {
-            validateSqlIdentifier(columnName);
-            insertSQL.append(columnName).append(",");
+    @Override
+    public RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                                   RowWriterOptions options) throws Exception {
+        boolean textValues = "csv".equalsIgnoreCase(extension);
+        boolean widen = Boolean.parseBoolean(DatabaseConnectionManager.getProperty("ingest", "widen-on-mismatch", "true"));
+        boolean rowHash = options.rowHash();
+        int connections = Integer.parseInt(DatabaseConnectionManager.getProperty("writer", "connections", "1"));
+        boolean checkpoints = options.checkpointed();
+        if (checkpoints && connections > 1) {
+            throw new IllegalStateException("Checkpointed loads commit on a single connection, set writer.connections to 1");
         }
-        insertSQL.deleteCharAt(insertSQL.length() - 1).append(") VALUES (");
-        insertSQL.append("?,".repeat(headers.size()));
-        insertSQL.deleteCharAt(insertSQL.length() - 1).append(")");
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertSQL.toString())) {
-            int count = 0;
-            int total = 0;
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0 || isRowEmpty(row)) continue;
-                for (int i = 0; i < headers.size(); i++) {
-                    Cell cell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                    String columnType = columnTypes.get(i);
-                    setPreparedStatementValue(preparedStatement, i + 1, cell, columnType);
-                }
-                preparedStatement.addBatch();
+        if (widen && connections > 1) {
+            log.warning("Widening a column needs a single writer connection, writing " + tableName + " on 1 connection instead of "
+                    + connections + " (set ingest.widen-on-mismatch: false to write on several)");
+            connections = 1;
+        }
+        boolean pipeline = !checkpoints && (connections > 1 || Boolean.parseBoolean(DatabaseConnectionManager.getProperty("writer", "pipeline", "true")));
 
-                if (++count % BATCH_SIZE == 0) {
-                    preparedStatement.executeBatch();
-                    total += count;
-                    log.info(count + " rows have been inserted into the table.");
-                    count = 0;
-                }
-            }
-            if (count > 0) {
-                preparedStatement.executeBatch();
-                total += count;
-                log.info(count + " rows have been inserted into the table.");
+        Connection connection = DatabaseConnectionManager.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            Dialect dialect = dialect();
+            WriterMode mode = resolveWriterMode(dialect);
+            String synchronousCommit = dialect.isUnlogged(connection, tableName)
+                    ? DatabaseConnectionManager.getProperty("staging", "synchronous-commit", "off") : null;
+            RowWriterFactory factory = new TableWriterFactory(dialect, mode, headers, tableName, synchronousCommit, createBatchSizer(),
+                    Integer.parseInt(DatabaseConnectionManager.getProperty("writer", "insert-rows", String.valueOf(dialect.insertRows()))));
+
+            if (pipeline) {
+                connection.close();
+                boolean twoPhaseCommit = dialect.supportsTwoPhaseCommit() && Boolean.parseBoolean(DatabaseConnectionManager.getProperty("writer", "two-phase-commit", "false"));
+                RowWriter parallelWriter = new ParallelRowWriter(connections, BATCH_SIZE, twoPhaseCommit, factory, columnTypes);
+                return new SourceRowWriter(parallelWriter, dialect.name() + ", mode " + mode + ", pipelined, " + connections + " connection(s)",
+                        columnTypes, textValues, widen, rowHash);
             }
-            log.info("Total " + total + " rows have been inserted into the table.");
+
+            RowWriter rowWriter = new ConnectionRowWriter(connection, factory, columnTypes);
+            return new SourceRowWriter(rowWriter, dialect.name() + ", mode " + mode, columnTypes, textValues, widen, rowHash);
+        } catch (Exception e) {
+            connection.close();
+            throw e;
         }
     }
 
     /**
-     * Checks if the row is empty.
-     * use in insertExcelData method
+     * Creates the target writers of one table in the resolved mode and widens its columns.
      */
-    private boolean isRowEmpty(Row row) {
-        for (int i = row.getFirstCellNum(); i < row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                return false;
-            }
+    private class TableWriterFactory implements RowWriterFactory {
+        private final Dialect dialect;
+        private final WriterMode mode;
+        private final Map<Integer, String> headers;
+        private final String tableName;
+        private final String synchronousCommit;
+        private final BatchSizer batchSizer;
+        private final int insertRows;
+
+        /**
+         * @param synchronousCommit The {@code synchronous_commit} of the transactions of the writers, or null to keep
+         *                          the server setting.
+         * @param batchSizer        Chooses the batch size of batched inserts, shared by all writers of the table.
+         * @param insertRows        The number of rows per INSERT statement.
+         */
+        private TableWriterFactory(Dialect dialect, WriterMode mode, Map<Integer, String> headers, String tableName, String synchronousCommit,
+                                   BatchSizer batchSizer, int insertRows) {
+            this.dialect = dialect;
+            this.mode = mode;
+            this.headers = headers;
+            this.tableName = tableName;
+            this.synchronousCommit = synchronousCommit;
+            this.batchSizer = batchSizer;
+            this.insertRows = insertRows;
         }
-        return true;
-    }
 
-    private void insertDbfData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, InputStream inputStream, Connection connection) throws Exception {
-        DBFReader reader = new DBFReader(inputStream);
-
-        StringBuilder insertSQL = new StringBuilder("INSERT INTO " + tableName + " (");
-        for (String columnName : headers.values()) {
-            validateSqlIdentifier(columnName);
-            insertSQL.append(columnName).append(",");
+        @Override
+        public RowWriter create(Connection connection, Map<Integer, String> columnTypes) throws SQLException {
+            if (synchronousCommit != null) {
+                dialect.setLocal(connection, "synchronous_commit", synchronousCommit);
+            }
+            Map<Integer, String> types = Map.copyOf(columnTypes);
+            return switch (mode) {
+                case COPY -> new CopyRowWriter(connection, buildCopySQL(headers, tableName), types);
+                case BINARY_COPY -> new BinaryCopyRowWriter(connection, buildCopySQL(headers, tableName) + " (FORMAT BINARY)", types);
+                default -> new BatchInsertRowWriter(connection, buildInsertSQL(headers, tableName), types, batchSizer, insertRows);
+            };
         }
-        insertSQL.deleteCharAt(insertSQL.length() - 1).append(") VALUES (");
-        insertSQL.append("?,".repeat(headers.size()));
-        insertSQL.deleteCharAt(insertSQL.length() - 1).append(")");
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertSQL.toString())) {
-            int count = 0;
-            int total = 0;
-
-            Object[] row;
-            while ((row = reader.nextRecord()) != null) {
-                for (int i = 0; i < headers.size(); i++) {
-                    Object value = row[i];
-                    String columnType = columnTypes.get(i);
-                    setPreparedStatementValue(preparedStatement, i + 1, value, columnType);
-                }
-                preparedStatement.addBatch();
 
-                if (++count % BATCH_SIZE == 0) {
-                    preparedStatement.executeBatch();
-                    total += count;
-                    log.info(count + " rows have been inserted into the table.");
-                    count = 0;
-                }
+        @Override
+        public void alterColumnType(Connection connection, int columnIndex, String columnType) throws SQLException {
+            String columnName = headers.get(columnIndex);
+            validateFileIdentifier(columnName);
+            String alterSQL = "ALTER TABLE " + tableName + " ALTER COLUMN " + columnName + " SET DATA TYPE " + columnType;
+            log.info("Widening column with SQL: " + alterSQL);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(alterSQL);
             }
-            if (count > 0) {
-                preparedStatement.executeBatch();
-                total += count;
-                log.info(count + " rows have been inserted into the table.");
-            }
-            log.info("Total " + total + " rows have been inserted into the table.");
         }
     }
 
-    private void insertCsvData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, InputStream inputStream, Connection connection) throws Exception {
-        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(inputStream)).withSkipLines(1).build();
-             PreparedStatement preparedStatement = connection.prepareStatement(buildInsertSQL(headers, tableName))) {
-            connection.setAutoCommit(false);
-
-            String[] row;
-            int count = 0;
-            int total = 0;
+    /**
+     * Creates the batch sizer of a load from the {@code writer.batch-*} settings; a {@code batch-target-ms} of 0 keeps
+     * the batch size at {@code batch-rows}.
+     */
+    private BatchSizer createBatchSizer() {
+        return new BatchSizer(Integer.parseInt(DatabaseConnectionManager.getProperty("writer", "batch-rows", String.valueOf(BATCH_SIZE))),
+                Long.parseLong(DatabaseConnectionManager.getProperty("writer", "batch-target-ms", "100")),
+                Integer.parseInt(DatabaseConnectionManager.getProperty("writer", "batch-min-rows", "100")),
+                Integer.parseInt(DatabaseConnectionManager.getProperty("writer", "batch-max-rows", "50000")),
+                Long.parseLong(DatabaseConnectionManager.getProperty("writer", "batch-max-bytes", "16777216")));
+    }
 
-            while ((row = reader.readNext()) != null) {
-                for (int i = 0; i < headers.size(); i++) {
-                    String value = row[i];
-                    String columnType = columnTypes.get(i);
-                    setPreparedStatementValue(preparedStatement, i + 1, value, columnType);
-                }
-                preparedStatement.addBatch();
+    private Dialect dialect() {
+        return dialect != null ? dialect : DatabaseConnectionManager.getDialect();
+    }
 
-                if (++count % BATCH_SIZE == 0) {
-                    preparedStatement.executeBatch();
-                    total += count;
-                    log.info(count + " rows have been inserted into the table.");
-                    count = 0;
-                }
-            }
-            if (count > 0) {
-                preparedStatement.executeBatch();
-                total += count;
-                log.info(count + " rows have been inserted into the table.");
-            }
-            connection.commit();
-            log.info("Total " + total + " rows have been inserted into the table.");
+    /**
+     * Resolves the configured writer mode. {@code auto} takes the bulk mode of the dialect; COPY needs a dialect that
+     * supports it, other targets fall back to batched inserts.
+     */
+    private WriterMode resolveWriterMode(Dialect dialect) {
+        WriterMode mode = WriterMode.fromConfig(DatabaseConnectionManager.getProperty("writer", "mode", null));
+        if (mode == WriterMode.AUTO) {
+            return dialect.bulkMode();
+        }
+        if (mode != WriterMode.BATCH && !dialect.supportsCopy()) {
+            log.warning("Writer mode " + mode + " is not supported by the " + dialect.name() + " dialect, falling back to " + WriterMode.BATCH);
+            return WriterMode.BATCH;
         }
+        return mode;
     }
 
     private String buildInsertSQL(Map<Integer, String> headers, String tableName) {
         StringBuilder insertSQL = new StringBuilder("INSERT INTO " + tableName + " (");
         for (String columnName : headers.values()) {
-            validateSqlIdentifier(columnName);
+            validateFileIdentifier(columnName);
             insertSQL.append(columnName).append(",");
         }
         insertSQL.deleteCharAt(insertSQL.length() - 1).append(") VALUES (");
@@ -220,113 +234,29 @@ public class PostgresDatabaseWriter implements DatabaseWriter {
         return insertSQL.toString();
     }
 
-    private void setPreparedStatementValue(PreparedStatement preparedStatement, int parameterIndex, String value, String columnType) throws SQLException {
-        if (value == null || value.isEmpty()) {
-            preparedStatement.setNull(parameterIndex, getSqlType(columnType));
-            return;
-        }
-        switch (columnType) {
-            case "INTEGER":
-                preparedStatement.setInt(parameterIndex, Integer.parseInt(value));
-                break;
-            case "NUMERIC":
-                preparedStatement.setDouble(parameterIndex, Double.parseDouble(value));
-                break;
-            case "TIMESTAMP":
-                preparedStatement.setTimestamp(parameterIndex, Timestamp.valueOf(value));
-                break;
-            case "BOOLEAN":
-                preparedStatement.setBoolean(parameterIndex, Boolean.parseBoolean(value));
-                break;
-            default:
-                preparedStatement.setString(parameterIndex, value);
-                break;
-        }
-    }
-
-    private void setPreparedStatementValue(PreparedStatement preparedStatement, int parameterIndex, Cell cell, String columnType) throws SQLException {
-        if (cell == null || cell.getCellType() == CellType.BLANK) {
-            preparedStatement.setNull(parameterIndex, getSqlType(columnType));
-            return;
-        }
-        switch (columnType) {
-            case "INTEGER" -> {
-                if (cell.getCellType() == CellType.NUMERIC && cell.getNumericCellValue() % 1 == 0) {
-                    preparedStatement.setInt(parameterIndex, (int) cell.getNumericCellValue());
-                } else {
-                    preparedStatement.setNull(parameterIndex, java.sql.Types.INTEGER);
-                }
-            }
-            case "NUMERIC" -> preparedStatement.setDouble(parameterIndex, cell.getNumericCellValue());
-            case "TIMESTAMP" -> preparedStatement.setTimestamp(parameterIndex, new Timestamp(cell.getDateCellValue().getTime()));
-            case "BOOLEAN" -> preparedStatement.setBoolean(parameterIndex, cell.getBooleanCellValue());
-            default -> preparedStatement.setString(parameterIndex, getCellValueAsString(cell));
-        }
-    }
-
-    private void setPreparedStatementValue(PreparedStatement preparedStatement, int parameterIndex, Object value, String columnType) throws SQLException {
-        if (value == null) {
-            preparedStatement.setNull(parameterIndex, getSqlType(columnType));
-            return;
-        }
-        switch (columnType) {
-            case "INTEGER":
-                if (value instanceof Number) {
-                    preparedStatement.setInt(parameterIndex, ((Number) value).intValue());
-                } else {
-                    preparedStatement.setNull(parameterIndex, java.sql.Types.INTEGER);
-                }
-                break;
-            case "NUMERIC":
-                if (value instanceof Number) {
-                    preparedStatement.setDouble(parameterIndex, ((Number) value).doubleValue());
-                } else {
-                    preparedStatement.setNull(parameterIndex, java.sql.Types.NUMERIC);
-                }
-                break;
-            case "TIMESTAMP":
-                if (value instanceof Date) {
-                    preparedStatement.setTimestamp(parameterIndex, new Timestamp(((Date) value).getTime()));
-                } else {
-                    preparedStatement.setNull(parameterIndex, java.sql.Types.TIMESTAMP);
-                }
-                break;
-            case "BOOLEAN":
-                if (value instanceof Boolean) {
-                    preparedStatement.setBoolean(parameterIndex, (Boolean) value);
-                } else {
-                    preparedStatement.setNull(parameterIndex, java.sql.Types.BOOLEAN);
-                }
-                break;
-            default:
-                preparedStatement.setString(parameterIndex, value.toString());
-                break;
+    private String buildCopySQL(Map<Integer, String> headers, String tableName) {
+        validateFileIdentifier(tableName);
+        StringBuilder copySQL = new StringBuilder("COPY " + tableName + " (");
+        for (String columnName : headers.values()) {
+            validateFileIdentifier(columnName);
+            copySQL.append(columnName).append(",");
         }
+        copySQL.deleteCharAt(copySQL.length() - 1).append(") FROM STDIN");
+        return copySQL.toString();
     }
 
-    private int getSqlType(String columnType) {
+    static int getSqlType(ColumnType columnType) {
         return switch (columnType) {
-            case "INTEGER" -> java.sql.Types.INTEGER;
-            case "NUMERIC" -> java.sql.Types.NUMERIC;
-            case "TIMESTAMP" -> java.sql.Types.TIMESTAMP;
-            case "BOOLEAN" -> java.sql.Types.BOOLEAN;
+            case SMALLINT -> java.sql.Types.SMALLINT;
+            case INTEGER -> java.sql.Types.INTEGER;
+            case BIGINT -> java.sql.Types.BIGINT;
+            case NUMERIC -> java.sql.Types.NUMERIC;
+            case DOUBLE_PRECISION -> java.sql.Types.DOUBLE;
+            case DATE -> java.sql.Types.DATE;
+            case TIMESTAMP -> java.sql.Types.TIMESTAMP;
+            case BOOLEAN -> java.sql.Types.BOOLEAN;
+            case UUID -> java.sql.Types.OTHER;
             default -> java.sql.Types.VARCHAR;
         };
     }
-
-    private String getCellValueAsString(Cell cell) {
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> DateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue().toString() : String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            case FORMULA -> cell.getCellFormula();
-            default -> "";
-        };
-    }
-
-    private void validateSqlIdentifier(String identifier) {
-        if (!VALID_SQL_IDENTIFIER.matcher(identifier).matches()) {
-            throw new IllegalArgumentException("Invalid SQL identifier: " + identifier);
-        }
-    }
 }
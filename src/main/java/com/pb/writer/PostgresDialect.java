@@ -0,0 +1,82 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * PostgreSQL: rows are loaded with binary COPY, staging tables can be unlogged and settings such as
+ * {@code synchronous_commit} can be changed per transaction.
+ */
+public class PostgresDialect implements Dialect {
+
+    @Override
+    public String name() {
+        return "postgresql";
+    }
+
+    @Override
+    public boolean accepts(String url) {
+        return url != null && url.startsWith("jdbc:postgresql:");
+    }
+
+    @Override
+    public WriterMode bulkMode() {
+        return WriterMode.BINARY_COPY;
+    }
+
+    @Override
+    public boolean supportsCopy() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsUnloggedTables() {
+        return true;
+    }
+
+    @Override
+    public boolean isUnlogged(Connection connection, String tableName) throws SQLException {
+        String sql = "SELECT relpersistence FROM pg_class WHERE relname = ? AND relkind = 'r' AND pg_table_is_visible(oid)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName.toLowerCase());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && "u".equals(resultSet.getString(1));
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsTwoPhaseCommit() {
+        return true;
+    }
+
+    /**
+     * Uses {@code set_config(name, value, true)}, which is {@code SET LOCAL} with the value as a parameter.
+     */
+    @Override
+    public void setLocal(Connection connection, String name, String value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT set_config(?, ?, true)")) {
+            statement.setString(1, name);
+            statement.setString(2, value);
+            statement.execute();
+        }
+    }
+
+    @Override
+    public void analyze(Statement statement, String tableName) throws SQLException {
+        statement.execute("ANALYZE " + tableName);
+    }
+
+    @Override
+    public boolean supportsPrimaryKeyUsingIndex() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsCluster() {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pb.writer;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Writes rows into a table. Values are given in column order and, unless the implementation says otherwise,
+ * must already be converted to the Java type of their column (see {@link com.pb.util.ValueConverter}).
+ */
+public interface RowWriter extends AutoCloseable {
+
+    void writeRow(Object[] values) throws Exception;
+
+    /**
+     * Sends all pending rows to the database.
+     *
+     * @return The total number of rows written.
+     */
+    long finish() throws Exception;
+
+    /**
+     * Changes the type of a column for the rows written from now on, widening the column in the table as well.
+     * Rows written before keep their values, converted by the database.
+     *
+     * @param columnIndex The column index.
+     * @param columnType  The new, wider column type.
+     * @throws UnsupportedOperationException if the writer cannot change column types.
+     */
+    default void changeColumnType(int columnIndex, String columnType) throws Exception {
+        throw new UnsupportedOperationException("Column types cannot be changed by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Returns the current column types, including any widened columns.
+     *
+     * @return The column types by column index, or null if the writer does not track them.
+     */
+    default Map<Integer, String> columnTypes() {
+        return null;
+    }
+
+    /**
+     * Commits the rows written so far together with the checkpoint and continues in a new transaction.
+     *
+     * @param checkpoint The work to commit with the rows.
+     * @return The total number of rows committed.
+     * @throws UnsupportedOperationException if the writer cannot commit before it finishes.
+     */
+    default long commit(Checkpoint checkpoint) throws Exception {
+        throw new UnsupportedOperationException("Intermediate commits are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Releases the writer's statements and connections, rolling back unless it finished. Throws no
+     * {@link InterruptedException}, so that try-with-resources never has to handle one.
+     */
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,30 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.util.Map;
+
+/**
+ * Creates the target writers of a load on a given connection and changes the table when a column has to be widened.
+ */
+@FunctionalInterface
+public interface RowWriterFactory {
+
+    /**
+     * Creates a writer for the table on the connection.
+     *
+     * @param connection  The connection, with auto-commit off.
+     * @param columnTypes The current column types.
+     */
+    RowWriter create(Connection connection, Map<Integer, String> columnTypes) throws Exception;
+
+    /**
+     * Changes the type of a column of the table, inside the transaction of the connection.
+     *
+     * @param connection  The connection the rows are written on.
+     * @param columnIndex The column index.
+     * @param columnType  The new column type.
+     */
+    default void alterColumnType(Connection connection, int columnIndex, String columnType) throws Exception {
+        throw new UnsupportedOperationException("Changing column types is not supported by this writer");
+    }
+}
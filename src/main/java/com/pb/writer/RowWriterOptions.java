@@ -0,0 +1,14 @@
+package com.pb.writer;
+
+/**
+ * How the load that opens a {@link RowWriter} uses it, as chosen by the caller rather than read from the
+ * configuration by the writer.
+ *
+ * @param checkpointed Whether the load commits with {@link RowWriter#commit} as it goes, which needs a single
+ *                     connection and no pipeline thread.
+ * @param rowHash      Whether the last column is not read from the source but holds the row's hash, see
+ *                     {@link DeltaApplier#ROW_HASH_COLUMN}.
+ */
+public record RowWriterOptions(boolean checkpointed, boolean rowHash) {
+    public static final RowWriterOptions DEFAULT = new RowWriterOptions(false, false);
+}
@@ -0,0 +1,176 @@
+package com.pb.writer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static com.pb.util.TableNameUtil.validateTableName;
+
+/**
+ * Remembers the column types of loaded files in a table of the target database, keyed by the table, the format of
+ * the file and a signature of its header row. A later file of the same shape can reuse the types instead of
+ * inferring them again. Entries are updated when a load has to widen a column, unless they are pinned.
+ */
+public class SchemaCache {
+    private static final String TYPE_SEPARATOR = ";";
+
+    private final String cacheTable;
+
+    /**
+     * The cached types of a file shape.
+     *
+     * @param columnTypes The column types, by column index.
+     * @param pinned      Whether the entry is kept as it is when a load widens a column.
+     */
+    public record Entry(Map<Integer, String> columnTypes, boolean pinned) {
+    }
+
+    public SchemaCache(String cacheTable) {
+        validateTableName(cacheTable);
+        this.cacheTable = cacheTable;
+    }
+
+    /**
+     * Returns the signature of a header row: a SHA-256 hash of the column names in order.
+     */
+    public static String signature(Map<Integer, String> headers) {
+        StringJoiner names = new StringJoiner("\u001F");
+        for (int i = 0; i < headers.size(); i++) {
+            names.add(headers.get(i));
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(names.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates the cache table if it does not exist yet.
+     */
+    public void createTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + cacheTable + " ("
+                    + "table_name VARCHAR(255) NOT NULL, "
+                    + "format VARCHAR(16) NOT NULL, "
+                    + "header_signature VARCHAR(64) NOT NULL, "
+                    + "column_types TEXT NOT NULL, "
+                    + "pinned BOOLEAN NOT NULL, "
+                    + "updated_at TIMESTAMP NOT NULL, "
+                    + "PRIMARY KEY (table_name, format, header_signature))");
+        }
+    }
+
+    /**
+     * @return The cached types of the file shape, or null if the cache has none.
+     */
+    public Entry find(Connection connection, String tableName, String format, String signature) throws SQLException {
+        String sql = "SELECT column_types, pinned FROM " + cacheTable + " WHERE table_name = ? AND format = ? AND header_signature = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            statement.setString(2, format);
+            statement.setString(3, signature);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                Map<Integer, String> columnTypes = new HashMap<>();
+                String[] types = resultSet.getString(1).split(TYPE_SEPARATOR);
+                for (int i = 0; i < types.length; i++) {
+                    columnTypes.put(i, types[i]);
+                }
+                return new Entry(columnTypes, resultSet.getBoolean(2));
+            }
+        }
+    }
+
+    /**
+     * Stores the types of a file shape in a transaction of its own, replacing the entry unless it is pinned.
+     *
+     * @return Whether the entry was stored.
+     */
+    public boolean save(Connection connection, String tableName, String format, String signature, Map<Integer, String> columnTypes,
+                        boolean pinned) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            Entry entry = find(connection, tableName, format, signature);
+            if (entry != null && entry.pinned()) {
+                connection.rollback();
+                return false;
+            }
+            delete(connection, tableName, format, signature);
+            StringJoiner types = new StringJoiner(TYPE_SEPARATOR);
+            for (int i = 0; i < columnTypes.size(); i++) {
+                types.add(columnTypes.get(i));
+            }
+            String sql = "INSERT INTO " + cacheTable
+                    + " (table_name, format, header_signature, column_types, pinned, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, tableName);
+                statement.setString(2, format);
+                statement.setString(3, signature);
+                statement.setString(4, types.toString());
+                statement.setBoolean(5, pinned);
+                statement.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                statement.executeUpdate();
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Removes the entry of a file shape, pinned or not.
+     */
+    public void delete(Connection connection, String tableName, String format, String signature) throws SQLException {
+        String sql = "DELETE FROM " + cacheTable + " WHERE table_name = ? AND format = ? AND header_signature = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            statement.setString(2, format);
+            statement.setString(3, signature);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes all entries of a table, pinned or not, so that its next load infers the types again.
+     *
+     * @return The number of entries removed.
+     */
+    public int invalidate(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + cacheTable + " WHERE table_name = ?")) {
+            statement.setString(1, tableName);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Pins or unpins all entries of a table.
+     *
+     * @return The number of entries changed.
+     */
+    public int pin(Connection connection, String tableName, boolean pinned) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE " + cacheTable + " SET pinned = ? WHERE table_name = ?")) {
+            statement.setBoolean(1, pinned);
+            statement.setString(2, tableName);
+            return statement.executeUpdate();
+        }
+    }
+}
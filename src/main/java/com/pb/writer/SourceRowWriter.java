@@ -0,0 +1,137 @@
+package com.pb.writer;
+
+import com.pb.util.ColumnConverter;
+import com.pb.util.ColumnType;
+import com.pb.util.RowHash;
+import com.pb.util.SqlType;
+import com.pb.util.ValueConverter;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Accepts rows as they come from a file reader, converts every value to the Java type of its column and
+ * passes the row on to the target writer. Logs the throughput of the load when it finishes.
+ * <p>
+ * A value that does not fit its column type (e.g. {@code "N/A"} in an INTEGER column, or 40000 in a SMALLINT
+ * column) widens the column to the narrowest type that holds both, see {@link SqlType#join}, through
+ * {@link RowWriter#changeColumnType}, instead of failing the load. Widening can be switched off with
+ * {@code ingest.widen-on-mismatch: false}.
+ */
+public class SourceRowWriter implements RowWriter {
+    private static final Logger log = Logger.getLogger(SourceRowWriter.class.getName());
+
+    private final RowWriter target;
+    private final String description;
+    private final SqlType[] columnTypes;
+    private final ColumnConverter[] converters;
+    private final boolean textValues;
+    private final boolean widen;
+    private final boolean rowHash;
+    private final int columnCount;
+    private final long start = System.nanoTime();
+
+    /**
+     * @param target      The writer that receives the converted rows.
+     * @param description How the rows are written, for the throughput log line.
+     * @param columnTypes The column types.
+     * @param textValues  Whether the source values are text (CSV) rather than typed values (DBF, XLSX).
+     * @param widen       Whether a value that does not fit its column widens the column instead of failing.
+     */
+    public SourceRowWriter(RowWriter target, String description, Map<Integer, String> columnTypes, boolean textValues, boolean widen) {
+        this(target, description, columnTypes, textValues, widen, false);
+    }
+
+    /**
+     * @param rowHash Whether the last column is not read from the source but holds the {@link RowHash} of the
+     *                other columns, see {@link DeltaApplier#ROW_HASH_COLUMN}.
+     */
+    public SourceRowWriter(RowWriter target, String description, Map<Integer, String> columnTypes, boolean textValues, boolean widen,
+                           boolean rowHash) {
+        this.target = target;
+        this.description = description;
+        this.textValues = textValues;
+        this.widen = widen;
+        this.rowHash = rowHash;
+        this.columnCount = columnTypes.size();
+        this.columnTypes = new SqlType[columnCount];
+        this.converters = new ColumnConverter[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            this.columnTypes[i] = SqlType.parse(columnTypes.get(i));
+            this.converters[i] = ValueConverter.compile(this.columnTypes[i], textValues);
+        }
+    }
+
+    @Override
+    public void writeRow(Object[] row) throws Exception {
+        Object[] values = new Object[columnCount];
+        int sourceColumns = rowHash ? columnCount - 1 : columnCount;
+        for (int i = 0; i < sourceColumns; i++) {
+            Object value = i < row.length ? row[i] : null;
+            values[i] = convert(value, i);
+        }
+        if (rowHash) {
+            values[sourceColumns] = RowHash.of(values, sourceColumns);
+        }
+        target.writeRow(values);
+    }
+
+    private Object convert(Object value, int columnIndex) throws Exception {
+        SqlType columnType = columnTypes[columnIndex];
+        try {
+            Object converted = converters[columnIndex].convert(value);
+            if (converted != null || value == null || "".equals(value)) {
+                return converted;
+            }
+        } catch (IllegalArgumentException e) {
+            if (!widen) {
+                throw new IllegalArgumentException("Value '" + value + "' does not fit column " + columnIndex + " of type " + columnType, e);
+            }
+        }
+        // Typed values (DBF, XLSX) that do not fit convert to null instead of throwing
+        if (!widen) {
+            throw new IllegalArgumentException("Value '" + value + "' does not fit column " + columnIndex + " of type " + columnType);
+        }
+
+        SqlType valueType = textValues ? SqlType.ofText((String) value) : SqlType.ofObject(value);
+        SqlType widenedType = SqlType.join(columnType, valueType);
+        if (widenedType.equals(columnType)) {
+            widenedType = SqlType.of(ColumnType.TEXT);
+        }
+        log.warning("Value '" + value + "' does not fit column " + columnIndex + " of type " + columnType + ", widening it to " + widenedType);
+        target.changeColumnType(columnIndex, widenedType.toString());
+        columnTypes[columnIndex] = widenedType;
+        converters[columnIndex] = ValueConverter.compile(widenedType, textValues);
+        return convert(value, columnIndex);
+    }
+
+    @Override
+    public Map<Integer, String> columnTypes() {
+        Map<Integer, String> types = new HashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            types.put(i, columnTypes[i].toString());
+        }
+        return types;
+    }
+
+    @Override
+    public long commit(Checkpoint checkpoint) throws Exception {
+        return target.commit(checkpoint);
+    }
+
+    @Override
+    public long finish() throws Exception {
+        long total = target.finish();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Total " + total + " rows have been inserted into the table in " + millis + " ms ("
+                + (total * 1000 / millis) + " rows/s, " + description + ").");
+        return total;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        target.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.pb.writer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static com.pb.util.TableNameUtil.validateSqlIdentifier;
+
+/**
+ * Publishes a table that was loaded under a staging name in place of the live table. The staging table is created
+ * UNLOGGED on PostgreSQL (see {@link DatabaseWriter#createStagingTable}), so its rows are not written to the WAL
+ * while they are loaded. Publishing makes it logged and analyzes it, both before the live table is touched, and
+ * then replaces the live table in one short transaction. Readers see the old table until that transaction commits
+ * and the new one right after.
+ */
+public class StagingTable {
+    /**
+     * Appended to the name of the live table to get the name of its staging table.
+     */
+    public static final String SUFFIX = "_staging";
+
+    private static final Logger log = Logger.getLogger(StagingTable.class.getName());
+
+    private final boolean setLogged;
+    private final String maintenanceWorkMem;
+
+    /**
+     * @param setLogged          Whether to make the table logged before publishing it; an unlogged table is emptied
+     *                           by PostgreSQL after a crash.
+     * @param maintenanceWorkMem The {@code maintenance_work_mem} of the transactions that prepare the table, or null
+     *                           to keep the server setting.
+     */
+    public StagingTable(boolean setLogged, String maintenanceWorkMem) {
+        this.setLogged = setLogged;
+        this.maintenanceWorkMem = maintenanceWorkMem;
+    }
+
+    /**
+     * Returns the name of the staging table of a table.
+     */
+    public static String nameOf(String tableName) {
+        return tableName + SUFFIX;
+    }
+
+    /**
+     * Makes the staging table logged, analyzes it and replaces the target table with it.
+     *
+     * @param connection   The connection; left with its auto-commit setting unchanged.
+     * @param stagingTable The loaded staging table.
+     * @param targetTable  The live table, which need not exist yet.
+     */
+    public void publish(Connection connection, String stagingTable, String targetTable) throws SQLException {
+        validateSqlIdentifier(stagingTable);
+        validateSqlIdentifier(targetTable);
+        Dialect dialect = Dialect.of(connection);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            if (dialect.supportsUnloggedTables()) {
+                long start = System.nanoTime();
+                if (maintenanceWorkMem != null) {
+                    dialect.setLocal(connection, "maintenance_work_mem", maintenanceWorkMem);
+                }
+                if (setLogged) {
+                    statement.execute("ALTER TABLE " + stagingTable + " SET LOGGED");
+                }
+                dialect.analyze(statement, stagingTable);
+                connection.commit();
+                log.info("Prepared " + stagingTable + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            }
+
+            long start = System.nanoTime();
+            statement.execute("DROP TABLE IF EXISTS " + targetTable);
+            statement.execute("ALTER TABLE " + stagingTable + " RENAME TO " + targetTable);
+            renameIndexes(connection, statement, stagingTable, targetTable);
+            connection.commit();
+            log.info("Replaced " + targetTable + " with " + stagingTable + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Renames the indexes named after the staging table, e.g. by {@link IndexBuilder}, after the target table, so
+     * that the next staging table can use their names again.
+     */
+    private static void renameIndexes(Connection connection, Statement statement, String stagingTable, String targetTable) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        boolean upperCase = metaData.storesUpperCaseIdentifiers();
+        String table = upperCase ? targetTable.toUpperCase() : targetTable.toLowerCase();
+        String prefix = (upperCase ? stagingTable.toUpperCase() : stagingTable.toLowerCase()) + "_";
+        Set<String> indexNames = new LinkedHashSet<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(null, connection.getSchema(), table, false, true)) {
+            while (resultSet.next()) {
+                String indexName = resultSet.getString("INDEX_NAME");
+                if (indexName != null && indexName.startsWith(prefix)) {
+                    indexNames.add(indexName);
+                }
+            }
+        }
+        for (String indexName : indexNames) {
+            statement.execute("ALTER INDEX " + indexName + " RENAME TO " + targetTable + indexName.substring(stagingTable.length()));
+        }
+    }
+
+    /**
+     * Drops the staging table.
+     */
+    public void dropTable(Connection connection, String stagingTable) throws SQLException {
+        validateSqlIdentifier(stagingTable);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + stagingTable);
+        }
+    }
+}
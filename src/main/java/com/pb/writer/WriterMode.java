@@ -0,0 +1,22 @@
+package com.pb.writer;
+
+/**
+ * How rows are sent to the database, configured with {@code writer.mode}.
+ */
+public enum WriterMode {
+    /** Binary COPY when the connection is PostgreSQL, batched inserts otherwise. */
+    AUTO,
+    /** Batched prepared INSERT statements, works with any JDBC target. */
+    BATCH,
+    /** PostgreSQL {@code COPY ... FROM STDIN} in text format. */
+    COPY,
+    /** PostgreSQL {@code COPY ... FROM STDIN (FORMAT BINARY)}. */
+    BINARY_COPY;
+
+    public static WriterMode fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return AUTO;
+        }
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -152,9 +152,18 @@ public class ExcelToDatabase {
 
     private static void setPreparedStatementValue(PreparedStatement preparedStatement, int parameterIndex, Cell cell, String columnType) throws SQLException {
         switch (columnType) {
+            case "SMALLINT":
+            case "INTEGER":
+            case "BIGINT":
+                preparedStatement.setLong(parameterIndex, (long) cell.getNumericCellValue());
+                break;
             case "NUMERIC":
+            case "DOUBLE PRECISION":
                 preparedStatement.setDouble(parameterIndex, cell.getNumericCellValue());
                 break;
+            case "DATE":
+                preparedStatement.setDate(parameterIndex, new java.sql.Date(cell.getDateCellValue().getTime()));
+                break;
             case "TIMESTAMP":
                 preparedStatement.setTimestamp(parameterIndex, new Timestamp(cell.getDateCellValue().getTime()));
                 break;
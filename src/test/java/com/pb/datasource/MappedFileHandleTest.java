@@ -0,0 +1,54 @@
+package com.pb.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class MappedFileHandleTest {
+
+    @Test
+    public void shouldReopenStreamsAtAnyOffset() throws Exception {
+        Path file = Files.createTempFile("mapped", ".csv");
+        Files.writeString(file, "ID,NAME\n1,Employee1\n");
+
+        try (SourceHandle handle = new FileSystemDataSource().open(file.toString())) {
+            assertEquals(20, handle.size());
+            try (InputStream first = handle.openStream(); InputStream second = handle.openStream()) {
+                assertEquals("ID,NAME\n1,Employee1\n", new String(first.readAllBytes(), StandardCharsets.UTF_8));
+                assertEquals("ID,NAME\n1,Employee1\n", new String(second.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            try (InputStream fromOffset = handle.openStream(8)) {
+                assertEquals(2, fromOffset.skip(2));
+                assertEquals("Employee1\n", new String(fromOffset.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            ByteBuffer region = handle.map(0, 2);
+            byte[] bytes = new byte[2];
+            region.get(bytes);
+            assertArrayEquals("ID".getBytes(StandardCharsets.UTF_8), bytes);
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    public void shouldSpoolNonSeekableSourceAndDeleteItOnClose() throws Exception {
+        DataSource streamOnly = source -> new ByteArrayInputStream("a,b\n".getBytes(StandardCharsets.UTF_8));
+        Path spooled;
+
+        try (SourceHandle handle = streamOnly.open("stream")) {
+            spooled = handle.getPath();
+            try (InputStream inputStream = handle.openStream()) {
+                assertEquals("a,b\n", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertFalse(Files.exists(spooled));
+    }
+}
@@ -0,0 +1,62 @@
+package com.pb.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceFingerprintTest {
+
+    @Test
+    public void shouldMatchReferenceXxh64() {
+        assertEquals(0xEF46DB3751D8E999L, xxh64(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, xxh64("a"));
+        assertEquals(0x44BC2CF5AD770999L, xxh64("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, xxh64("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void shouldHashPiecesLikeTheWhole() {
+        byte[] bytes = new byte[32 * 100 + 13];
+        new Random(7).nextBytes(bytes);
+        SourceFingerprint.Xxh64 whole = new SourceFingerprint.Xxh64();
+        whole.update(ByteBuffer.wrap(bytes));
+        SourceFingerprint.Xxh64 pieces = new SourceFingerprint.Xxh64();
+        pieces.update(ByteBuffer.wrap(bytes, 0, 32 * 40).slice());
+        pieces.update(ByteBuffer.wrap(bytes, 32 * 40, bytes.length - 32 * 40).slice());
+        assertEquals(whole.digest(), pieces.digest());
+    }
+
+    @Test
+    public void shouldSampleHugeSources() throws Exception {
+        Path file = Files.createTempFile("fingerprint", ".csv");
+        byte[] bytes = new byte[8 * 1024 * 1024];
+        new Random(1).nextBytes(bytes);
+        Files.write(file, bytes);
+        try (SourceHandle handle = new FileSystemDataSource().open(file.toString())) {
+            SourceFingerprint full = SourceFingerprint.of(handle);
+            SourceFingerprint sampled = SourceFingerprint.of(handle, 1024 * 1024, 4);
+            assertFalse(full.sampled());
+            assertTrue(sampled.sampled());
+            assertEquals(bytes.length, full.size());
+            assertEquals(Files.getLastModifiedTime(file).toMillis(), full.modified());
+            assertNotEquals(full.hash(), sampled.hash());
+            assertEquals(full, SourceFingerprint.of(handle));
+        }
+        Files.delete(file);
+    }
+
+    private static long xxh64(String text) {
+        SourceFingerprint.Xxh64 xxh64 = new SourceFingerprint.Xxh64();
+        xxh64.update(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        return xxh64.digest();
+    }
+}
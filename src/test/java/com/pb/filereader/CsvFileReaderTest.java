@@ -0,0 +1,58 @@
+package com.pb.filereader;
+
+import com.pb.datasource.FileSystemDataSource;
+import com.pb.datasource.SourceHandle;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvFileReaderTest {
+
+    @Test
+    public void shouldPassTheOffsetAfterEachRecordWhileReading() throws Exception {
+        StringBuilder csv = new StringBuilder("ID,NOTE\r\n");
+        List<Long> recordEnds = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            String note = i % 4 == 0 ? "\"first\nsecond \"\"quoted\"\"\r\nthird\"" : "note " + i;
+            csv.append(i).append(',').append(note).append(i % 2 == 0 ? "\r\n" : "\n");
+            recordEnds.add((long) csv.toString().getBytes(StandardCharsets.UTF_8).length);
+        }
+        csv.append("301,last without line break");
+        recordEnds.add((long) csv.toString().getBytes(StandardCharsets.UTF_8).length);
+        Path file = Files.createTempFile("offsets", ".csv");
+        Files.writeString(file, csv);
+
+        try (SourceHandle source = new FileSystemDataSource().open(file.toString())) {
+            List<Long> offsets = new ArrayList<>();
+            CsvFileReader reader = new CsvFileReader();
+            reader.readRows(source, SourcePosition.START, new RowHandler() {
+                @Override
+                public void handleRow(long rowNumber, Object[] values, long nextOffset) {
+                    assertEquals(String.valueOf(rowNumber), values[0]);
+                    offsets.add(nextOffset);
+                }
+
+                @Override
+                public void handleRow(long rowNumber, Object[] values) {
+                    throw new AssertionError("offset expected");
+                }
+            });
+            assertEquals(recordEnds, offsets);
+
+            List<String> resumed = new ArrayList<>();
+            reader.readRows(source, new SourcePosition(200, recordEnds.get(199)),
+                    (rowNumber, values) -> resumed.add(rowNumber + "|" + values[0]));
+            assertEquals(101, resumed.size());
+            assertEquals("201|201", resumed.get(0));
+            assertEquals("301|301", resumed.get(100));
+        }
+        Files.delete(file);
+    }
+}
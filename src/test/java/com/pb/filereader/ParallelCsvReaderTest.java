@@ -0,0 +1,88 @@
+package com.pb.filereader;
+
+import com.pb.datasource.FileSystemDataSource;
+import com.pb.datasource.SourceHandle;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelCsvReaderTest {
+
+    @Test
+    public void shouldKeepQuotedLineBreaksTogetherAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("\"ID\",\"NOTE\"\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            String note = i % 3 == 0 ? "line one\nline \"\"two\"\"\nline three" : "note " + i;
+            csv.append('"').append(i).append("\",\"").append(note).append("\"\n");
+            expected.add(i + "|" + note.replace("\"\"", "\""));
+        }
+        Path file = Files.createTempFile("parallel", ".csv");
+        Files.writeString(file, csv);
+
+        try (SourceHandle source = new FileSystemDataSource().open(file.toString())) {
+            List<String> ordered = new ArrayList<>();
+            Map<Integer, String> headers = new HashMap<>();
+            new ParallelCsvReader(4, 37, true).read(source, new RowHandler() {
+                @Override
+                public void handleHeaders(Map<Integer, String> headerMap) {
+                    headers.putAll(headerMap);
+                }
+
+                @Override
+                public void handleRow(long rowNumber, Object[] values) {
+                    ordered.add(values[0] + "|" + values[1]);
+                }
+            });
+            assertEquals(Map.of(0, "ID", 1, "NOTE"), headers);
+            assertEquals(expected, ordered);
+
+            List<String> unordered = new ArrayList<>();
+            new ParallelCsvReader(4, 37, false).read(source, (rowNumber, values) -> unordered.add(values[0] + "|" + values[1]));
+            String[] sorted = unordered.toArray(new String[0]);
+            String[] expectedSorted = expected.toArray(new String[0]);
+            Arrays.sort(sorted);
+            Arrays.sort(expectedSorted);
+            assertEquals(Arrays.asList(expectedSorted), Arrays.asList(sorted));
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    public void shouldReadBackslashesLikeTheSequentialReader() throws Exception {
+        StringBuilder csv = new StringBuilder("ID,PATH,NOTE\n");
+        for (int i = 1; i <= 200; i++) {
+            String note = switch (i % 4) {
+                case 0 -> "\"say \\\"hi\\\"\"";
+                case 1 -> "a \\\"b\\\" c";
+                case 2 -> "\"two\nlines \\\"";
+                default -> "\"\"\"doubled\"\" \\\"";
+            };
+            csv.append(i).append(",\"C:\\path\\").append(i).append("\\\",").append(note).append('\n');
+        }
+        Path file = Files.createTempFile("backslash", ".csv");
+        Files.writeString(file, csv);
+
+        try (SourceHandle source = new FileSystemDataSource().open(file.toString())) {
+            List<List<Object>> sequential = new ArrayList<>();
+            new CsvFileReader().readRows(source, (rowNumber, values) -> sequential.add(Arrays.asList(values)));
+            List<List<Object>> parallel = new ArrayList<>();
+            new ParallelCsvReader(4, 53, true).read(source, (rowNumber, values) -> parallel.add(Arrays.asList(values)));
+
+            assertEquals(200, sequential.size());
+            assertEquals(List.of("1", "C:\\path\\1\\", "a \\\"b\\\" c"), sequential.get(0));
+            assertEquals(List.of("4", "C:\\path\\4\\", "say \\\"hi\\\""), sequential.get(3));
+            assertEquals(sequential, parallel);
+        }
+        Files.delete(file);
+    }
+}
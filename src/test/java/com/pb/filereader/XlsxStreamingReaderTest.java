@@ -0,0 +1,98 @@
+package com.pb.filereader;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XlsxStreamingReaderTest {
+
+    @Test
+    public void shouldEmitTypedValuesRowByRow() throws Exception {
+        File file = createWorkbook();
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> rowNumbers = new ArrayList<>();
+
+        new XlsxStreamingReader().read(file, (rowNumber, values) -> {
+            rowNumbers.add(rowNumber);
+            rows.add(values);
+        });
+
+        assertEquals(List.of(0L, 1L, 3L), rowNumbers);
+        assertArrayEquals(new Object[]{"ID", "NAME", "JOIN_DATE", "ACTIVE"}, rows.get(0));
+        assertEquals(1.0, rows.get(1)[0]);
+        assertEquals("Employee1", rows.get(1)[1]);
+        assertTrue(rows.get(1)[2] instanceof Date);
+        assertEquals(Boolean.TRUE, rows.get(1)[3]);
+        assertEquals(2.5, rows.get(2)[0]);
+        assertNull(rows.get(2)[1]);
+        assertEquals(3, rows.get(2).length);
+        file.delete();
+    }
+
+    @Test
+    public void shouldStopWhenHandlerAsks() throws Exception {
+        File file = createWorkbook();
+        List<Long> rowNumbers = new ArrayList<>();
+
+        XlsxStreamingReader reader = new XlsxStreamingReader();
+        reader.read(file, (rowNumber, values) -> {
+            rowNumbers.add(rowNumber);
+            reader.stop();
+        });
+
+        assertEquals(List.of(0L), rowNumbers);
+        file.delete();
+    }
+
+    @Test
+    public void shouldConvertCellReferenceToColumnIndex() {
+        assertEquals(0, XlsxStreamingReader.columnIndex("A1"));
+        assertEquals(25, XlsxStreamingReader.columnIndex("Z10"));
+        assertEquals(27, XlsxStreamingReader.columnIndex("AB3"));
+    }
+
+    private File createWorkbook() throws IOException {
+        File file = File.createTempFile("streaming", ".xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); FileOutputStream fos = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ID");
+            header.createCell(1).setCellValue("NAME");
+            header.createCell(2).setCellValue("JOIN_DATE");
+            header.createCell(3).setCellValue("ACTIVE");
+
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue(1);
+            first.createCell(1).setCellValue("Employee1");
+            first.createCell(2).setCellValue(new Date());
+            first.getCell(2).setCellStyle(dateStyle);
+            first.createCell(3).setCellValue(true);
+
+            Row third = sheet.createRow(3);
+            third.createCell(0).setCellValue(2.5);
+            third.createCell(2).setCellValue(new Date());
+            third.getCell(2).setCellStyle(dateStyle);
+
+            workbook.write(fos);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,139 @@
+package com.pb.service;
+
+import com.pb.datasource.FileSystemDataSource;
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.writer.DatabaseWriter;
+import com.pb.writer.PostgresDatabaseWriter;
+import com.pb.writer.RowWriter;
+import com.pb.writer.RowWriterOptions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchProcessingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldResolveDirectoryGlobAndManifest() throws IOException {
+        Path first = writeCsv("batch_a.csv", 1);
+        Path second = writeCsv("batch_b.csv", 1);
+        Files.createDirectory(directory.resolve("nested"));
+        Path nested = writeCsv("nested/batch_c.csv", 1);
+        Files.writeString(directory.resolve("notes.md"), "not data");
+        Path manifest = Files.writeString(directory.resolve("files.lst"), "# nightly\nbatch_b.csv\n\nnested/batch_c.csv\n");
+
+        assertEquals(List.of(first, second), BatchProcessingService.resolve(directory.toString()));
+        assertEquals(List.of(first, second, nested), BatchProcessingService.resolve(directory + "/**.csv"));
+        assertEquals(List.of(second), BatchProcessingService.resolve(directory + "/*_b.csv"));
+        assertEquals(List.of(second, nested), BatchProcessingService.resolve(manifest.toString()));
+        assertTrue(BatchProcessingService.isBatch(manifest.toString()));
+        assertFalse(BatchProcessingService.isBatch(first.toString()));
+    }
+
+    @Test
+    void shouldLoadFilesConcurrentlyAndReportEachOne() throws Exception {
+        int files = 12;
+        for (int i = 0; i < files; i++) {
+            writeCsv("batch_load_" + i + ".csv", 10 + i);
+        }
+        Files.writeString(directory.resolve("batch_load_broken.csv"), "");
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+
+        List<BatchProcessingService.FileResult> results = new BatchProcessingService(new FileSystemDataSource(),
+                new PostgresDatabaseWriter(), 2, 3).processFiles(BatchProcessingService.resolve(directory.toString()));
+
+        assertEquals(files + 1, results.size());
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement stmt = connection.createStatement()) {
+            for (BatchProcessingService.FileResult result : results) {
+                if (result.path().getFileName().toString().equals("batch_load_broken.csv")) {
+                    assertNotNull(result.failure());
+                    continue;
+                }
+                assertNull(result.failure());
+                int index = Integer.parseInt(result.path().getFileName().toString().replaceAll("\\D", ""));
+                assertEquals(10 + index, result.rows());
+                assertEquals(Files.size(result.path()), result.bytes());
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM batch_load_" + index)) {
+                    assertTrue(rs.next());
+                    assertEquals(10 + index, rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldHoldTheParsePermitWhileRowsAreRead() throws Exception {
+        Semaphore parsePermits = new Semaphore(1);
+        Semaphore sessionPermits = new Semaphore(2);
+        ThrottledDatabaseWriter writer = new ThrottledDatabaseWriter(new DatabaseWriter() {
+            @Override
+            public void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) {
+            }
+
+            @Override
+            public void insertData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                                   InputStream inputStream) {
+            }
+
+            @Override
+            public RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                                           RowWriterOptions options) {
+                return new RowWriter() {
+                    @Override
+                    public void writeRow(Object[] values) {
+                    }
+
+                    @Override
+                    public long finish() {
+                        assertEquals(1, parsePermits.availablePermits());
+                        return 0;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        }, parsePermits, sessionPermits);
+
+        writer.acquire();
+        assertEquals(0, parsePermits.availablePermits());
+        writer.createTable(Map.of(), Map.of(), "throttled");
+        assertEquals(1, parsePermits.availablePermits());
+        assertEquals(1, sessionPermits.availablePermits());
+        RowWriter rowWriter = writer.openRowWriter(Map.of(), Map.of(), "throttled", "csv");
+        assertEquals(0, parsePermits.availablePermits());
+        rowWriter.finish();
+        writer.release();
+        assertEquals(1, parsePermits.availablePermits());
+        assertEquals(2, sessionPermits.availablePermits());
+    }
+
+    private Path writeCsv(String name, int rows) throws IOException {
+        StringBuilder content = new StringBuilder("ID,NAME\n");
+        for (int i = 1; i <= rows; i++) {
+            content.append(i).append(",Name").append(i).append('\n');
+        }
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
@@ -0,0 +1,357 @@
+package com.pb.service;
+
+import com.pb.datasource.FileSystemDataSource;
+import com.pb.filereader.CsvFileReader;
+import com.pb.filereader.DbfFileReader;
+import com.pb.filereader.FileReader;
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.util.DbfFileGenerator;
+import com.pb.writer.Checkpoint;
+import com.pb.writer.DatabaseWriter;
+import com.pb.writer.PostgresDatabaseWriter;
+import com.pb.writer.RowWriter;
+import com.pb.writer.RowWriterOptions;
+import com.pb.writer.SchemaCache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileProcessingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void restoreProperties() {
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+    }
+
+    @Test
+    void shouldResumeCsvLoadFromLastCheckpoint() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-checkpoint-test.yml");
+        StringBuilder content = new StringBuilder("ID,NOTE\n");
+        for (int i = 1; i <= 5000; i++) {
+            content.append(i).append(i % 7 == 0 ? ",\"line one\nline \"\"two\"\"\"\n" : ",plain\n");
+        }
+        Path file = Files.writeString(directory.resolve("checkpoint_csv.csv"), content);
+
+        assertResumes(file, CsvFileReader::new, 5000);
+    }
+
+    @Test
+    void shouldResumeCsvLoadWithBackslashQuotes() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-checkpoint-test.yml");
+        StringBuilder content = new StringBuilder("ID,SIZE,NOTE\n");
+        for (int i = 1; i <= 5000; i++) {
+            content.append(i).append(i % 5 == 0 ? ",5\\\" disk" : ",5")
+                    .append(i % 7 == 0 ? ",\"C:\\dir\\\"\n" : ",\"say \\\"hi\\\"\"\n");
+        }
+        Path file = Files.writeString(directory.resolve("checkpoint_backslash.csv"), content);
+
+        assertResumes(file, CsvFileReader::new, 5000);
+        assertEquals("5\\\" disk", string("SELECT SIZE FROM checkpoint_backslash WHERE ID = 2505"));
+        assertEquals("C:\\dir\\", string("SELECT NOTE FROM checkpoint_backslash WHERE ID = 2506"));
+        assertEquals("say \\\"hi\\\"", string("SELECT NOTE FROM checkpoint_backslash WHERE ID = 2507"));
+    }
+
+    @Test
+    void shouldResumeDbfLoadFromLastCheckpoint() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-checkpoint-test.yml");
+        Path file = directory.resolve("checkpoint_dbf.dbf");
+        new DbfFileGenerator().generateDbfFileOnDisk(file.toString(), 5000);
+
+        assertResumes(file, DbfFileReader::new, 5000);
+    }
+
+    @Test
+    void shouldApplyOnlyChangedRowsInDeltaMode() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-delta-test.yml");
+        Path file = directory.resolve("delta_load.csv");
+        Files.writeString(file, csv(1, 1000, 0, null));
+        new FileProcessingService(new CsvFileReader(), new FileSystemDataSource(), new PostgresDatabaseWriter()).processFile(file.toString(), "delta_load.csv");
+        long unchangedHash = count("SELECT _row_hash FROM delta_load WHERE ID = 100");
+
+        Files.writeString(file, csv(11, 1005, 500, "12.345"));
+        CountingDatabaseWriter writer = new CountingDatabaseWriter(Long.MAX_VALUE);
+        new FileProcessingService(new CsvFileReader(), new FileSystemDataSource(), writer).processFile(file.toString(), "delta_load.csv");
+
+        assertFalse(writer.createdTables.contains("delta_load"));
+        assertEquals(995, count("SELECT COUNT(*) FROM delta_load"));
+        assertEquals(0, count("SELECT COUNT(*) FROM delta_load WHERE ID <= 10"));
+        assertEquals(5, count("SELECT COUNT(*) FROM delta_load WHERE ID > 1000"));
+        assertEquals(1, count("SELECT COUNT(*) FROM delta_load WHERE ID = 500 AND SALARY = 12.345"));
+        assertEquals(unchangedHash, count("SELECT _row_hash FROM delta_load WHERE ID = 100"));
+        assertEquals(0, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = 'DELTA_LOAD_DELTA'"));
+    }
+
+    @Test
+    void shouldKeepASourceColumnNamedLikeTheRowHashOutsideDeltaMode() throws Exception {
+        StringBuilder content = new StringBuilder("ID,NAME,_row_hash\n");
+        for (int i = 1; i <= 200; i++) {
+            content.append(i).append(",Name").append(i).append(',').append(i * 10).append('\n');
+        }
+        Path file = Files.writeString(directory.resolve("own_row_hash.csv"), content);
+        load(file, Long.MAX_VALUE);
+
+        assertEquals(200, count("SELECT COUNT(*) FROM own_row_hash"));
+        assertEquals(201000, count("SELECT SUM(_row_hash) FROM own_row_hash"));
+    }
+
+    @Test
+    void shouldSkipFilesAlreadyLoadedUnchanged() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-catalog-test.yml");
+        Path file = Files.writeString(directory.resolve("catalog_load.csv"), csv(1, 100, 0, null));
+
+        assertTrue(load(file, Long.MAX_VALUE).createdTables.contains("catalog_load"));
+        assertTrue(load(file, Long.MAX_VALUE).createdTables.isEmpty());
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+        assertTrue(load(file, Long.MAX_VALUE).createdTables.isEmpty());
+
+        Files.writeString(file, csv(1, 100, 50, "99.99"));
+        assertThrows(IllegalStateException.class, () -> load(file, 10));
+        assertEquals("FAILED", string("SELECT status FROM ingest_catalog WHERE table_name = 'catalog_load'"));
+        assertTrue(load(file, Long.MAX_VALUE).createdTables.contains("catalog_load"));
+        assertEquals("LOADED", string("SELECT status FROM ingest_catalog WHERE table_name = 'catalog_load'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM catalog_load WHERE SALARY = 99.99"));
+
+        for (String sql : List.of("DROP TABLE catalog_load", "TRUNCATE TABLE catalog_load")) {
+            try (Connection connection = DatabaseConnectionManager.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+            assertTrue(load(file, Long.MAX_VALUE).createdTables.contains("catalog_load"), sql);
+            assertEquals(100, count("SELECT COUNT(*) FROM catalog_load"));
+        }
+    }
+
+    @Test
+    void shouldReuseCachedColumnTypesAndWidenThem() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-schema-cache-test.yml");
+        Path file = Files.writeString(directory.resolve("cached_schema.csv"), csv(1, 100, 0, null));
+        AtomicInteger inferences = new AtomicInteger();
+        FileReader fileReader = new CsvFileReader() {
+            @Override
+            public Map<Integer, String> determineColumnTypes(Map<Integer, String> headers, List<Object[]> rows) {
+                inferences.incrementAndGet();
+                return super.determineColumnTypes(headers, rows);
+            }
+        };
+        FileProcessingService service = new FileProcessingService(fileReader, new FileSystemDataSource(), new PostgresDatabaseWriter());
+        service.processFile(file.toString(), "cached_schema.csv");
+        assertEquals(1, inferences.get());
+        String inferredTypes = string("SELECT column_types FROM schema_cache WHERE table_name = 'cached_schema'");
+
+        Files.writeString(file, csv(1, 300, 5, "unknown"));
+        service.processFile(file.toString(), "cached_schema.csv");
+        assertEquals(1, inferences.get());
+        assertEquals(300, count("SELECT COUNT(*) FROM cached_schema"));
+        assertEquals(1, count("SELECT COUNT(*) FROM cached_schema WHERE SALARY = 'unknown'"));
+        String widenedTypes = string("SELECT column_types FROM schema_cache WHERE table_name = 'cached_schema'");
+        assertNotEquals(inferredTypes, widenedTypes);
+
+        SchemaCache cache = new SchemaCache("schema_cache");
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            assertEquals(1, cache.pin(connection, "cached_schema", true));
+        }
+        Files.writeString(file, csv(1, 300, 7, "x".repeat(100)));
+        service.processFile(file.toString(), "cached_schema.csv");
+        assertEquals(1, inferences.get());
+        assertEquals(widenedTypes, string("SELECT column_types FROM schema_cache WHERE table_name = 'cached_schema'"));
+
+        try (Connection connection = DatabaseConnectionManager.getConnection()) {
+            assertEquals(1, cache.invalidate(connection, "cached_schema"));
+        }
+        service.processFile(file.toString(), "cached_schema.csv");
+        assertEquals(2, inferences.get());
+    }
+
+    @Test
+    void shouldReplaceTableOnlyWhenStagedLoadCompletes() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-staging-test.yml");
+        Path file = Files.writeString(directory.resolve("staged_load.csv"), csv(1, 100, 0, null));
+        assertTrue(load(file, Long.MAX_VALUE).createdTables.contains("staged_load_staging"));
+        assertEquals(100, count("SELECT COUNT(*) FROM staged_load"));
+
+        Files.writeString(file, csv(1, 300, 0, null));
+        assertThrows(IllegalStateException.class, () -> load(file, 150));
+        assertEquals(100, count("SELECT COUNT(*) FROM staged_load"));
+
+        load(file, Long.MAX_VALUE);
+        assertEquals(300, count("SELECT COUNT(*) FROM staged_load"));
+        assertEquals(0, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = 'STAGED_LOAD_STAGING'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM schema_cache WHERE table_name = 'staged_load'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM schema_cache WHERE table_name = 'staged_load_staging'"));
+    }
+
+    @Test
+    void shouldLoadInPlaceWhenCheckpointingOverridesStaging() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-checkpoint-staging-test.yml");
+        Path file = Files.writeString(directory.resolve("checkpoint_over_staging.csv"), csv(1, 100, 0, null));
+        CountingDatabaseWriter writer = load(file, Long.MAX_VALUE);
+
+        assertTrue(writer.createdTables.contains("checkpoint_over_staging"));
+        assertFalse(writer.createdTables.contains("checkpoint_over_staging_staging"));
+        assertEquals(100, count("SELECT COUNT(*) FROM checkpoint_over_staging"));
+    }
+
+    @Test
+    void shouldIgnoreCheckpointSettingsWhenDeltaModeTakesPrecedence() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-delta-checkpoint-test.yml");
+        Path file = Files.writeString(directory.resolve("delta_over_checkpoint.csv"), csv(1, 100, 0, null));
+        load(file, Long.MAX_VALUE);
+        Files.writeString(file, csv(1, 100, 50, "12.345"));
+        load(file, Long.MAX_VALUE);
+
+        assertEquals(100, count("SELECT COUNT(*) FROM delta_over_checkpoint"));
+        assertEquals(1, count("SELECT COUNT(*) FROM delta_over_checkpoint WHERE ID = 50 AND SALARY = 12.345"));
+    }
+
+    @Test
+    void shouldBuildDeclaredIndexesAfterLoading() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-index-test.yml");
+        Path file = Files.writeString(directory.resolve("indexed_load.csv"), csv(1, 500, 0, null));
+        load(file, Long.MAX_VALUE);
+        load(file, Long.MAX_VALUE);
+
+        assertEquals(500, count("SELECT COUNT(*) FROM indexed_load"));
+        assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE UPPER(TABLE_NAME) = 'INDEXED_LOAD' "
+                + "AND CONSTRAINT_TYPE = 'PRIMARY KEY'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'INDEXED_LOAD_NAME_IDX'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'INDEXED_LOAD_SALARY_NAME_IDX'"));
+    }
+
+    private CountingDatabaseWriter load(Path file, long failAfter) throws Exception {
+        CountingDatabaseWriter writer = new CountingDatabaseWriter(failAfter);
+        new FileProcessingService(new CsvFileReader(), new FileSystemDataSource(), writer).processFile(file.toString(), file.getFileName().toString());
+        return writer;
+    }
+
+    private String string(String sql) throws Exception {
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static String csv(int firstId, int lastId, int changedId, String changedSalary) {
+        StringBuilder content = new StringBuilder("ID,NAME,SALARY\n");
+        for (int i = firstId; i <= lastId; i++) {
+            content.append(i).append(",Name").append(i).append(',').append(i == changedId ? changedSalary : i + ".50").append('\n');
+        }
+        return content.toString();
+    }
+
+    private void assertResumes(Path file, Supplier<FileReader> fileReader, int totalRows) throws Exception {
+        String tableName = file.getFileName().toString().replaceAll("\\..*", "");
+        CountingDatabaseWriter failing = new CountingDatabaseWriter(2500);
+        assertThrows(IllegalStateException.class, () ->
+                new FileProcessingService(fileReader.get(), new FileSystemDataSource(), failing).processFile(file.toString(), file.getFileName().toString()));
+        assertEquals(2000, count("SELECT COUNT(*) FROM " + tableName));
+
+        CountingDatabaseWriter resumed = new CountingDatabaseWriter(Long.MAX_VALUE);
+        new FileProcessingService(fileReader.get(), new FileSystemDataSource(), resumed).processFile(file.toString(), file.getFileName().toString());
+
+        assertEquals(totalRows - 2000, resumed.rows.get());
+        assertEquals(totalRows, count("SELECT COUNT(*) FROM " + tableName));
+        assertEquals(totalRows, count("SELECT COUNT(DISTINCT ID) FROM " + tableName));
+        assertEquals(0, count("SELECT COUNT(*) FROM ingest_progress WHERE table_name = '" + tableName + "'"));
+        assertFalse(resumed.createdTable);
+    }
+
+    private long count(String sql) throws Exception {
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Counts the rows written and fails once a given number of rows has been written.
+     */
+    private static class CountingDatabaseWriter implements DatabaseWriter {
+        private final DatabaseWriter delegate = new PostgresDatabaseWriter();
+        private final long failAfter;
+        private final AtomicLong rows = new AtomicLong();
+        private boolean createdTable;
+        private final Set<String> createdTables = new HashSet<>();
+
+        private CountingDatabaseWriter(long failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public void createTable(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName) throws Exception {
+            createdTable = true;
+            createdTables.add(tableName);
+            delegate.createTable(headers, columnTypes, tableName);
+        }
+
+        @Override
+        public void insertData(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension, InputStream inputStream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public RowWriter openRowWriter(Map<Integer, String> headers, Map<Integer, String> columnTypes, String tableName, String extension,
+                                       RowWriterOptions options) throws Exception {
+            RowWriter rowWriter = delegate.openRowWriter(headers, columnTypes, tableName, extension, options);
+            return new RowWriter() {
+                @Override
+                public void writeRow(Object[] values) throws Exception {
+                    if (rows.incrementAndGet() > failAfter) {
+                        throw new IllegalStateException("Simulated failure");
+                    }
+                    rowWriter.writeRow(values);
+                }
+
+                @Override
+                public long commit(Checkpoint checkpoint) throws Exception {
+                    return rowWriter.commit(checkpoint);
+                }
+
+                @Override
+                public Map<Integer, String> columnTypes() {
+                    return rowWriter.columnTypes();
+                }
+
+                @Override
+                public long finish() throws Exception {
+                    return rowWriter.finish();
+                }
+
+                @Override
+                public void close() throws SQLException {
+                    rowWriter.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.pb.service;
+
+import com.pb.datasource.FileSystemDataSource;
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.writer.PostgresDatabaseWriter;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.pb.util.TableNameUtil.createSheetTableNames;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkbookProcessingServiceTest {
+
+    @Test
+    void shouldLoadEverySheetIntoItsOwnTable() throws Exception {
+        String[] sheetNames = {"Employees", "Q1 sales-2024", "Notes", "Q1 sales 2024"};
+        int[] rowCounts = {50, 120, 3, 7};
+        File file = createWorkbook(sheetNames, rowCounts);
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+
+        new WorkbookProcessingService(new FileSystemDataSource(), new PostgresDatabaseWriter(), 2)
+                .processWorkbook(file.getAbsolutePath(), file.getName());
+
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement stmt = connection.createStatement()) {
+            List<String> tableNames = createSheetTableNames(file.getName(), List.of(sheetNames));
+            assertEquals(tableNames.get(1) + "_2", tableNames.get(3));
+            for (int i = 0; i < sheetNames.length; i++) {
+                String tableName = tableNames.get(i);
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MAX(ID) FROM " + tableName)) {
+                    assertTrue(rs.next());
+                    assertEquals(rowCounts[i], rs.getInt(1), tableName);
+                    assertEquals(rowCounts[i], rs.getInt(2), tableName);
+                }
+            }
+        }
+        file.delete();
+    }
+
+    private File createWorkbook(String[] sheetNames, int[] rowCounts) throws IOException {
+        File file = File.createTempFile("workbook", ".xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); FileOutputStream fos = new FileOutputStream(file)) {
+            for (int s = 0; s < sheetNames.length; s++) {
+                Sheet sheet = workbook.createSheet(sheetNames[s]);
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("ID");
+                header.createCell(1).setCellValue("NAME");
+                for (int i = 1; i <= rowCounts[s]; i++) {
+                    Row row = sheet.createRow(i);
+                    row.createCell(0).setCellValue(i);
+                    row.createCell(1).setCellValue(sheetNames[s] + i);
+                }
+            }
+            workbook.write(fos);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,55 @@
+package com.pb.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ColumnTypeInferenceTest {
+
+    private static final Map<Integer, String> HEADERS = Map.of(0, "amount", 1, "flag", 2, "empty_id");
+
+    @Test
+    public void shouldWidenAlongLattice() {
+        ColumnTypeInference inference = new ColumnTypeInference(3, true,
+                ColumnTypeInference.Mode.LATTICE, false, 2, 10);
+        inference.accept(new String[]{"1", "true", ""});
+        inference.accept(new String[]{"2.5", "false", ""});
+        inference.accept(new String[]{"3", "maybe", ""});
+
+        assertEquals(Map.of(0, "NUMERIC(6,1)", 1, "VARCHAR(16)", 2, "INTEGER"), inference.columnTypes(HEADERS));
+    }
+
+    @Test
+    public void shouldPickNarrowestTypeByRangeScaleAndLength() {
+        ColumnTypeInference inference = new ColumnTypeInference(7, true, ColumnTypeInference.Mode.LATTICE, false, 10, 10);
+        inference.accept(new String[]{"12", "70000", "3000000000", "14999.99", "2024-01-31", "123e4567-e89b-12d3-a456-426614174000", "Employee1"});
+        inference.accept(new String[]{"-7", "1", "1", "5000.5", "2024-02-01", "00000000-0000-0000-0000-000000000000", "Employee10000"});
+
+        Map<Integer, String> headers = Map.of(0, "a", 1, "b", 2, "c", 3, "d", 4, "e", 5, "f", 6, "g");
+        assertEquals(Map.of(0, "SMALLINT", 1, "INTEGER", 2, "BIGINT", 3, "NUMERIC(8,2)", 4, "DATE", 5, "UUID", 6, "VARCHAR(32)"),
+                inference.columnTypes(headers));
+    }
+
+    @Test
+    public void shouldJoinTypesToNarrowestCommonType() {
+        assertEquals("NUMERIC(12,2)", SqlType.join(SqlType.parse("NUMERIC(8,2)"), SqlType.ofText("123456789.5")).toString());
+        assertEquals("INTEGER", SqlType.join(SqlType.parse("SMALLINT"), SqlType.ofText("40000")).toString());
+        assertEquals("DOUBLE PRECISION", SqlType.join(SqlType.parse("INTEGER"), SqlType.ofText("1.5e3")).toString());
+        assertEquals("NUMERIC", SqlType.join(SqlType.parse("BIGINT"), SqlType.ofText("1.5e3")).toString());
+        assertEquals("TIMESTAMP", SqlType.join(SqlType.parse("DATE"), SqlType.ofText("2024-01-31 10:00:00")).toString());
+        assertEquals("VARCHAR(32)", SqlType.join(SqlType.parse("INTEGER"), SqlType.ofText("N/A")).toString());
+        assertEquals("TEXT", SqlType.join(SqlType.parse("VARCHAR(1024)"), SqlType.ofText("x".repeat(600))).toString());
+    }
+
+    @Test
+    public void shouldKeepFirstMatchInFirstMatchMode() {
+        ColumnTypeInference inference = new ColumnTypeInference(3, true,
+                ColumnTypeInference.Mode.FIRST_MATCH, false, 2, 10);
+        inference.accept(new String[]{"1", "true", ""});
+        inference.accept(new String[]{"2.5", "maybe", ""});
+
+        assertEquals(Map.of(0, "INTEGER", 1, "BOOLEAN", 2, "TEXT"), inference.columnTypes(HEADERS));
+    }
+}
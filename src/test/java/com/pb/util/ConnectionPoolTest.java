@@ -0,0 +1,125 @@
+package com.pb.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ConnectionPool("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "", 1, 2, 200, 60_000, 5, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void shouldReuseConnectionsAndStatements() throws Exception {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS pooled (id INTEGER)");
+        }
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("INSERT INTO pooled (id) VALUES (?)")) {
+                statement.setInt(1, i);
+                statement.executeUpdate();
+            }
+        }
+
+        ConnectionPool.Metrics metrics = pool.metrics();
+        assertEquals(1, metrics.created());
+        assertEquals(4, metrics.acquired());
+        assertEquals(0, metrics.active());
+        assertEquals(1, metrics.idle());
+        assertEquals(2, metrics.statementHits());
+        assertEquals(1, metrics.statementMisses());
+    }
+
+    @Test
+    public void shouldRollBackAndTimeOutWhenExhausted() throws Exception {
+        Connection first = pool.getConnection();
+        first.setAutoCommit(false);
+        Connection second = pool.getConnection();
+
+        assertThrows(SQLTimeoutException.class, pool::getConnection);
+        assertEquals(2, pool.metrics().active());
+
+        first.close();
+        assertTrue(first.isClosed());
+        try (Connection reused = pool.getConnection()) {
+            assertTrue(reused.getAutoCommit());
+            assertFalse(reused.isClosed());
+        }
+        second.close();
+    }
+
+    @Test
+    public void shouldHandOutSeveralConnectionsAtOnceOrNone() throws Exception {
+        Connection held = pool.getConnection();
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnections(2));
+        assertEquals(1, pool.metrics().active());
+        assertThrows(SQLException.class, () -> pool.getConnections(3));
+        held.close();
+
+        List<Connection> connections = pool.getConnections(2);
+        assertEquals(2, pool.metrics().active());
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        assertEquals(0, pool.metrics().active());
+    }
+
+    @Test
+    public void shouldNotDeadlockWhenSessionsNeedTheWholePool() throws Exception {
+        pool.close();
+        pool = new ConnectionPool("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "", 0, 2, 5_000, 60_000, 5, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> sessions = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                sessions.add(executor.submit(() -> {
+                    start.await();
+                    int used = 0;
+                    for (int round = 0; round < 20; round++) {
+                        List<Connection> connections = pool.getConnections(2);
+                        used += connections.size();
+                        for (Connection connection : connections) {
+                            connection.close();
+                        }
+                    }
+                    return used;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> session : sessions) {
+                assertEquals(40, session.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.pb.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RowHashTest {
+
+    @Test
+    void shouldHashNumbersByValueAndValuesByPosition() {
+        assertEquals(RowHash.of(new Object[]{1500, "a"}, 2), RowHash.of(new Object[]{new BigDecimal("1.5E+3"), "a"}, 2));
+        assertEquals(RowHash.of(new Object[]{new BigDecimal("1.50")}, 1), RowHash.of(new Object[]{new BigDecimal("1.5")}, 1));
+        assertNotEquals(RowHash.of(new Object[]{"a", "b"}, 2), RowHash.of(new Object[]{"b", "a"}, 2));
+        assertNotEquals(RowHash.of(new Object[]{"a", null}, 2), RowHash.of(new Object[]{null, "a"}, 2));
+        assertNotEquals(RowHash.of(new Object[]{"ab", ""}, 2), RowHash.of(new Object[]{"a", "b"}, 2));
+        assertEquals(RowHash.of(new Object[]{"a", "ignored"}, 1), RowHash.of(new Object[]{"a", "other"}, 1));
+    }
+}
@@ -4,6 +4,8 @@ import org.apache.commons.math3.util.Pair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TableNameUtilTest {
@@ -46,4 +48,37 @@ public class TableNameUtilTest {
     public void shouldThrowExceptionWhenFileNameHasNoExtension() {
         assertThrows(IllegalArgumentException.class, () -> TableNameUtil.createTableNameAndExtension("test"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCreateSheetTableName() {
+        Assertions.assertEquals("sales_report_Q1_2024", TableNameUtil.createSheetTableName("sales report.xlsx", " Q1 2024 "));
+        Assertions.assertEquals("sales_Q1_2024", TableNameUtil.createSheetTableName("sales.xlsx", "Q1-2024"));
+        Assertions.assertEquals("sales_Київ_2024", TableNameUtil.createSheetTableName("sales.xlsx", "Київ/2024"));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSheetNameIsBlank() {
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.createSheetTableName("sales.xlsx", " "));
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.createSheetTableName("sales.xlsx", null));
+    }
+
+    @Test
+    public void shouldSuffixSheetTableNamesThatCollide() {
+        List<String> tableNames = TableNameUtil.createSheetTableNames("sales.xlsx",
+                List.of("Q1 2024", "Q1-2024", "q1/2024", "Q1 2024_2", "Totals"));
+        Assertions.assertEquals(List.of("sales_Q1_2024", "sales_Q1_2024_3", "sales_q1_2024_4", "sales_Q1_2024_2", "sales_Totals"),
+                tableNames);
+    }
+
+    @Test
+    public void shouldValidateIdentifiers() {
+        TableNameUtil.validateSqlIdentifier("sales_Київ_2024");
+        TableNameUtil.validateTableName("ingest.progress");
+        TableNameUtil.validateFileIdentifier("report (1)");
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.validateSqlIdentifier("ingest.progress"));
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.validateSqlIdentifier("1st"));
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.validateTableName("progress; DROP TABLE sales"));
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.validateFileIdentifier("name\"; DROP TABLE sales"));
+        assertThrows(IllegalArgumentException.class, () -> TableNameUtil.validateFileIdentifier(null));
+    }
+}
@@ -0,0 +1,91 @@
+package com.pb.util;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ValueClassifierTest {
+
+    private static final String ALPHABET = "0123456789+-.:eEfFdDxXpPtTrRuUyYnNoO \t١";
+
+    @Test
+    public void shouldClassifyLikeParsers() {
+        List<String> values = new ArrayList<>(List.of(
+                "0", "-0", "+1", "-", "+", "2147483647", "2147483648", "-2147483648", "-2147483649", "007",
+                "١٢", "1.", ".5", ".", "-.5e3", "1.5e", "1.5e+", "1.5E-2", "1.5f", "1.5d", "1.5x", "1..5",
+                " 1.5 ", "0x1.8p1", "0x1.8", "NaN", "1,5", "12.34.56",
+                "2024-01-02 03:04:05", "2024-1-2 3:4:5", "2024-01-02 03:04:05.123456789", "2024-01-02 03:04:05.1234567890",
+                "2024-01-02 03:04:05.", "2024-01-02 03:04", "2024-13-02 03:04:05", "2024-01-32 03:04:05",
+                "2024-01-02  03:04:05", " 2024-01-02 03:04:05 ", "24-01-02 03:04:05", "2024-+1-02 03:04:05",
+                "2024-01-02 99:99:99", "2024-01-02 03:04:05.-1", "2024-01-02T03:04:05", "2024-01-02",
+                "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+                "2024-1-2", "2024-01-2x", "2024--02", "2024-00-10", "+024-01-02", "2024-01-02-", "12024-01-02",
+                "true", "FALSE", "yes", "no", "on", "off", "y", "n", "t", "f", "maybe", "Employee1", "N/A"));
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            values.add(value.toString());
+            values.add("2024-0" + random.nextInt(10) + "-" + random.nextInt(40) + " " + value);
+            values.add("2024-0" + random.nextInt(10) + "-" + value);
+            values.add(random.nextLong() + value.substring(0, 1));
+        }
+
+        for (String value : values) {
+            assertEquals(legacyClassify(value), ValueClassifier.classify(value), "Value '" + value + "'");
+            assertEquals(accepts(() -> Long.parseLong(value)), ValueClassifier.isLong(value), "Long '" + value + "'");
+            assertEquals(accepts(() -> java.sql.Date.valueOf(value)), ValueClassifier.isDate(value), "Date '" + value + "'");
+            if (ValueClassifier.isPlainDecimal(value)) {
+                assertTrue(accepts(() -> new java.math.BigDecimal(value)), "Decimal '" + value + "'");
+            }
+        }
+    }
+
+    private static boolean accepts(Runnable parser) {
+        try {
+            parser.run();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The exception-based checks the classifier replaces.
+     */
+    private static ColumnType legacyClassify(String value) {
+        if (value.isEmpty()) {
+            return ColumnType.TEXT;
+        }
+        try {
+            Integer.parseInt(value);
+            return ColumnType.INTEGER;
+        } catch (NumberFormatException e) {
+            // not an integer
+        }
+        try {
+            Double.parseDouble(value);
+            if (value.contains(".")) {
+                return ColumnType.NUMERIC;
+            }
+        } catch (NumberFormatException e) {
+            // not a number
+        }
+        try {
+            java.sql.Timestamp.valueOf(value);
+            return ColumnType.TIMESTAMP;
+        } catch (IllegalArgumentException e) {
+            // not a timestamp
+        }
+        return BooleanUtils.toBooleanObject(value) != null ? ColumnType.BOOLEAN : ColumnType.TEXT;
+    }
+}
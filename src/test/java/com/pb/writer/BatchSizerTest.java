@@ -0,0 +1,67 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSizerTest {
+
+    @Test
+    void shouldSteerTowardsTargetDuration() {
+        BatchSizer sizer = new BatchSizer(1000, 100, 100, 50000, Long.MAX_VALUE);
+        for (int i = 0; i < 20; i++) {
+            int rows = sizer.size();
+            sizer.record(rows, rows * 20L, rows * 5_000L);
+        }
+        assertEquals(20000, sizer.size());
+
+        for (int i = 0; i < 20; i++) {
+            int rows = sizer.size();
+            sizer.record(rows, rows * 20L, rows * 1_000_000L);
+        }
+        assertEquals(100, sizer.size());
+    }
+
+    @Test
+    void shouldLimitBytesPerBatch() {
+        BatchSizer sizer = new BatchSizer(1000, 100, 1, 50000, 1024 * 1024);
+        for (int i = 0; i < 20; i++) {
+            int rows = sizer.size();
+            sizer.record(rows, rows * 4096L, rows * 1_000L);
+        }
+        assertEquals(256, sizer.size());
+    }
+
+    @Test
+    void shouldInsertSeveralRowsPerStatement() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS multi_row");
+            statement.execute("CREATE TABLE multi_row (id INTEGER, name TEXT)");
+            connection.setAutoCommit(false);
+            BatchSizer sizer = new BatchSizer(100, 0, 100, 100, Long.MAX_VALUE);
+            try (BatchInsertRowWriter writer = new BatchInsertRowWriter(connection, "INSERT INTO multi_row (id,name) VALUES (?,?)",
+                    Map.of(0, "INTEGER", 1, "TEXT"), sizer, 7)) {
+                for (int i = 1; i <= 1003; i++) {
+                    writer.writeRow(new Object[]{i, i % 3 == 0 ? null : "name" + i});
+                }
+                assertEquals(1003, writer.finish());
+            }
+            connection.commit();
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*), SUM(id), COUNT(name) FROM multi_row")) {
+                assertTrue(resultSet.next());
+                assertEquals(1003, resultSet.getLong(1));
+                assertEquals(1003L * 1004 / 2, resultSet.getLong(2));
+                assertEquals(1003 - 334, resultSet.getLong(3));
+            }
+        }
+    }
+}
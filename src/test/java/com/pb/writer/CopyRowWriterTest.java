@@ -0,0 +1,30 @@
+package com.pb.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CopyRowWriterTest {
+
+    @Test
+    public void shouldEncodeRowInCopyTextFormat() {
+        StringBuilder buffer = new StringBuilder();
+        Object[] values = {1, 5000.5, Timestamp.valueOf("2024-01-02 03:04:05"), true, "Employee1"};
+
+        CopyRowWriter.appendRow(buffer, values, values.length);
+
+        assertEquals("1\t5000.5\t2024-01-02 03:04:05.0\tt\tEmployee1\n", buffer.toString());
+    }
+
+    @Test
+    public void shouldEncodeNullAndEscapeSpecialCharacters() {
+        StringBuilder buffer = new StringBuilder();
+        Object[] values = {null, "a\tb\nc\\d\re"};
+
+        CopyRowWriter.appendRow(buffer, values, values.length);
+
+        assertEquals("\\N\ta\\tb\\nc\\\\d\\re\n", buffer.toString());
+    }
+}
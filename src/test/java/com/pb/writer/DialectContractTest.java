@@ -0,0 +1,130 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+import com.pb.util.SqlType;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Loads the same rows through every dialect and checks that they all produce the same table. The PostgreSQL
+ * dialect runs against the database of {@code application.yml} when {@code -Dtest.postgres=true} is set.
+ */
+public class DialectContractTest {
+    private static final int ROWS = 250;
+    private static final Map<Integer, String> HEADERS = new TreeMap<>(Map.of(0, "id", 1, "code", 2, "name", 3, "amount", 4, "due", 5, "flag"));
+    private static final Map<Integer, String> COLUMN_TYPES = new TreeMap<>(Map.of(0, "INTEGER", 1, "INTEGER", 2, "VARCHAR(64)",
+            3, "NUMERIC(12,2)", 4, "DATE", 5, "BOOLEAN"));
+    private static final List<String> NAMES = List.of("plain", "with, comma", "with \"quotes\"", "two\nlines", "tab\there",
+            "back\\slash", "Київ", "ünïcødé ✓");
+
+    @Test
+    public void shouldPickDialectFromUrl() {
+        assertEquals("postgresql", Dialect.forUrl("jdbc:postgresql://localhost:5432/test").name());
+        assertEquals("h2", Dialect.forUrl("jdbc:h2:mem:testdb").name());
+        assertEquals("generic", Dialect.forUrl("jdbc:sqlite:test.db").name());
+        assertEquals("generic", Dialect.forUrl(null).name());
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> shouldProduceIdenticalTables() {
+        return Stream.of(
+                DynamicTest.dynamicTest("generic", () -> assertLoads(Dialect.GENERIC, "application-test.yml")),
+                DynamicTest.dynamicTest("h2", () -> assertLoads(Dialect.H2, "application-test.yml")),
+                DynamicTest.dynamicTest("postgresql", () -> {
+                    assumeTrue(Boolean.getBoolean("test.postgres"), "set -Dtest.postgres=true to run against PostgreSQL");
+                    try {
+                        assertLoads(Dialect.POSTGRES, "application.yml");
+                    } finally {
+                        DatabaseConnectionManager.loadProperties("application-test.yml");
+                    }
+                }));
+    }
+
+    private static void assertLoads(Dialect dialect, String config) throws Exception {
+        DatabaseConnectionManager.loadProperties(config);
+        String tableName = "dialect_" + dialect.name();
+        PostgresDatabaseWriter writer = new PostgresDatabaseWriter(dialect);
+        writer.createTable(HEADERS, COLUMN_TYPES, tableName);
+        try (RowWriter rowWriter = writer.openRowWriter(HEADERS, COLUMN_TYPES, tableName, "csv")) {
+            for (String[] row : rows()) {
+                rowWriter.writeRow(row);
+            }
+            assertEquals(ROWS, rowWriter.finish());
+        }
+
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, code, name, amount, due, flag FROM " + tableName + " ORDER BY id")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<SqlType> types = new ArrayList<>();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                types.add(SqlType.ofJdbc(metaData.getColumnType(column), metaData.getColumnTypeName(column),
+                        metaData.getPrecision(column), metaData.getScale(column)));
+            }
+            assertEquals(List.of(SqlType.parse("INTEGER"), SqlType.parse("VARCHAR(32)"), SqlType.parse("VARCHAR(64)"),
+                    SqlType.parse("NUMERIC(12,2)"), SqlType.parse("DATE"), SqlType.parse("BOOLEAN")), types, dialect.name());
+
+            List<String> loaded = new ArrayList<>();
+            while (resultSet.next()) {
+                String[] values = new String[metaData.getColumnCount()];
+                for (int column = 1; column <= values.length; column++) {
+                    values[column - 1] = canonical(resultSet.getObject(column));
+                }
+                loaded.add(Arrays.toString(values));
+            }
+            assertEquals(expected(), loaded, dialect.name());
+        }
+    }
+
+    private static List<String[]> rows() {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(new String[]{String.valueOf(i), i == 120 ? "N/A" : String.valueOf(i * 7),
+                    i % 10 == 0 ? "" : NAMES.get(i % NAMES.size()) + " " + i, i % 9 == 0 ? "" : (i * 13) + "." + (i % 100),
+                    "2024-" + String.format("%02d-%02d", i % 12 + 1, i % 28 + 1), i % 11 == 0 ? "" : String.valueOf(i % 2 == 0)});
+        }
+        return rows;
+    }
+
+    private static List<String> expected() {
+        List<String> expected = new ArrayList<>();
+        for (String[] row : rows()) {
+            String[] values = row.clone();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = values[i].isEmpty() ? null : values[i];
+            }
+            if (values[3] != null) {
+                values[3] = new BigDecimal(values[3]).setScale(2).toPlainString();
+            }
+            expected.add(Arrays.toString(values));
+        }
+        return expected;
+    }
+
+    private static String canonical(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.setScale(2).toPlainString();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().toString();
+        }
+        return value != null ? value.toString() : null;
+    }
+}
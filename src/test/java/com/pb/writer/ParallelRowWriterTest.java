@@ -0,0 +1,123 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class ParallelRowWriterTest {
+
+    private static final Map<Integer, String> COLUMN_TYPES = Map.of(0, "INTEGER", 1, "TEXT");
+
+    @BeforeAll
+    public static void setUp() {
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+    }
+
+    @Test
+    public void shouldWriteAllRowsOverSeveralConnections() throws Exception {
+        createTable("parallel_ok");
+
+        try (ParallelRowWriter writer = new ParallelRowWriter(3, 7, false, insertWriter("parallel_ok"), COLUMN_TYPES)) {
+            for (int i = 0; i < 100; i++) {
+                writer.writeRow(new Object[]{i, "row" + i});
+            }
+            assertEquals(100, writer.finish());
+            assertEquals(15, writer.stats().batches());
+        }
+
+        assertEquals(100, count("parallel_ok"));
+    }
+
+    @Test
+    public void shouldRollBackAllConnectionsWhenOneFails() throws Exception {
+        createTable("parallel_failed");
+
+        try (RowWriter writer = new ParallelRowWriter(3, 7, false, insertWriter("parallel_failed"), COLUMN_TYPES)) {
+            assertThrows(Exception.class, () -> {
+                for (int i = 0; i < 100; i++) {
+                    writer.writeRow(new Object[]{i == 50 ? "not a number" : i, "row" + i});
+                }
+                writer.finish();
+            });
+        }
+
+        assertEquals(0, count("parallel_failed"));
+    }
+
+    @Test
+    public void shouldStopAllWorkersWhenTheLastBatchFails() throws Exception {
+        createTable("parallel_failed_last");
+        RowWriterFactory insertWriter = insertWriter("parallel_failed_last");
+        // Rows 84 and 91 start the two batches before the last one and keep their workers busy, while the worker of
+        // the last batch fails after the reader has queued the end of every worker.
+        RowWriterFactory factory = (connection, columnTypes) -> {
+            RowWriter target = insertWriter.create(connection, columnTypes);
+            return new RowWriter() {
+                @Override
+                public void writeRow(Object[] values) throws Exception {
+                    int id = (Integer) values[0];
+                    if (id == 84 || id == 91) {
+                        Thread.sleep(500);
+                    } else if (id == 99) {
+                        Thread.sleep(100);
+                        throw new SQLException("Simulated failure");
+                    }
+                    target.writeRow(values);
+                }
+
+                @Override
+                public long finish() throws Exception {
+                    return target.finish();
+                }
+
+                @Override
+                public void close() throws SQLException {
+                    target.close();
+                }
+            };
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (RowWriter writer = new ParallelRowWriter(3, 7, false, factory, COLUMN_TYPES)) {
+                for (int i = 0; i < 100; i++) {
+                    writer.writeRow(new Object[]{i, "row" + i});
+                }
+                assertThrows(SQLException.class, writer::finish);
+            }
+        });
+
+        assertEquals(0, count("parallel_failed_last"));
+    }
+
+    private static RowWriterFactory insertWriter(String tableName) {
+        return (connection, columnTypes) -> new BatchInsertRowWriter(connection, "INSERT INTO " + tableName + " (id, name) VALUES (?, ?)", columnTypes);
+    }
+
+    private static void createTable(String tableName) throws SQLException {
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + tableName);
+            statement.execute("CREATE TABLE " + tableName + " (id INTEGER, name TEXT)");
+        }
+    }
+
+    private static long count(String tableName) throws SQLException {
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pb.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PgBinaryCopyEncoderTest {
+
+    @Test
+    public void shouldWriteHeaderRowAndTrailer() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(output::write, 16);
+
+        encoder.writeHeader();
+        encoder.startRow(4);
+        encoder.writeInt4(42);
+        encoder.writeNull();
+        encoder.writeBoolean(true);
+        encoder.writeText("Ärzte");
+        encoder.writeTrailer();
+        encoder.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(output.toByteArray());
+        byte[] signature = new byte[PgBinaryCopyEncoder.SIGNATURE.length];
+        bytes.get(signature);
+        assertArrayEquals(PgBinaryCopyEncoder.SIGNATURE, signature);
+        assertEquals(0, bytes.getInt());
+        assertEquals(0, bytes.getInt());
+        assertEquals(4, bytes.getShort());
+        assertEquals(4, bytes.getInt());
+        assertEquals(42, bytes.getInt());
+        assertEquals(-1, bytes.getInt());
+        assertEquals(1, bytes.getInt());
+        assertEquals(1, bytes.get());
+        byte[] text = "Ärzte".getBytes(StandardCharsets.UTF_8);
+        assertEquals(text.length, bytes.getInt());
+        byte[] encodedText = new byte[text.length];
+        bytes.get(encodedText);
+        assertArrayEquals(text, encodedText);
+        assertEquals(-1, bytes.getShort());
+        assertEquals(0, bytes.remaining());
+    }
+
+    @Test
+    public void shouldWriteTimestampRelativeToPostgresEpoch() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(output::write, 64);
+
+        encoder.writeTimestamp(Timestamp.valueOf("2000-01-02 00:00:00.000001"));
+        encoder.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(output.toByteArray());
+        assertEquals(8, bytes.getInt());
+        assertEquals(86_400_000_001L, bytes.getLong());
+    }
+
+    @Test
+    public void shouldWriteNumericDigitsInBase10000() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(output::write, 64);
+
+        encoder.writeNumeric(12345.67);
+        encoder.writeNumeric(Double.NaN);
+        encoder.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(output.toByteArray());
+        int length = bytes.getInt();
+        short[] header = {bytes.getShort(), bytes.getShort(), bytes.getShort(), bytes.getShort()};
+        assertArrayEquals(new short[]{3, 1, 0, 2}, header);
+        short[] digits = {bytes.getShort(), bytes.getShort(), bytes.getShort()};
+        assertArrayEquals(new short[]{1, 2345, 6700}, digits);
+        assertEquals(14, length);
+        assertEquals(8, bytes.getInt());
+        assertEquals("[0, 0, -16384, 0]", Arrays.toString(new short[]{bytes.getShort(), bytes.getShort(), bytes.getShort(), bytes.getShort()}));
+    }
+
+    @Test
+    public void shouldWriteSmallintDateAndUuid() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PgBinaryCopyEncoder encoder = new PgBinaryCopyEncoder(output::write, 64);
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        encoder.writeInt2((short) -7);
+        encoder.writeDate(java.sql.Date.valueOf("1999-12-31"));
+        encoder.writeUuid(uuid);
+        encoder.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(output.toByteArray());
+        assertEquals(2, bytes.getInt());
+        assertEquals(-7, bytes.getShort());
+        assertEquals(4, bytes.getInt());
+        assertEquals(-1, bytes.getInt());
+        assertEquals(16, bytes.getInt());
+        assertEquals(uuid.getMostSignificantBits(), bytes.getLong());
+        assertEquals(uuid.getLeastSignificantBits(), bytes.getLong());
+        assertEquals(0, bytes.remaining());
+    }
+}
@@ -0,0 +1,69 @@
+package com.pb.writer;
+
+import com.pb.util.DatabaseConnectionManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PostgresDatabaseWriterTest {
+
+    @BeforeAll
+    public static void setUp() {
+        DatabaseConnectionManager.loadProperties("application-test.yml");
+    }
+
+    @Test
+    public void shouldWidenColumnWhenValueDoesNotFit() throws Exception {
+        Map<Integer, String> headers = new TreeMap<>(Map.of(0, "code", 1, "name"));
+        Map<Integer, String> columnTypes = new TreeMap<>(Map.of(0, "INTEGER", 1, "TEXT"));
+        PostgresDatabaseWriter writer = new PostgresDatabaseWriter();
+        writer.createTable(headers, columnTypes, "widened");
+
+        try (RowWriter rowWriter = writer.openRowWriter(headers, columnTypes, "widened", "csv")) {
+            rowWriter.writeRow(new String[]{"1", "first"});
+            rowWriter.writeRow(new String[]{"N/A", "second"});
+            rowWriter.writeRow(new String[]{"3", "third"});
+            assertEquals(3, rowWriter.finish());
+        }
+
+        List<String> codes = new ArrayList<>();
+        try (Connection connection = DatabaseConnectionManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT code FROM widened ORDER BY name")) {
+            while (resultSet.next()) {
+                codes.add(resultSet.getString(1));
+            }
+        }
+        assertEquals(List.of("1", "N/A", "3"), codes);
+    }
+
+    @Test
+    public void shouldWidenOnOneConnectionWhenSeveralAreConfigured() throws Exception {
+        DatabaseConnectionManager.loadProperties("application-parallel-test.yml");
+        try {
+            Map<Integer, String> headers = new TreeMap<>(Map.of(0, "code", 1, "name"));
+            Map<Integer, String> columnTypes = new TreeMap<>(Map.of(0, "INTEGER", 1, "TEXT"));
+            PostgresDatabaseWriter writer = new PostgresDatabaseWriter();
+            writer.createTable(headers, columnTypes, "widened_parallel");
+
+            try (RowWriter rowWriter = writer.openRowWriter(headers, columnTypes, "widened_parallel", "csv")) {
+                for (int i = 0; i < 5000; i++) {
+                    rowWriter.writeRow(new String[]{i == 2500 ? "N/A" : String.valueOf(i), "row" + i});
+                }
+                assertEquals(5000, rowWriter.finish());
+                assertEquals("VARCHAR(32)", rowWriter.columnTypes().get(0));
+            }
+        } finally {
+            DatabaseConnectionManager.loadProperties("application-test.yml");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.pb.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceRowWriterTest {
+
+    private static final Map<Integer, String> COLUMN_TYPES = Map.of(0, "SMALLINT", 1, "NUMERIC(5,2)", 2, "VARCHAR(4)");
+
+    @Test
+    public void shouldRejectTypedValuesThatDoNotFitWithoutWidening() throws Exception {
+        RecordingRowWriter target = new RecordingRowWriter();
+        try (SourceRowWriter writer = new SourceRowWriter(target, "test", COLUMN_TYPES, false, false)) {
+            writer.writeRow(new Object[]{7.0, new BigDecimal("1.5"), null});
+            assertArrayEquals(new Object[]{(short) 7, new BigDecimal("1.5"), null}, target.rows.get(0));
+
+            IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                    () -> writer.writeRow(new Object[]{40000.0, null, null}));
+            assertTrue(tooLarge.getMessage().contains("does not fit column 0 of type SMALLINT"), tooLarge.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> writer.writeRow(new Object[]{1, new BigDecimal("1.234"), null}));
+            assertThrows(IllegalArgumentException.class, () -> writer.writeRow(new Object[]{1, null, "too long"}));
+        }
+        assertEquals(1, target.rows.size());
+        assertTrue(target.changes.isEmpty());
+    }
+
+    @Test
+    public void shouldWidenTypedValuesThatDoNotFit() throws Exception {
+        RecordingRowWriter target = new RecordingRowWriter();
+        try (SourceRowWriter writer = new SourceRowWriter(target, "test", COLUMN_TYPES, false, true)) {
+            writer.writeRow(new Object[]{40000.0, null, "too long"});
+        }
+        assertArrayEquals(new Object[]{40000, null, "too long"}, target.rows.get(0));
+        assertEquals(List.of("0 INTEGER", "2 VARCHAR(16)"), target.changes);
+    }
+
+    private static final class RecordingRowWriter implements RowWriter {
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void writeRow(Object[] values) {
+            rows.add(values);
+        }
+
+        @Override
+        public void changeColumnType(int columnIndex, String columnType) {
+            changes.add(columnIndex + " " + columnType);
+        }
+
+        @Override
+        public long finish() {
+            return rows.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}